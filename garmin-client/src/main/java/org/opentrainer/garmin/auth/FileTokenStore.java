@@ -0,0 +1,126 @@
+package org.opentrainer.garmin.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Token store in a local JSON file.
+ * Each write goes to a temporary file that atomically replaces the token file, so a crash never leaves
+ * a truncated one behind; an unreadable file is treated as empty.
+ */
+@Slf4j
+public class FileTokenStore implements TokenStore {
+
+    private final Path tokenPath;
+    private final JsonMapper mapp;
+    private final boolean fsync;
+
+    /**
+     * @param fsync Force writes to the storage device before replacing the previous file
+     */
+    public FileTokenStore(Path tokenPath, JsonMapper mapp, boolean fsync) {
+        this.tokenPath = tokenPath;
+        this.mapp = mapp;
+        this.fsync = fsync;
+    }
+
+    @Override
+    public synchronized Optional<StoredTokens> load() {
+        TokenLoadEvent event = new TokenLoadEvent();
+        event.begin();
+        event.path = tokenPath.toString();
+        try {
+            event.found = Files.exists(tokenPath);
+            Optional<StoredTokens> stored = read();
+            event.success = stored.isPresent() || !event.found;
+            stored.ifPresent(tokens -> log.debug("Loaded tokens from {}", tokenPath));
+            return stored;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public synchronized long save(OAuth1Token oauth1Token, OAuth2Token oauth2Token, long expectedVersion) {
+        long version = read().map(StoredTokens::getVersion).orElse(0L);
+        if (version != expectedVersion) {
+            throw new GarminTokenConflictException(
+                    "Token file " + tokenPath + " is at version " + version + ", expected " + expectedVersion);
+        }
+
+        TokenPersistEvent event = new TokenPersistEvent();
+        event.begin();
+        event.operation = "save";
+        event.path = tokenPath.toString();
+        try {
+            Files.createDirectories(tokenPath.getParent());
+            StoredTokens stored = new StoredTokens(oauth1Token, oauth2Token, version + 1);
+
+            Path temporary = tokenPath.resolveSibling(tokenPath.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(mapp.writeValueAsBytes(stored));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(temporary, tokenPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, tokenPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            event.success = true;
+            log.debug("Saved tokens to {}", tokenPath);
+            return stored.getVersion();
+        } catch (IOException | JacksonException e) {
+            throw new GarminClientException("Failed to save tokens to " + tokenPath + ": " + e.getMessage(), e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public synchronized void delete() {
+        TokenPersistEvent event = new TokenPersistEvent();
+        event.begin();
+        event.operation = "delete";
+        event.path = tokenPath.toString();
+        try {
+            Files.deleteIfExists(tokenPath);
+            event.success = true;
+            log.info("Deleted tokens from {}", tokenPath);
+        } catch (IOException e) {
+            throw new GarminClientException("Failed to delete tokens from " + tokenPath + ": " + e.getMessage(), e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private Optional<StoredTokens> read() {
+        if (!Files.exists(tokenPath)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(mapp.readValue(tokenPath.toFile(), StoredTokens.class));
+        } catch (JacksonException e) {
+            log.warn("Ignoring unreadable token file {}: {}", tokenPath, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
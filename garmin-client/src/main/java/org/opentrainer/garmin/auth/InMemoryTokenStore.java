@@ -0,0 +1,34 @@
+package org.opentrainer.garmin.auth;
+
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+
+import java.util.Optional;
+
+/**
+ * Token store kept in memory, e.g. for tests or clients that authenticate on every start
+ */
+public class InMemoryTokenStore implements TokenStore {
+
+    private StoredTokens stored;
+
+    @Override
+    public synchronized Optional<StoredTokens> load() {
+        return Optional.ofNullable(stored);
+    }
+
+    @Override
+    public synchronized long save(OAuth1Token oauth1Token, OAuth2Token oauth2Token, long expectedVersion) {
+        long version = stored != null ? stored.getVersion() : 0;
+        if (version != expectedVersion) {
+            throw new GarminTokenConflictException(
+                    "Tokens were stored at version " + version + ", expected " + expectedVersion);
+        }
+        stored = new StoredTokens(oauth1Token, oauth2Token, version + 1);
+        return version + 1;
+    }
+
+    @Override
+    public synchronized void delete() {
+        stored = null;
+    }
+}
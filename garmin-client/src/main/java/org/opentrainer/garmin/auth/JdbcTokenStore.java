@@ -0,0 +1,181 @@
+package org.opentrainer.garmin.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Token store in a PostgreSQL table shared by several nodes, see {@code db/migration/garmin}.
+ * Tokens are encrypted at rest and read through a short-lived cache; writes are compare-and-set on the row version,
+ * so of two nodes refreshing at once only the first one's tokens are stored.
+ * The first write relies on PostgreSQL's {@code ON CONFLICT}.
+ */
+@Slf4j
+public class JdbcTokenStore implements TokenStore {
+
+    private static final String SELECT =
+            "SELECT version, tokens FROM garmin_tokens WHERE owner = ?";
+    private static final String INSERT =
+            "INSERT INTO garmin_tokens (owner, version, tokens, updated_at) VALUES (?, 1, ?, ?) "
+                    + "ON CONFLICT (owner) DO NOTHING";
+    private static final String UPDATE =
+            "UPDATE garmin_tokens SET version = version + 1, tokens = ?, updated_at = ? WHERE owner = ? AND version = ?";
+    private static final String DELETE =
+            "DELETE FROM garmin_tokens WHERE owner = ?";
+
+    private final DataSource dataSource;
+    private final String owner;
+    private final TokenCipher cipher;
+    private final JsonMapper mapp;
+    private final Duration cacheTtl;
+    private final Clock clock;
+    private volatile Cached cached;
+
+    /**
+     * @param owner    Key of the tokens' row, e.g. the tenant identifier
+     * @param cacheTtl How long loaded tokens are served without reading the table again
+     */
+    public JdbcTokenStore(DataSource dataSource, String owner, TokenCipher cipher, JsonMapper mapp, Duration cacheTtl) {
+        this(dataSource, owner, cipher, mapp, cacheTtl, Clock.systemUTC());
+    }
+
+    public JdbcTokenStore(DataSource dataSource, String owner, TokenCipher cipher, JsonMapper mapp,
+                          Duration cacheTtl, Clock clock) {
+        this.dataSource = dataSource;
+        this.owner = owner;
+        this.cipher = cipher;
+        this.mapp = mapp;
+        this.cacheTtl = cacheTtl;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<StoredTokens> load() {
+        Cached current = cached;
+        if (current != null && clock.instant().isBefore(current.expiresAt)) {
+            return Optional.ofNullable(current.tokens);
+        }
+        return loadFresh();
+    }
+
+    @Override
+    public Optional<StoredTokens> loadFresh() {
+        StoredTokens tokens = select();
+        cache(tokens);
+        return Optional.ofNullable(tokens);
+    }
+
+    @Override
+    public long save(OAuth1Token oauth1Token, OAuth2Token oauth2Token, long expectedVersion) {
+        byte[] encrypted = encrypt(new StoredTokens(oauth1Token, oauth2Token, 0));
+        Timestamp now = Timestamp.from(clock.instant());
+        int updated;
+        try (Connection connection = dataSource.getConnection()) {
+            if (expectedVersion == 0) {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                    statement.setString(1, owner);
+                    statement.setBytes(2, encrypted);
+                    statement.setTimestamp(3, now);
+                    updated = statement.executeUpdate();
+                }
+            } else {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                    statement.setBytes(1, encrypted);
+                    statement.setTimestamp(2, now);
+                    statement.setString(3, owner);
+                    statement.setLong(4, expectedVersion);
+                    updated = statement.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new GarminClientException("Failed to save tokens of " + owner + ": " + e.getMessage(), e);
+        }
+
+        if (updated == 0) {
+            cached = null;
+            throw new GarminTokenConflictException(
+                    "Tokens of " + owner + " are no longer at version " + expectedVersion);
+        }
+        long version = expectedVersion + 1;
+        cache(new StoredTokens(oauth1Token, oauth2Token, version));
+        log.debug("Saved tokens of {} at version {}", owner, version);
+        return version;
+    }
+
+    @Override
+    public void delete() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE)) {
+            statement.setString(1, owner);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new GarminClientException("Failed to delete tokens of " + owner + ": " + e.getMessage(), e);
+        }
+        cache(null);
+        log.info("Deleted tokens of {}", owner);
+    }
+
+    private StoredTokens select() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setString(1, owner);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    return null;
+                }
+                StoredTokens tokens = decrypt(result.getBytes("tokens"));
+                tokens.setVersion(result.getLong("version"));
+                return tokens;
+            }
+        } catch (SQLException e) {
+            throw new GarminClientException("Failed to load tokens of " + owner + ": " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] encrypt(StoredTokens tokens) {
+        try {
+            return cipher.encrypt(mapp.writeValueAsBytes(tokens), owner);
+        } catch (JacksonException e) {
+            throw new GarminClientException("Failed to serialize tokens: " + e.getMessage(), e);
+        }
+    }
+
+    private StoredTokens decrypt(byte[] encrypted) {
+        try {
+            return mapp.readValue(cipher.decrypt(encrypted, owner), StoredTokens.class);
+        } catch (JacksonException e) {
+            throw new GarminClientException("Failed to read tokens of " + owner + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void cache(StoredTokens tokens) {
+        cached = new Cached(tokens, clock.instant().plus(cacheTtl));
+    }
+
+    /**
+     * Tokens last read or written, null when none are stored
+     */
+    private static final class Cached {
+
+        private final StoredTokens tokens;
+        private final Instant expiresAt;
+
+        Cached(StoredTokens tokens, Instant expiresAt) {
+            this.tokens = tokens;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
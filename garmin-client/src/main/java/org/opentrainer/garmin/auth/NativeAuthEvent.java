@@ -0,0 +1,23 @@
+package org.opentrainer.garmin.auth;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one native SSO and OAuth login
+ */
+@Name("org.opentrainer.garmin.NativeAuth")
+@Label("Garmin Native Authentication")
+@Category({"Open Trainer", "Garmin"})
+@StackTrace(false)
+class NativeAuthEvent extends Event {
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Python Fallback")
+    boolean fallback;
+}
@@ -0,0 +1,320 @@
+package org.opentrainer.garmin.auth;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import org.opentrainer.garmin.exception.GarminLoginRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service for authenticating with Garmin in-process, without the Python helper script.
+ * Signs in to Garmin SSO with the credentials to obtain a service ticket, trades the ticket for an OAuth1 token
+ * and the OAuth1 token for an OAuth2 token, all over the shared {@link WebClient}, and stores both tokens.
+ * When enabled, a failed login is retried once through {@link PythonAuthService}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class NativeAuthService {
+
+    private static final String MOBILE_USER_AGENT = "com.garmin.android.apps.connectmobile";
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"(.+?)\"");
+    private static final Pattern TITLE = Pattern.compile("<title>(.+?)</title>");
+    private static final Pattern TICKET = Pattern.compile("embed\\?ticket=([^\"]+)\"");
+
+    private final GarminProperties properties;
+    private final WebClient webClient;
+    private final TokenManager tokenManager;
+    private final JsonMapper objectMapper;
+    private final PythonAuthService fallback;
+
+    private volatile OAuth1Signer signer;
+
+    /**
+     * Authenticate using the configured credentials and store tokens.
+     */
+    public void authenticate() {
+        GarminProperties.OAuth oauth = properties.getOauth();
+        authenticate(oauth.getEmail(), oauth.getPassword());
+    }
+
+    /**
+     * Authenticate with explicit credentials and store tokens, falling back to the Python helper script
+     * when the native login fails and the fallback is enabled. Sign-ins Garmin rejected, such as wrong
+     * credentials or a required second factor, are not retried by the fallback.
+     */
+    public void authenticate(String email, String password) {
+        if (email == null || password == null) {
+            throw new GarminAuthenticationException("Email and password must be configured for authentication.");
+        }
+
+        NativeAuthEvent event = new NativeAuthEvent();
+        event.begin();
+        try {
+            login(email, password).block();
+            event.success = true;
+            log.info("Successfully authenticated and stored tokens.");
+        } catch (RuntimeException e) {
+            if (fallback == null || !properties.getOauth().isPythonFallback()
+                    || e instanceof GarminLoginRejectedException) {
+                throw e;
+            }
+            log.warn("Native authentication failed, falling back to Python helper: {}", e.getMessage());
+            event.fallback = true;
+            fallback.authenticate(email, password);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Sign in and store the OAuth1 and OAuth2 tokens
+     */
+    public Mono<Void> login(String email, String password) {
+        return Mono.defer(() -> {
+            log.info("Starting native authentication for user: {}", email);
+            // Resolve the consumer first, so a failure there does not follow a submitted password
+            return signer()
+                    .then(ticket(email, password))
+                    .flatMap(this::preauthorize)
+                    .flatMap(oauth1 -> exchange(oauth1).doOnNext(oauth2 -> {
+                        tokenManager.storeOAuth1Token(oauth1);
+                        tokenManager.storeOAuth2Token(oauth2);
+                    }));
+        })
+                .timeout(properties.getOauth().getLoginTimeout())
+                .onErrorMap(error -> !(error instanceof GarminAuthenticationException),
+                        error -> new GarminAuthenticationException("Native authentication failed: " + error.getMessage(),
+                                error))
+                .then();
+    }
+
+    /**
+     * Trade an OAuth1 token for a new OAuth2 token
+     */
+    public Mono<OAuth2Token> exchange(OAuth1Token oauth1) {
+        URI uri = URI.create(properties.getOauth().getConnectApiUrl() + "/oauth-service/oauth/exchange/user/2.0");
+        Map<String, String> form = new LinkedHashMap<>();
+        if (oauth1.getMfaToken() != null) {
+            form.put("mfa_token", oauth1.getMfaToken());
+        }
+        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+        form.forEach(body::add);
+
+        return signer().flatMap(signer -> webClient.post()
+                        .uri(uri)
+                        .header(HttpHeaders.AUTHORIZATION, signer.authorization(HttpMethod.POST, uri, form, oauth1))
+                        .header(HttpHeaders.USER_AGENT, MOBILE_USER_AGENT)
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .body(BodyInserters.fromFormData(body))
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .map(json -> {
+                    ExchangedToken token = objectMapper.readValue(json, ExchangedToken.class);
+                    if (token.accessToken == null) {
+                        throw new GarminAuthenticationException("OAuth2 exchange returned no access token");
+                    }
+                    return OAuth2Token.builder()
+                            .accessToken(token.accessToken)
+                            .refreshToken(token.refreshToken)
+                            .tokenType(token.tokenType)
+                            .scope(token.scope)
+                            .expiresAt(token.expiresIn != null ? Instant.now().plusSeconds(token.expiresIn) : null)
+                            .build();
+                });
+    }
+
+    /**
+     * Sign in to Garmin SSO and extract the service ticket from the success page
+     */
+    private Mono<String> ticket(String email, String password) {
+        String sso = properties.getOauth().getSsoUrl() + "/sso";
+        String embed = sso + "/embed";
+        URI embedUri = uri(embed, Map.of("id", "gauth-widget", "embedWidget", "true", "gauthHost", sso));
+        Map<String, String> signinParameters = new LinkedHashMap<>();
+        signinParameters.put("id", "gauth-widget");
+        signinParameters.put("embedWidget", "true");
+        signinParameters.put("gauthHost", embed);
+        signinParameters.put("service", embed);
+        signinParameters.put("source", embed);
+        signinParameters.put("redirectAfterAccountLoginUrl", embed);
+        signinParameters.put("redirectAfterAccountCreationUrl", embed);
+        URI signinUri = uri(sso + "/signin", signinParameters);
+
+        SsoSession session = new SsoSession();
+        return session.get(embedUri)
+                .then(session.get(signinUri))
+                .map(page -> find(CSRF, page)
+                        .orElseThrow(() -> new GarminAuthenticationException("No CSRF token on SSO sign-in page")))
+                .flatMap(csrf -> {
+                    MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+                    form.add("username", email);
+                    form.add("password", password);
+                    form.add("embed", "true");
+                    form.add("_csrf", csrf);
+                    return session.post(signinUri, form);
+                })
+                .map(page -> {
+                    String title = find(TITLE, page).orElse("");
+                    if (title.contains("MFA")) {
+                        throw new GarminLoginRejectedException("Multi-factor authentication is not supported");
+                    }
+                    if (!title.equals("Success")) {
+                        throw new GarminLoginRejectedException("SSO sign-in failed: " + title);
+                    }
+                    return find(TICKET, page)
+                            .orElseThrow(() -> new GarminAuthenticationException("No ticket on SSO success page"));
+                });
+    }
+
+    /**
+     * Trade an SSO ticket for an OAuth1 token
+     */
+    private Mono<OAuth1Token> preauthorize(String ticket) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("ticket", ticket);
+        parameters.put("login-url", properties.getOauth().getSsoUrl() + "/sso/embed");
+        parameters.put("accepts-mfa-tokens", "true");
+        URI uri = uri(properties.getOauth().getConnectApiUrl() + "/oauth-service/oauth/preauthorized", parameters);
+
+        return signer().flatMap(signer -> webClient.get()
+                        .uri(uri)
+                        .header(HttpHeaders.AUTHORIZATION, signer.authorization(HttpMethod.GET, uri, Map.of(), null))
+                        .header(HttpHeaders.USER_AGENT, MOBILE_USER_AGENT)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .map(body -> {
+                    Map<String, String> response = OAuth1Signer.parseForm(body).stream()
+                            .collect(Collectors.toMap(pair -> pair[0], pair -> pair[1], (first, second) -> first));
+                    if (response.get("oauth_token") == null || response.get("oauth_token_secret") == null) {
+                        throw new GarminAuthenticationException("OAuth1 preauthorization returned no token");
+                    }
+                    return OAuth1Token.builder()
+                            .token(response.get("oauth_token"))
+                            .tokenSecret(response.get("oauth_token_secret"))
+                            .mfaToken(response.get("mfa_token"))
+                            .build();
+                });
+    }
+
+    /**
+     * Signer with the configured OAuth consumer, or with one fetched on first use from the consumer URL
+     * if one is configured
+     */
+    private Mono<OAuth1Signer> signer() {
+        OAuth1Signer current = signer;
+        if (current != null) {
+            return Mono.just(current);
+        }
+        GarminProperties.OAuth oauth = properties.getOauth();
+        if (oauth.getConsumerKey() != null && oauth.getConsumerSecret() != null) {
+            signer = new OAuth1Signer(oauth.getConsumerKey(), oauth.getConsumerSecret());
+            return Mono.just(signer);
+        }
+        if (oauth.getConsumerUrl() == null || oauth.getConsumerUrl().isBlank()) {
+            return Mono.error(new GarminAuthenticationException(
+                    "OAuth consumer key and secret must be configured, or a consumer URL to fetch them from"));
+        }
+        return webClient.get()
+                .uri(URI.create(oauth.getConsumerUrl()))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(json -> {
+                    OAuthConsumer consumer = objectMapper.readValue(json, OAuthConsumer.class);
+                    return new OAuth1Signer(consumer.consumerKey, consumer.consumerSecret);
+                })
+                .doOnNext(fetched -> signer = fetched);
+    }
+
+    private static URI uri(String base, Map<String, String> parameters) {
+        return URI.create(base + "?" + parameters.entrySet().stream()
+                .map(entry -> OAuth1Signer.encode(entry.getKey()) + "=" + OAuth1Signer.encode(entry.getValue()))
+                .collect(Collectors.joining("&")));
+    }
+
+    private static Optional<String> find(Pattern pattern, String page) {
+        Matcher matcher = pattern.matcher(page);
+        return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Cookies of one SSO sign-in, sent back with each following request
+     */
+    private final class SsoSession {
+
+        private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+        Mono<String> get(URI uri) {
+            return Mono.defer(() -> webClient.get()
+                    .uri(uri)
+                    .cookies(sent -> cookies.forEach(sent::add))
+                    .exchangeToMono(this::read));
+        }
+
+        Mono<String> post(URI uri, MultiValueMap<String, String> form) {
+            return Mono.defer(() -> webClient.post()
+                    .uri(uri)
+                    .cookies(sent -> cookies.forEach(sent::add))
+                    .header(HttpHeaders.REFERER, uri.toString())
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body(BodyInserters.fromFormData(form))
+                    .exchangeToMono(this::read));
+        }
+
+        private Mono<String> read(ClientResponse response) {
+            response.cookies().forEach((name, values) ->
+                    values.forEach(cookie -> cookies.put(name, cookie.getValue())));
+            if (response.statusCode().isError()) {
+                return response.createError();
+            }
+            return response.bodyToMono(String.class).defaultIfEmpty("");
+        }
+    }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class OAuthConsumer {
+        @JsonProperty("consumer_key")
+        private String consumerKey;
+        @JsonProperty("consumer_secret")
+        private String consumerSecret;
+    }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class ExchangedToken {
+        @JsonProperty("access_token")
+        private String accessToken;
+        @JsonProperty("refresh_token")
+        private String refreshToken;
+        @JsonProperty("token_type")
+        private String tokenType;
+        @JsonProperty("expires_in")
+        private Long expiresIn;
+        @JsonProperty("scope")
+        private String scope;
+    }
+}
@@ -0,0 +1,118 @@
+package org.opentrainer.garmin.auth;
+
+import org.springframework.http.HttpMethod;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * HMAC-SHA1 signer of OAuth 1.0a requests (RFC 5849), as used by Garmin's OAuth service
+ */
+public class OAuth1Signer {
+
+    private final String consumerKey;
+    private final String consumerSecret;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    public OAuth1Signer(String consumerKey, String consumerSecret) {
+        this(consumerKey, consumerSecret, Clock.systemUTC());
+    }
+
+    public OAuth1Signer(String consumerKey, String consumerSecret, Clock clock) {
+        this.consumerKey = consumerKey;
+        this.consumerSecret = consumerSecret;
+        this.clock = clock;
+    }
+
+    /**
+     * Authorization header of a request
+     *
+     * @param uri   Request URI; its query parameters are signed
+     * @param form  Form-encoded body parameters, signed as well
+     * @param token OAuth1 token, or null for requests signed by the consumer only
+     */
+    public String authorization(HttpMethod method, URI uri, Map<String, String> form, OAuth1Token token) {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+
+        List<String[]> oauth = new ArrayList<>();
+        oauth.add(new String[]{"oauth_consumer_key", consumerKey});
+        oauth.add(new String[]{"oauth_nonce", HexFormat.of().formatHex(nonce)});
+        oauth.add(new String[]{"oauth_signature_method", "HMAC-SHA1"});
+        oauth.add(new String[]{"oauth_timestamp", String.valueOf(clock.millis() / 1000)});
+        if (token != null) {
+            oauth.add(new String[]{"oauth_token", token.getToken()});
+        }
+        oauth.add(new String[]{"oauth_version", "1.0"});
+
+        List<String[]> signed = new ArrayList<>(oauth);
+        signed.addAll(parseForm(uri.getRawQuery()));
+        form.forEach((name, value) -> signed.add(new String[]{name, value}));
+        oauth.add(new String[]{"oauth_signature",
+                signature(method, uri, signed, token != null ? token.getTokenSecret() : null)});
+
+        return "OAuth " + oauth.stream()
+                .map(parameter -> encode(parameter[0]) + "=\"" + encode(parameter[1]) + "\"")
+                .collect(Collectors.joining(", "));
+    }
+
+    private String signature(HttpMethod method, URI uri, List<String[]> parameters, String tokenSecret) {
+        String normalized = parameters.stream()
+                .map(parameter -> encode(parameter[0]) + "=" + encode(parameter[1]))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        String baseUrl = uri.getScheme().toLowerCase() + "://" + uri.getRawAuthority().toLowerCase() + uri.getRawPath();
+        String base = method.name() + "&" + encode(baseUrl) + "&" + encode(normalized);
+        String key = encode(consumerSecret) + "&" + (tokenSecret != null ? encode(tokenSecret) : "");
+        try {
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(base.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA1 is not available", e);
+        }
+    }
+
+    /**
+     * Name-value pairs of a form-encoded string, e.g. a query or an OAuth token response
+     */
+    public static List<String[]> parseForm(String encoded) {
+        List<String[]> parameters = new ArrayList<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator == -1 ? pair : pair.substring(0, separator);
+            String value = separator == -1 ? "" : pair.substring(separator + 1);
+            parameters.add(new String[]{
+                    URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8)});
+        }
+        return parameters;
+    }
+
+    /**
+     * RFC 3986 percent-encoding
+     */
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+    }
+}
@@ -18,6 +18,7 @@ import java.time.Instant;
 public class OAuth1Token implements Serializable {
     private String token;
     private String tokenSecret;
+    private String mfaToken;
     private Instant expiresAt;
 
     public boolean isExpired() {
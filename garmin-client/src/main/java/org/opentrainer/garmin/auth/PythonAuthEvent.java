@@ -0,0 +1,32 @@
+package org.opentrainer.garmin.auth;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one run of the Python authentication helper
+ */
+@Name("org.opentrainer.garmin.PythonAuth")
+@Label("Garmin Python Authentication")
+@Category({"Open Trainer", "Garmin"})
+@StackTrace(false)
+class PythonAuthEvent extends Event {
+
+    @Label("Spawn Time")
+    @Timespan
+    long spawnTime;
+
+    @Label("Process Time")
+    @Timespan
+    long processTime;
+
+    @Label("Exit Code")
+    int exitCode = -1;
+
+    @Label("Success")
+    boolean success;
+}
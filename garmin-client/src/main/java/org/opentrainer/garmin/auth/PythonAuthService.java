@@ -1,40 +1,66 @@
 package org.opentrainer.garmin.auth;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opentrainer.garmin.config.GarminProperties;
 import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.time.Instant;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Service for authenticating with Garmin using a Python helper script.
+ * Runs the script once per call, or asks a {@link PythonWorkerPool} of running scripts when the pool is enabled.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class PythonAuthService {
 
     private final GarminProperties properties;
     private final TokenManager tokenManager;
     private final JsonMapper objectMapper;
+    private final PythonWorkerPool workerPool;
+
+    public PythonAuthService(GarminProperties properties, TokenManager tokenManager, JsonMapper objectMapper) {
+        this(properties, tokenManager, objectMapper, null);
+    }
+
+    public PythonAuthService(GarminProperties properties, TokenManager tokenManager, JsonMapper objectMapper,
+                             PythonWorkerPool workerPool) {
+        this.properties = properties;
+        this.tokenManager = tokenManager;
+        this.objectMapper = objectMapper;
+        this.workerPool = workerPool;
+    }
 
     /**
      * Authenticate using the Python helper script and store tokens.
      */
     public void authenticate() {
         GarminProperties.OAuth oauth = properties.getOauth();
-        String email = oauth.getEmail();
-        String password = oauth.getPassword();
+        authenticate(oauth.getEmail(), oauth.getPassword());
+    }
+
+    /**
+     * Authenticate with explicit credentials using the Python helper script and store tokens.
+     */
+    public void authenticate(String email, String password) {
+        GarminProperties.OAuth oauth = properties.getOauth();
 
         if (email == null || password == null) {
             throw new GarminAuthenticationException("Email and password must be configured for Python authentication.");
         }
+        if (workerPool != null && workerPool.isEnabled()) {
+            authenticateWithWorker(email, password);
+            return;
+        }
 
+        PythonAuthEvent event = new PythonAuthEvent();
+        event.begin();
         try {
             log.info("Starting Python authentication helper for user: {}", email);
             ProcessBuilder pb = new ProcessBuilder(
@@ -45,7 +71,10 @@ public class PythonAuthService {
                     password
             );
             pb.redirectErrorStream(true);
+            long spawnStarted = System.nanoTime();
             Process process = pb.start();
+            long spawned = System.nanoTime();
+            event.spawnTime = spawned - spawnStarted;
 
             String output;
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
@@ -53,6 +82,8 @@ public class PythonAuthService {
             }
 
             int exitCode = process.waitFor();
+            event.processTime = System.nanoTime() - spawned;
+            event.exitCode = exitCode;
             if (exitCode != 0) {
                 log.error("Python authentication failed with exit code {}. Output: {}", exitCode, output);
                 throw new GarminAuthenticationException("Python authentication failed. See logs for details.");
@@ -67,15 +98,58 @@ public class PythonAuthService {
 
             PythonTokens pythonTokens = objectMapper.readValue(jsonOutput, PythonTokens.class);
             mapAndStoreTokens(pythonTokens);
+            event.success = true;
             log.info("Successfully authenticated and stored tokens.");
 
         } catch (Exception e) {
             log.error("Error during Python authentication", e);
             throw new GarminAuthenticationException("Failed to execute Python authentication: " + e.getMessage());
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Authenticate through a pooled helper process and store tokens.
+     */
+    private void authenticateWithWorker(String email, String password) {
+        PythonAuthEvent event = new PythonAuthEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            log.info("Authenticating user {} through Python worker pool", email);
+            JsonNode response = workerPool.call("authenticate", Map.of("email", email, "password", password));
+            event.processTime = System.nanoTime() - started;
+            PythonTokens pythonTokens = objectMapper.treeToValue(response, PythonTokens.class);
+            if (!"success".equals(pythonTokens.status)) {
+                throw new GarminAuthenticationException("Python authentication failed: " + pythonTokens.error);
+            }
+            mapAndStoreTokens(pythonTokens);
+            event.exitCode = 0;
+            event.success = true;
+            log.info("Successfully authenticated and stored tokens.");
+        } finally {
+            event.commit();
         }
     }
 
     private void mapAndStoreTokens(PythonTokens tokens) {
+        // The helper prints flat token fields; nested ones are read as well
+        if (tokens.oauth1Token == null && tokens.flatOAuth1Token != null) {
+            tokens.oauth1Token = new PythonOAuth1Token();
+            tokens.oauth1Token.token = tokens.flatOAuth1Token;
+            tokens.oauth1Token.tokenSecret = tokens.flatOAuth1Secret;
+        }
+        if (tokens.oauth2Token == null && tokens.flatOAuth2AccessToken != null) {
+            tokens.oauth2Token = new PythonOAuth2Token();
+            tokens.oauth2Token.accessToken = tokens.flatOAuth2AccessToken;
+            tokens.oauth2Token.refreshToken = tokens.flatOAuth2RefreshToken;
+            tokens.oauth2Token.tokenType = "Bearer";
+            if (tokens.flatOAuth2ExpiresAt != null) {
+                tokens.oauth2Token.expiresIn = tokens.flatOAuth2ExpiresAt - Instant.now().getEpochSecond();
+            }
+        }
+
         if (tokens.oauth1Token != null) {
             OAuth1Token oauth1 = OAuth1Token.builder()
                     .token(tokens.oauth1Token.token)
@@ -103,10 +177,24 @@ public class PythonAuthService {
     @lombok.Data
     @lombok.NoArgsConstructor
     private static class PythonTokens {
+        @JsonProperty("status")
+        private String status;
+        @JsonProperty("error")
+        private String error;
         @JsonProperty("oauth1")
         private PythonOAuth1Token oauth1Token;
         @JsonProperty("oauth2")
         private PythonOAuth2Token oauth2Token;
+        @JsonProperty("oauth1_token")
+        private String flatOAuth1Token;
+        @JsonProperty("oauth1_secret")
+        private String flatOAuth1Secret;
+        @JsonProperty("oauth2_access_token")
+        private String flatOAuth2AccessToken;
+        @JsonProperty("oauth2_refresh_token")
+        private String flatOAuth2RefreshToken;
+        @JsonProperty("oauth2_expires_at")
+        private Long flatOAuth2ExpiresAt;
     }
 
     @lombok.Data
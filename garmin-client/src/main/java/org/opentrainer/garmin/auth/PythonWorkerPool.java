@@ -0,0 +1,285 @@
+package org.opentrainer.garmin.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of long-lived {@code java_auth_helper.py serve} processes.
+ * Each worker answers newline-delimited JSON requests on stdin with one JSON line on stdout, so interpreter
+ * startup and module imports are paid once per worker instead of once per call. A worker serves one call
+ * at a time; a worker that exits, times out or fails a periodic health check is restarted.
+ * Workers are started on first use.
+ */
+@Slf4j
+public class PythonWorkerPool implements AutoCloseable {
+
+    private final GarminProperties.OAuth oauth;
+    private final JsonMapper objectMapper;
+    private final AtomicLong requestIds = new AtomicLong();
+    private final List<Worker> workers = new ArrayList<>();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService healthChecks;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    public PythonWorkerPool(GarminProperties.OAuth oauth, JsonMapper objectMapper) {
+        this.oauth = oauth;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Whether authentication should be served by the pool
+     */
+    public boolean isEnabled() {
+        return oauth.getPythonPool().isEnabled() && !closed;
+    }
+
+    /**
+     * Start the workers and their health checks, unless already started
+     */
+    public synchronized void start() {
+        if (started || closed) {
+            return;
+        }
+        GarminProperties.OAuth.PythonPool config = oauth.getPythonPool();
+        try {
+            for (int i = 0; i < config.getSize(); i++) {
+                Worker worker = new Worker(i);
+                workers.add(worker);
+                worker.spawn();
+            }
+        } catch (GarminAuthenticationException e) {
+            workers.forEach(Worker::destroy);
+            workers.clear();
+            throw e;
+        }
+        idle.addAll(workers);
+        long interval = config.getHealthCheckInterval().toMillis();
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "garmin-python-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        started = true;
+        log.info("Started {} Python authentication workers", config.getSize());
+    }
+
+    /**
+     * Send a request to a free worker and wait for its response.
+     * Waiting for the worker and for its response share one request timeout.
+     *
+     * @param command "authenticate", "load", "refresh" or "ping"
+     * @param arguments Further request fields, e.g. email and password
+     * @return Response line of the worker
+     */
+    public JsonNode call(String command, Map<String, Object> arguments) {
+        start();
+        Duration timeout = oauth.getPythonPool().getRequestTimeout();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Worker worker;
+        try {
+            worker = idle.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GarminAuthenticationException("Interrupted while waiting for a Python worker", e);
+        }
+        if (worker == null) {
+            throw new GarminAuthenticationException("No Python worker available within " + timeout);
+        }
+        Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+        if (remaining.isNegative() || remaining.isZero()) {
+            idle.offer(worker);
+            throw new GarminAuthenticationException("No Python worker available within " + timeout);
+        }
+        try {
+            return worker.call(command, arguments, remaining);
+        } finally {
+            idle.offer(worker);
+        }
+    }
+
+    /**
+     * Ping each idle worker, restarting those that died or do not answer.
+     * Workers are checked one at a time and returned right after their ping, so callers keep the rest.
+     */
+    void checkHealth() {
+        Set<Worker> checked = new HashSet<>();
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            if (!checked.add(worker)) {
+                // Back at a worker checked this round, so every idle worker has been pinged
+                idle.offer(worker);
+                return;
+            }
+            try {
+                worker.call("ping", Map.of(), oauth.getPythonPool().getHealthCheckTimeout());
+            } catch (RuntimeException e) {
+                log.warn("Python worker {} failed its health check: {}", worker.index, e.getMessage());
+            } finally {
+                idle.offer(worker);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        workers.forEach(Worker::destroy);
+    }
+
+    /**
+     * One helper process and the response awaited from it
+     */
+    private final class Worker {
+
+        private final int index;
+        private volatile Process process;
+        private BufferedWriter input;
+        private volatile long awaitedId;
+        private volatile CompletableFuture<JsonNode> awaited;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        JsonNode call(String command, Map<String, Object> arguments, Duration timeout) {
+            if (process == null || !process.isAlive()) {
+                log.warn("Python worker {} is not running, restarting it", index);
+                restart();
+            }
+            long id = requestIds.incrementAndGet();
+            ObjectNode request = objectMapper.createObjectNode();
+            request.put("id", id);
+            request.put("command", command);
+            arguments.forEach((name, value) -> request.putPOJO(name, value));
+
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            awaitedId = id;
+            awaited = response;
+            try {
+                input.write(objectMapper.writeValueAsString(request));
+                input.newLine();
+                input.flush();
+                return response.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (IOException | ExecutionException e) {
+                restart();
+                throw new GarminAuthenticationException("Python worker " + index + " failed: " + e.getMessage(), e);
+            } catch (TimeoutException e) {
+                restart();
+                throw new GarminAuthenticationException("Python worker " + index + " timed out after " + timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                restart();
+                throw new GarminAuthenticationException("Interrupted while waiting for Python worker " + index, e);
+            } finally {
+                awaited = null;
+            }
+        }
+
+        void spawn() {
+            ProcessBuilder builder = new ProcessBuilder(oauth.getPythonPath(), oauth.getAuthHelperPath(), "serve");
+            try {
+                process = builder.start();
+            } catch (IOException e) {
+                throw new GarminAuthenticationException("Failed to start Python worker " + index, e);
+            }
+            input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Process spawned = process;
+            daemon("garmin-python-" + index, () -> readResponses(spawned));
+            daemon("garmin-python-" + index + "-stderr", () -> readErrors(spawned));
+        }
+
+        void restart() {
+            destroy();
+            if (!closed) {
+                spawn();
+            }
+        }
+
+        void destroy() {
+            if (process != null) {
+                process.destroyForcibly();
+            }
+        }
+
+        private void readResponses(Process spawned) {
+            try (BufferedReader output = new BufferedReader(
+                    new InputStreamReader(spawned.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    // Libraries may print to stdout, so only JSON lines answering the awaited request count
+                    if (!line.startsWith("{")) {
+                        log.debug("Python worker {}: {}", index, line);
+                        continue;
+                    }
+                    JsonNode response;
+                    try {
+                        response = objectMapper.readTree(line);
+                    } catch (JacksonException e) {
+                        log.debug("Python worker {}: {}", index, line);
+                        continue;
+                    }
+                    CompletableFuture<JsonNode> current = awaited;
+                    if (current != null && response.path("id").asLong(-1) == awaitedId) {
+                        current.complete(response);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Python worker {} output closed: {}", index, e.getMessage());
+            }
+            CompletableFuture<JsonNode> current = awaited;
+            if (current != null && process == spawned) {
+                current.completeExceptionally(new IOException("Python worker exited"));
+            }
+        }
+
+        private void readErrors(Process spawned) {
+            try (BufferedReader errors = new BufferedReader(
+                    new InputStreamReader(spawned.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = errors.readLine()) != null) {
+                    log.debug("Python worker {} stderr: {}", index, line);
+                }
+            } catch (IOException e) {
+                log.debug("Python worker {} stderr closed: {}", index, e.getMessage());
+            }
+        }
+
+        private void daemon(String name, Runnable task) {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
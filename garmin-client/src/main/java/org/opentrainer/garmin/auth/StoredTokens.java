@@ -0,0 +1,19 @@
+package org.opentrainer.garmin.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tokens as kept by a {@link TokenStore}, with the version they were stored under
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredTokens {
+    private OAuth1Token oauth1Token;
+    private OAuth2Token oauth2Token;
+    private long version;
+}
@@ -0,0 +1,76 @@
+package org.opentrainer.garmin.auth;
+
+import org.opentrainer.garmin.exception.GarminClientException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * AES-GCM encryption of stored tokens.
+ * The owner of the tokens is bound as associated data, so tokens copied to another owner's row fail to decrypt.
+ */
+public class TokenCipher {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param base64Key Base64 encoded AES key of 16, 24 or 32 bytes
+     */
+    public TokenCipher(String base64Key) {
+        if (base64Key == null || base64Key.isBlank()) {
+            throw new IllegalArgumentException("Token encryption key is not configured");
+        }
+        byte[] bytes = Base64.getDecoder().decode(base64Key.trim());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalArgumentException("Token encryption key must be 16, 24 or 32 bytes, was " + bytes.length);
+        }
+        this.key = new SecretKeySpec(bytes, "AES");
+    }
+
+    /**
+     * Encrypt, returning the random IV followed by the ciphertext
+     */
+    public byte[] encrypt(byte[] plaintext, String owner) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(owner.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new GarminClientException("Failed to encrypt tokens: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decrypt what {@link #encrypt} returned for the same owner
+     */
+    public byte[] decrypt(byte[] encrypted, String owner) {
+        if (encrypted.length <= IV_LENGTH) {
+            throw new GarminClientException("Encrypted tokens are truncated");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key,
+                    new GCMParameterSpec(TAG_BITS, Arrays.copyOfRange(encrypted, 0, IV_LENGTH)));
+            cipher.updateAAD(owner.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new GarminClientException("Failed to decrypt tokens: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.opentrainer.garmin.auth;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of reading the persisted tokens
+ */
+@Name("org.opentrainer.garmin.TokenLoad")
+@Label("Garmin Token Load")
+@Category({"Open Trainer", "Garmin"})
+@StackTrace(false)
+class TokenLoadEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("Success")
+    boolean success;
+}
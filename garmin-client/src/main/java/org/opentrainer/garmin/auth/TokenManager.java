@@ -2,179 +2,199 @@ package org.opentrainer.garmin.auth;
 
 import lombok.extern.slf4j.Slf4j;
 import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+import reactor.core.scheduler.Schedulers;
 import tools.jackson.databind.json.JsonMapper;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Optional;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Thread-safe token manager for storing and retrieving OAuth tokens.
+ * Tokens are held as one immutable snapshot, so reads take no lock. Stores are persisted write-behind to a
+ * {@link TokenStore}: changes made while a write is pending are coalesced into it. When another client sharing
+ * the store has written valid tokens in the meantime, those are adopted instead of overwriting them.
  */
 @Slf4j
 public class TokenManager {
 
     private final GarminProperties.OAuth oauthConfig;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final JsonMapper mapp;
-    private volatile OAuth1Token oauth1Token;
-    private volatile OAuth2Token oauth2Token;
+    private final TokenStore store;
+    private final AtomicReference<Tokens> tokens = new AtomicReference<>(Tokens.EMPTY);
+    private final AtomicBoolean persistPending = new AtomicBoolean();
+    private final AtomicBoolean persistFailed = new AtomicBoolean();
+    private final Object persistLock = new Object();
+    private volatile long storedVersion;
 
     public TokenManager(GarminProperties.OAuth oauthConfig, JsonMapper mapp) {
+        this(oauthConfig, mapp, Paths.get(oauthConfig.getTokenStoragePath(), "garmin-tokens.json"));
+    }
+
+    /**
+     * Token manager persisting to a specific file, e.g. one per tenant
+     */
+    public TokenManager(GarminProperties.OAuth oauthConfig, JsonMapper mapp, Path tokenPath) {
+        this(oauthConfig, new FileTokenStore(tokenPath, mapp, oauthConfig.isFsyncTokenStorage()));
+    }
+
+    /**
+     * Token manager persisting to any store, e.g. a database shared by several nodes
+     */
+    public TokenManager(GarminProperties.OAuth oauthConfig, TokenStore store) {
         this.oauthConfig = oauthConfig;
-        this.mapp = mapp;
-        loadTokensFromDisk();
+        this.store = store;
+        reload();
     }
 
     /**
      * Get OAuth1 token
      */
     public Optional<OAuth1Token> getOAuth1Token() {
-        lock.readLock().lock();
-        try {
-            if (oauth1Token != null && !oauth1Token.isExpired()) {
-                return Optional.of(oauth1Token);
-            }
-            return Optional.empty();
-        } finally {
-            lock.readLock().unlock();
+        OAuth1Token token = tokens.get().oauth1Token;
+        if (token != null && !token.isExpired()) {
+            return Optional.of(token);
         }
+        return Optional.empty();
     }
 
     /**
      * Get OAuth2 token
      */
     public Optional<OAuth2Token> getOAuth2Token() {
-        lock.readLock().lock();
-        try {
-            if (oauth2Token != null && !oauth2Token.isExpired()) {
-                return Optional.of(oauth2Token);
-            }
-            return Optional.empty();
-        } finally {
-            lock.readLock().unlock();
+        OAuth2Token token = tokens.get().oauth2Token;
+        if (token != null && !token.isExpired()) {
+            return Optional.of(token);
         }
+        return Optional.empty();
     }
 
     /**
      * Store OAuth1 token
      */
     public void storeOAuth1Token(OAuth1Token token) {
-        lock.writeLock().lock();
-        try {
-            this.oauth1Token = token;
-            saveTokensToDisk();
-        } finally {
-            lock.writeLock().unlock();
-        }
+        update(current -> new Tokens(token, current.oauth2Token));
     }
 
     /**
      * Store OAuth2 token
      */
     public void storeOAuth2Token(OAuth2Token token) {
-        lock.writeLock().lock();
-        try {
-            this.oauth2Token = token;
-            saveTokensToDisk();
-        } finally {
-            lock.writeLock().unlock();
-        }
+        update(current -> new Tokens(current.oauth1Token, token));
     }
 
     /**
      * Check if OAuth2 token needs refresh
      */
     public boolean needsRefresh() {
-        lock.readLock().lock();
-        try {
-            if (oauth2Token == null) {
-                return false;
-            }
-            long thresholdSeconds = oauthConfig.getRefreshThreshold().getSeconds();
-            return oauth2Token.isExpiringSoon(thresholdSeconds);
-        } finally {
-            lock.readLock().unlock();
+        OAuth2Token token = tokens.get().oauth2Token;
+        if (token == null) {
+            return false;
         }
+        long thresholdSeconds = oauthConfig.getRefreshThreshold().getSeconds();
+        return token.isExpiringSoon(thresholdSeconds);
     }
 
     /**
      * Clear all tokens
      */
     public void clearTokens() {
-        lock.writeLock().lock();
-        try {
-            this.oauth1Token = null;
-            this.oauth2Token = null;
-            deleteTokensFromDisk();
-        } finally {
-            lock.writeLock().unlock();
-        }
+        update(current -> Tokens.EMPTY);
     }
 
     /**
-     * Load tokens from disk
+     * Write pending changes to the store now, e.g. before shutdown
      */
-    private void loadTokensFromDisk() {
-        Path tokenPath = getTokenPath();
-        if (Files.exists(tokenPath)) {
-            TokenStore store = mapp.readValue(tokenPath.toFile(), TokenStore.class);
-            this.oauth1Token = store.getOauth1Token();
-            this.oauth2Token = store.getOauth2Token();
-            log.info("Loaded tokens from {}", tokenPath);
-        }
+    public void flush() {
+        persist();
     }
 
     /**
-     * Save tokens to disk
+     * Replace the tokens with the stored ones if another client has changed them, unless a write is pending
+     *
+     * @return Whether the tokens changed
      */
-    private void saveTokensToDisk() {
-        try {
-            Path tokenPath = getTokenPath();
-            Files.createDirectories(tokenPath.getParent());
-            
-            TokenStore store = TokenStore.builder()
-                    .oauth1Token(oauth1Token)
-                    .oauth2Token(oauth2Token)
-                    .build();
-            
-            mapp.writeValue(tokenPath.toFile(), store);
-            log.debug("Saved tokens to {}", tokenPath);
-        } catch (IOException e) {
-            log.error("Failed to save tokens to disk: {}", e.getMessage());
+    public boolean reload() {
+        synchronized (persistLock) {
+            if (persistPending.get()) {
+                return false;
+            }
+            Optional<StoredTokens> stored = store.loadFresh();
+            long version = stored.map(StoredTokens::getVersion).orElse(0L);
+            if (stored.isEmpty() || version == storedVersion && tokens.get() != Tokens.EMPTY) {
+                return false;
+            }
+            tokens.set(new Tokens(stored.get().getOauth1Token(), stored.get().getOauth2Token()));
+            storedVersion = version;
+            return true;
+        }
+    }
+
+    private void update(UnaryOperator<Tokens> change) {
+        tokens.updateAndGet(change);
+        // A failed write stays pending, so the next change schedules it again
+        if (persistPending.compareAndSet(false, true) || persistFailed.compareAndSet(true, false)) {
+            Schedulers.boundedElastic().schedule(this::persist);
         }
     }
 
     /**
-     * Delete tokens from disk
+     * Write the current snapshot, or delete the stored tokens when there are none
      */
-    private void deleteTokensFromDisk() {
-        try {
-            Path tokenPath = getTokenPath();
-            Files.deleteIfExists(tokenPath);
-            log.info("Deleted tokens from {}", tokenPath);
-        } catch (IOException e) {
-            log.error("Failed to delete tokens from disk: {}", e.getMessage());
+    private void persist() {
+        synchronized (persistLock) {
+            if (!persistPending.getAndSet(false)) {
+                return;
+            }
+            Tokens current = tokens.get();
+            try {
+                if (current == Tokens.EMPTY) {
+                    store.delete();
+                    storedVersion = 0;
+                } else {
+                    save(current);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to persist tokens, retrying with the next change: {}", e.getMessage());
+                persistFailed.set(true);
+                persistPending.set(true);
+            }
         }
     }
 
-    private Path getTokenPath() {
-        return Paths.get(oauthConfig.getTokenStoragePath(), "garmin-tokens.json");
+    private void save(Tokens current) {
+        try {
+            storedVersion = store.save(current.oauth1Token, current.oauth2Token, storedVersion);
+        } catch (GarminTokenConflictException e) {
+            StoredTokens stored = store.load().orElse(null);
+            long version = stored != null ? stored.getVersion() : 0;
+            if (stored != null && stored.getOauth2Token() != null && !stored.getOauth2Token().isExpired()) {
+                // Another client refreshed at the same time; its tokens are as good as ours
+                log.info("Adopting tokens stored concurrently at version {}", version);
+                storedVersion = version;
+                tokens.compareAndSet(current, new Tokens(stored.getOauth1Token(), stored.getOauth2Token()));
+            } else {
+                storedVersion = store.save(current.oauth1Token, current.oauth2Token, version);
+            }
+        }
     }
 
     /**
-     * Internal storage class for serialization
+     * Immutable pair of the current tokens
      */
-    @lombok.Data
-    @lombok.Builder
-    @lombok.NoArgsConstructor
-    @lombok.AllArgsConstructor
-    private static class TokenStore {
-        private OAuth1Token oauth1Token;
-        private OAuth2Token oauth2Token;
+    private static final class Tokens {
+
+        private static final Tokens EMPTY = new Tokens(null, null);
+
+        private final OAuth1Token oauth1Token;
+        private final OAuth2Token oauth2Token;
+
+        Tokens(OAuth1Token oauth1Token, OAuth2Token oauth2Token) {
+            this.oauth1Token = oauth1Token;
+            this.oauth2Token = oauth2Token;
+        }
     }
 }
@@ -0,0 +1,26 @@
+package org.opentrainer.garmin.auth;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of writing or deleting the persisted tokens
+ */
+@Name("org.opentrainer.garmin.TokenPersist")
+@Label("Garmin Token Persist")
+@Category({"Open Trainer", "Garmin"})
+@StackTrace(false)
+class TokenPersistEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Success")
+    boolean success;
+}
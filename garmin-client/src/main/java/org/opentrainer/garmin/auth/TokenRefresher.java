@@ -0,0 +1,237 @@
+package org.opentrainer.garmin.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Renews the OAuth2 token in-process by exchanging the stored OAuth1 token for a new one.
+ * Concurrent refreshes share one exchange call, and a token another client has already written to a shared
+ * token store is used without exchanging again. Once a token is seen, a renewal is scheduled ahead of
+ * its expiry by the refresh threshold plus a random jitter, so requests rarely find an expired token
+ * and many clients do not renew at the same moment. After a failed refresh, further attempts wait for an
+ * exponential, jittered backoff, so a failing exchange endpoint is not called again by every request.
+ */
+@Slf4j
+public class TokenRefresher implements AutoCloseable {
+
+    private final TokenManager tokenManager;
+    private final GarminProperties.OAuth config;
+    private final Function<OAuth1Token, Mono<OAuth2Token>> exchange;
+    private final Clock clock;
+    private final AtomicReference<Mono<OAuth2Token>> inFlight = new AtomicReference<>();
+    private final AtomicReference<Scheduled> scheduled = new AtomicReference<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile Instant backoffUntil = Instant.MIN;
+    private volatile boolean closed;
+
+    /**
+     * @param exchange Exchange of an OAuth1 token for an OAuth2 token, e.g. {@link NativeAuthService#exchange}
+     */
+    public TokenRefresher(TokenManager tokenManager, GarminProperties.OAuth config,
+                          Function<OAuth1Token, Mono<OAuth2Token>> exchange) {
+        this(tokenManager, config, exchange, Clock.systemUTC());
+    }
+
+    public TokenRefresher(TokenManager tokenManager, GarminProperties.OAuth config,
+                          Function<OAuth1Token, Mono<OAuth2Token>> exchange, Clock clock) {
+        this.tokenManager = tokenManager;
+        this.config = config;
+        this.exchange = exchange;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether a refresh is possible, i.e. an OAuth1 token is stored
+     */
+    public boolean canRefresh() {
+        return tokenManager.getOAuth1Token().isPresent();
+    }
+
+    /**
+     * Obtain and store a new OAuth2 token, joining a refresh already in flight.
+     * The refresh runs to completion even when every subscriber cancels. Fails fast while backing off
+     * from a failed refresh.
+     */
+    public Mono<OAuth2Token> refresh() {
+        return Mono.defer(() -> {
+            if (isBackingOff()) {
+                return Mono.error(new GarminAuthenticationException(
+                        "Token refresh failed recently, next attempt after " + backoffUntil));
+            }
+            while (true) {
+                Mono<OAuth2Token> current = inFlight.get();
+                if (current != null) {
+                    return current;
+                }
+                AtomicReference<Mono<OAuth2Token>> self = new AtomicReference<>();
+                Mono<OAuth2Token> shared = Mono.defer(this::exchange)
+                        .doOnNext(token -> {
+                            failures.set(0);
+                            backoffUntil = Instant.MIN;
+                        })
+                        .doOnError(error -> backOff())
+                        // Before the result reaches subscribers, so a refresh right after it starts anew
+                        .doOnTerminate(() -> inFlight.compareAndSet(self.get(), null))
+                        .cache();
+                self.set(shared);
+                if (inFlight.compareAndSet(null, shared)) {
+                    return shared;
+                }
+            }
+        });
+    }
+
+    /**
+     * Start a refresh without waiting for it, e.g. while the current token is still valid
+     */
+    public void refreshInBackground() {
+        if (isBackingOff()) {
+            return;
+        }
+        refresh().subscribe(
+                token -> { },
+                error -> log.warn("Background token refresh failed: {}", error.getMessage()));
+    }
+
+    /**
+     * Schedule the renewal of a token ahead of its expiry, unless it is already scheduled
+     */
+    public void schedule(OAuth2Token token) {
+        if (closed || !config.isAutoRefresh() || token.getExpiresAt() == null) {
+            return;
+        }
+        Scheduled current = scheduled.get();
+        if (current != null && current.expiresAt.equals(token.getExpiresAt())) {
+            return;
+        }
+
+        long jitterMillis = config.getRefreshJitter().toMillis();
+        Duration lead = config.getRefreshThreshold()
+                .plusMillis(jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        Instant at = token.getExpiresAt().minus(lead);
+        if (at.isBefore(backoffUntil)) {
+            at = backoffUntil;
+        }
+        Duration delay = Duration.between(clock.instant(), at);
+        if (delay.isNegative()) {
+            delay = Duration.ZERO;
+        }
+
+        Scheduled next = new Scheduled(token.getExpiresAt());
+        if (!scheduled.compareAndSet(current, next)) {
+            return;
+        }
+        if (current != null && current.renewal != null) {
+            current.renewal.dispose();
+        }
+        log.debug("Scheduling token refresh in {}", delay);
+        next.renewal = Mono.delay(delay)
+                .flatMap(tick -> isCurrent(next.expiresAt) ? refresh() : Mono.empty())
+                .subscribe(
+                        refreshed -> { },
+                        error -> {
+                            log.warn("Scheduled token refresh failed: {}", error.getMessage());
+                            // Let the next request schedule again, once the backoff has passed
+                            scheduled.compareAndSet(next, null);
+                        });
+        if (closed) {
+            next.renewal.dispose();
+        }
+    }
+
+    /**
+     * Stop scheduled renewals
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Scheduled current = scheduled.getAndSet(null);
+        if (current != null && current.renewal != null) {
+            current.renewal.dispose();
+        }
+    }
+
+    private boolean isBackingOff() {
+        return clock.instant().isBefore(backoffUntil);
+    }
+
+    /**
+     * Delay the next attempt by the backoff of the consecutive failures, with jitter between half and all of it
+     */
+    private void backOff() {
+        int failed = failures.incrementAndGet();
+        long initial = config.getRefreshBackoff().toMillis();
+        long max = config.getRefreshMaxBackoff().toMillis();
+        long backoff = Math.min(max, initial << Math.min(failed - 1, 20));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        backoffUntil = clock.instant().plusMillis(jittered);
+        log.debug("Backing off token refresh for {} ms after {} failures", jittered, failed);
+    }
+
+    private Mono<OAuth2Token> exchange() {
+        // The store may block, e.g. on a database
+        return Mono.fromCallable(tokenManager::reload)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(changed -> {
+                    OAuth2Token stored = tokenManager.getOAuth2Token().orElse(null);
+                    if (changed && stored != null && !tokenManager.needsRefresh()) {
+                        // Another client sharing the token store has refreshed already
+                        log.info("Using OAuth2 token refreshed elsewhere, valid until {}", stored.getExpiresAt());
+                        schedule(stored);
+                        return Mono.just(stored);
+                    }
+                    return exchangeOAuth1Token();
+                });
+    }
+
+    private Mono<OAuth2Token> exchangeOAuth1Token() {
+        OAuth1Token oauth1 = tokenManager.getOAuth1Token().orElse(null);
+        if (oauth1 == null) {
+            return Mono.error(new GarminAuthenticationException(
+                    "No OAuth1 token to refresh the OAuth2 token with. Please authenticate first."));
+        }
+        log.info("Refreshing OAuth2 token");
+        return exchange.apply(oauth1)
+                .switchIfEmpty(Mono.error(() -> new GarminAuthenticationException("Token refresh returned no token")))
+                .doOnNext(token -> {
+                    tokenManager.storeOAuth2Token(token);
+                    schedule(token);
+                    log.info("Refreshed OAuth2 token, valid until {}", token.getExpiresAt());
+                });
+    }
+
+    /**
+     * Whether the stored token is still the one a renewal was scheduled for
+     */
+    private boolean isCurrent(Instant expiresAt) {
+        return tokenManager.getOAuth2Token()
+                .map(token -> expiresAt.equals(token.getExpiresAt()))
+                // An expired token is not returned, but still needs renewal
+                .orElse(true);
+    }
+
+    /**
+     * Renewal timer of one token
+     */
+    private static final class Scheduled {
+
+        private final Instant expiresAt;
+        private volatile Disposable renewal;
+
+        Scheduled(Instant expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
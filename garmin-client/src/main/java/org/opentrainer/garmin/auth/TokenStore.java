@@ -0,0 +1,39 @@
+package org.opentrainer.garmin.auth;
+
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+
+import java.util.Optional;
+
+/**
+ * Storage of one client's tokens behind {@link TokenManager}.
+ * Writes are versioned: each save names the version it replaces, so that when two clients sharing a store
+ * refresh at once, the second write is rejected and that client adopts the stored tokens instead.
+ */
+public interface TokenStore {
+
+    /**
+     * Stored tokens, or empty when none are stored
+     */
+    Optional<StoredTokens> load();
+
+    /**
+     * Stored tokens read past any cache, for checks that must see what other clients wrote
+     */
+    default Optional<StoredTokens> loadFresh() {
+        return load();
+    }
+
+    /**
+     * Store tokens, replacing the given version
+     *
+     * @param expectedVersion Version of the tokens last loaded or saved, 0 when none were
+     * @return Version of the stored tokens
+     * @throws GarminTokenConflictException if the stored version is no longer the expected one
+     */
+    long save(OAuth1Token oauth1Token, OAuth2Token oauth2Token, long expectedVersion);
+
+    /**
+     * Remove the stored tokens
+     */
+    void delete();
+}
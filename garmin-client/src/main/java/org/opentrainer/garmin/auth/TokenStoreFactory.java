@@ -0,0 +1,50 @@
+package org.opentrainer.garmin.auth;
+
+import org.opentrainer.garmin.config.GarminProperties;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Creates the token store of the default client or of a tenant
+ */
+@FunctionalInterface
+public interface TokenStoreFactory {
+
+    /**
+     * @param tenantId Tenant identifier, or null for the default client
+     */
+    TokenStore create(String tenantId);
+
+    /**
+     * JSON files under the token storage path, one per tenant
+     */
+    static TokenStoreFactory files(GarminProperties.OAuth oauth, JsonMapper jsonMapper) {
+        return tenantId -> {
+            Path base = Paths.get(oauth.getTokenStoragePath());
+            Path path = tenantId == null
+                    ? base.resolve("garmin-tokens.json")
+                    : base.resolve("tenants").resolve(tenantId).resolve("garmin-tokens.json");
+            return new FileTokenStore(path, jsonMapper, oauth.isFsyncTokenStorage());
+        };
+    }
+
+    /**
+     * Rows of the {@code garmin_tokens} table, encrypted with the configured key
+     */
+    static TokenStoreFactory jdbc(GarminProperties.OAuth oauth, DataSource dataSource, JsonMapper jsonMapper) {
+        GarminProperties.OAuth.TokenStorage storage = oauth.getTokenStorage();
+        TokenCipher cipher = new TokenCipher(storage.getEncryptionKey());
+        return tenantId -> new JdbcTokenStore(dataSource, tenantId == null ? "default" : "tenants/" + tenantId,
+                cipher, jsonMapper, storage.getCacheTtl());
+    }
+
+    /**
+     * Stores kept in memory only, lost on restart
+     */
+    static TokenStoreFactory memory() {
+        return tenantId -> new InMemoryTokenStore();
+    }
+}
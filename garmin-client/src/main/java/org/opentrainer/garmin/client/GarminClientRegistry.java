@@ -0,0 +1,380 @@
+package org.opentrainer.garmin.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.auth.NativeAuthService;
+import org.opentrainer.garmin.auth.PythonAuthService;
+import org.opentrainer.garmin.auth.PythonWorkerPool;
+import org.opentrainer.garmin.auth.TokenManager;
+import org.opentrainer.garmin.auth.TokenStoreFactory;
+import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.client.http.RetryBudget;
+import org.opentrainer.garmin.client.services.*;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.web.reactive.function.client.WebClient;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of per-user Garmin clients for serving many accounts from one JVM.
+ * Each tenant gets its own token store, rate limiter, circuit breaker, retry and response caches,
+ * while the connection pool, codecs, Jackson mapper and retry budget are shared. Tenants are evicted when idle
+ * for longer than the configured timeout, checked on each access and by a periodic background sweep, or,
+ * least recently used first, when the registry is full; an evicted tenant is recreated from its persisted tokens
+ * on next use.
+ * Token stores are loaded and evicted tenants closed outside the registry lock, since both may block on I/O.
+ */
+@Slf4j
+public class GarminClientRegistry implements AutoCloseable {
+
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+    private final GarminProperties properties;
+    private final WebClient webClient;
+    private final JsonMapper jsonMapper;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final RateLimiterConfig rateLimiterConfig;
+    private final RetryConfig retryConfig;
+    private final RetryBudget retryBudget;
+    private final PythonWorkerPool pythonWorkerPool;
+    private final TokenStoreFactory tokenStoreFactory;
+    private final Clock clock;
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    /** Evicted tenants whose pending token writes may not have finished yet */
+    private final Map<String, Tenant> closing = new HashMap<>();
+    private final ScheduledExecutorService idleSweep;
+
+    public GarminClientRegistry(
+            GarminProperties properties,
+            WebClient webClient,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            CircuitBreakerConfig circuitBreakerConfig,
+            RateLimiterConfig rateLimiterConfig,
+            RetryConfig retryConfig,
+            RetryBudget retryBudget) {
+        this(properties, webClient, jsonMapper, meterRegistry,
+                circuitBreakerConfig, rateLimiterConfig, retryConfig, retryBudget, Clock.systemUTC());
+    }
+
+    public GarminClientRegistry(
+            GarminProperties properties,
+            WebClient webClient,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            CircuitBreakerConfig circuitBreakerConfig,
+            RateLimiterConfig rateLimiterConfig,
+            RetryConfig retryConfig,
+            RetryBudget retryBudget,
+            Clock clock) {
+        this(properties, webClient, jsonMapper, meterRegistry,
+                circuitBreakerConfig, rateLimiterConfig, retryConfig, retryBudget, null,
+                TokenStoreFactory.files(properties.getOauth(), jsonMapper), clock);
+    }
+
+    /**
+     * @param pythonWorkerPool  Python helper processes shared by the tenants' fallback logins, or null
+     * @param tokenStoreFactory Storage of the tenants' tokens
+     */
+    public GarminClientRegistry(
+            GarminProperties properties,
+            WebClient webClient,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            CircuitBreakerConfig circuitBreakerConfig,
+            RateLimiterConfig rateLimiterConfig,
+            RetryConfig retryConfig,
+            RetryBudget retryBudget,
+            PythonWorkerPool pythonWorkerPool,
+            TokenStoreFactory tokenStoreFactory,
+            Clock clock) {
+        this.properties = properties;
+        this.webClient = webClient;
+        this.jsonMapper = jsonMapper;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        this.rateLimiterConfig = rateLimiterConfig;
+        this.retryConfig = retryConfig;
+        this.retryBudget = retryBudget;
+        this.pythonWorkerPool = pythonWorkerPool;
+        this.tokenStoreFactory = tokenStoreFactory;
+        this.clock = clock;
+        this.idleSweep = startIdleSweep(properties.getTenants().getIdleSweepInterval());
+    }
+
+    /**
+     * Get the client for a tenant, creating it on first use
+     *
+     * @param tenantId Identifier of the user; letters, digits, '.', '_' and '-' only
+     */
+    public GarminConnectClient client(String tenantId) {
+        return tenant(tenantId).client();
+    }
+
+    /**
+     * Get the low-level HTTP client for a tenant, creating it on first use
+     */
+    public GarminWebClient webClient(String tenantId) {
+        return tenant(tenantId).webClient();
+    }
+
+    /**
+     * Get a tenant's token manager, e.g. to store tokens obtained elsewhere
+     */
+    public TokenManager tokenManager(String tenantId) {
+        return tenant(tenantId).tokenManager();
+    }
+
+    /**
+     * Remove a tenant's client. Persisted tokens are kept.
+     */
+    public void evict(String tenantId) {
+        Map<String, Tenant> evicted = new LinkedHashMap<>();
+        synchronized (tenants) {
+            Tenant tenant = tenants.remove(tenantId);
+            if (tenant != null) {
+                retire(tenantId, tenant, evicted);
+                log.debug("Evicted Garmin client for tenant {}", tenantId);
+            }
+        }
+        close(evicted);
+    }
+
+    /**
+     * Remove tenants idle for longer than the configured timeout
+     */
+    public void evictIdle() {
+        Map<String, Tenant> evicted = new LinkedHashMap<>();
+        synchronized (tenants) {
+            evictIdle(clock.instant(), evicted);
+        }
+        close(evicted);
+    }
+
+    /**
+     * Remove all tenants, writing their pending token changes
+     */
+    @Override
+    public void close() {
+        if (idleSweep != null) {
+            idleSweep.shutdownNow();
+        }
+        Map<String, Tenant> evicted = new LinkedHashMap<>();
+        synchronized (tenants) {
+            tenants.forEach((tenantId, tenant) -> retire(tenantId, tenant, evicted));
+            tenants.clear();
+        }
+        close(evicted);
+    }
+
+    /**
+     * Number of tenant clients currently held
+     */
+    public int size() {
+        synchronized (tenants) {
+            return tenants.size();
+        }
+    }
+
+    private Tenant tenant(String tenantId) {
+        if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+
+        Instant now = clock.instant();
+        Map<String, Tenant> evicted = new LinkedHashMap<>();
+        Tenant tenant;
+        Tenant previous;
+        synchronized (tenants) {
+            evictIdle(now, evicted);
+            tenant = tenants.get(tenantId);
+            if (tenant != null) {
+                tenant.touch(now);
+            }
+            previous = closing.get(tenantId);
+        }
+        close(evicted);
+        if (tenant != null) {
+            return tenant;
+        }
+
+        if (previous != null) {
+            // Let the evicted client's last token write land before loading the store again
+            previous.tokenManager().flush();
+        }
+        TokenManager tokenManager = new TokenManager(properties.getOauth(), tokenStoreFactory.create(tenantId));
+        synchronized (tenants) {
+            tenant = tenants.get(tenantId);
+            if (tenant == null) {
+                tenant = createTenant(tenantId, tokenManager);
+                tenants.put(tenantId, tenant);
+                evictOverflow(evicted);
+            }
+            tenant.touch(now);
+        }
+        close(evicted);
+        return tenant;
+    }
+
+    private ScheduledExecutorService startIdleSweep(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            return null;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "garmin-tenant-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdle();
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict idle Garmin clients: {}", e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private void evictIdle(Instant now, Map<String, Tenant> evicted) {
+        Instant idleBefore = now.minus(properties.getTenants().getIdleTimeout());
+        // Access order: the least recently used tenants come first
+        Iterator<Map.Entry<String, Tenant>> iterator = tenants.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Tenant> entry = iterator.next();
+            if (!entry.getValue().lastAccess().isBefore(idleBefore)) {
+                break;
+            }
+            iterator.remove();
+            retire(entry.getKey(), entry.getValue(), evicted);
+            log.debug("Evicted idle Garmin client for tenant {}", entry.getKey());
+        }
+    }
+
+    private void evictOverflow(Map<String, Tenant> evicted) {
+        Iterator<Map.Entry<String, Tenant>> iterator = tenants.entrySet().iterator();
+        while (tenants.size() > properties.getTenants().getMaxTenants() && iterator.hasNext()) {
+            Map.Entry<String, Tenant> entry = iterator.next();
+            iterator.remove();
+            retire(entry.getKey(), entry.getValue(), evicted);
+            log.debug("Evicted least recently used Garmin client for tenant {}", entry.getKey());
+        }
+    }
+
+    /**
+     * Mark an evicted tenant as closing; call with the registry locked
+     */
+    private void retire(String tenantId, Tenant tenant, Map<String, Tenant> evicted) {
+        closing.put(tenantId, tenant);
+        evicted.put(tenantId, tenant);
+    }
+
+    /**
+     * Close evicted tenants; call without holding the registry lock
+     */
+    private void close(Map<String, Tenant> evicted) {
+        evicted.forEach((tenantId, tenant) -> {
+            try {
+                tenant.close();
+            } finally {
+                synchronized (tenants) {
+                    closing.remove(tenantId, tenant);
+                }
+            }
+        });
+    }
+
+    private Tenant createTenant(String tenantId, TokenManager tokenManager) {
+        String name = "garmin-" + tenantId;
+        GarminWebClient tenantWebClient = new GarminWebClient(
+                webClient,
+                tokenManager,
+                CircuitBreaker.of(name, circuitBreakerConfig),
+                RateLimiter.of(name, rateLimiterConfig),
+                Retry.of(name, retryConfig),
+                properties,
+                jsonMapper,
+                meterRegistry,
+                retryBudget
+        );
+
+        GarminConnectClient client = new GarminConnectClient(
+                new UserProfileService(tenantWebClient),
+                new ActivityService(tenantWebClient),
+                new HealthMetricsService(tenantWebClient),
+                new WellnessService(tenantWebClient),
+                new DeviceService(tenantWebClient),
+                new GearService(tenantWebClient),
+                new TrainingPlanService(tenantWebClient),
+                new GraphQLService(tenantWebClient, jsonMapper),
+                new NativeAuthService(properties, webClient, tokenManager, jsonMapper,
+                        new PythonAuthService(properties, tokenManager, jsonMapper, pythonWorkerPool)),
+                properties
+        );
+        log.debug("Created Garmin client for tenant {}", tenantId);
+        return new Tenant(client, tenantWebClient, tokenManager);
+    }
+
+    /**
+     * Per-tenant client state
+     */
+    private static final class Tenant {
+
+        private final GarminConnectClient client;
+        private final GarminWebClient webClient;
+        private final TokenManager tokenManager;
+        private Instant lastAccess = Instant.MIN;
+
+        Tenant(GarminConnectClient client, GarminWebClient webClient, TokenManager tokenManager) {
+            this.client = client;
+            this.webClient = webClient;
+            this.tokenManager = tokenManager;
+        }
+
+        GarminConnectClient client() {
+            return client;
+        }
+
+        GarminWebClient webClient() {
+            return webClient;
+        }
+
+        TokenManager tokenManager() {
+            return tokenManager;
+        }
+
+        Instant lastAccess() {
+            return lastAccess;
+        }
+
+        void touch(Instant now) {
+            lastAccess = now;
+        }
+
+        /**
+         * Stop the client and write pending token changes, so a recreated tenant loads the latest tokens
+         */
+        void close() {
+            webClient.close();
+            tokenManager.flush();
+        }
+    }
+}
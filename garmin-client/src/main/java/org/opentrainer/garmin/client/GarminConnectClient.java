@@ -3,14 +3,21 @@ package org.opentrainer.garmin.client;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.opentrainer.garmin.auth.PythonAuthService;
+import org.opentrainer.garmin.auth.NativeAuthService;
 import org.opentrainer.garmin.client.services.*;
+import org.opentrainer.garmin.config.GarminProperties;
 import org.opentrainer.garmin.model.*;
+import org.opentrainer.garmin.model.DailyHealthSnapshot.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Main facade for Garmin Connect API client.
@@ -58,13 +65,25 @@ public class GarminConnectClient {
     @Getter
     private final TrainingPlanService trainingPlanService;
 
-    private final PythonAuthService pythonAuthService;
+    @Getter
+    private final GraphQLService graphQLService;
+
+    private final NativeAuthService authService;
+
+    private final GarminProperties properties;
 
     /**
-     * Authenticate with Garmin using configured credentials via Python helper script.
+     * Authenticate with Garmin using configured credentials, falling back to the Python helper script.
      */
     public void login() {
-        pythonAuthService.authenticate();
+        authService.authenticate();
+    }
+
+    /**
+     * Authenticate with explicit credentials, e.g. for a tenant client, falling back to the Python helper script.
+     */
+    public void login(String email, String password) {
+        authService.authenticate(email, password);
     }
 
     // ==================== User Profile Operations ====================
@@ -115,6 +134,28 @@ public class GarminConnectClient {
         return activityService.getActivities(start, limit);
     }
 
+    /**
+     * Stream all activities, newest first
+     * @param pageSize Number of activities requested per page
+     */
+    public Flux<Activity> streamActivities(int pageSize) {
+        return activityService.streamActivities(pageSize);
+    }
+
+    /**
+     * Stream activities started on or after the given date, newest first
+     */
+    public Flux<Activity> streamActivitiesSince(LocalDate since, int pageSize) {
+        return activityService.streamActivitiesSince(since, pageSize);
+    }
+
+    /**
+     * Stream activities newer than the given activity ID, newest first
+     */
+    public Flux<Activity> streamActivitiesAfter(Long lastActivityId, int pageSize) {
+        return activityService.streamActivitiesAfter(lastActivityId, pageSize);
+    }
+
     /**
      * Get activity by ID
      */
@@ -129,6 +170,27 @@ public class GarminConnectClient {
         return activityService.getActivityDetails(activityId, maxChartSize, maxPolylineSize);
     }
 
+    /**
+     * Get detailed activity data as a typed model
+     */
+    public Mono<ActivityDetails> getTypedActivityDetails(Long activityId, int maxChartSize, int maxPolylineSize) {
+        return activityService.getTypedActivityDetails(activityId, maxChartSize, maxPolylineSize);
+    }
+
+    /**
+     * Get an activity's chart data as one primitive column per metric
+     */
+    public Mono<ActivityStreams> getActivityStreams(Long activityId, int maxChartSize) {
+        return activityService.getActivityStreams(activityId, maxChartSize);
+    }
+
+    /**
+     * Stream the chart rows of an activity's details as they are received
+     */
+    public Flux<Map<String, Object>> streamActivityDetailMetrics(Long activityId, int maxChartSize) {
+        return activityService.streamActivityDetailMetrics(activityId, maxChartSize);
+    }
+
     /**
      * Get activity splits
      */
@@ -136,6 +198,20 @@ public class GarminConnectClient {
         return activityService.getActivitySplits(activityId);
     }
 
+    /**
+     * Get activity laps as a typed model
+     */
+    public Mono<ActivitySplits> getActivityLaps(Long activityId) {
+        return activityService.getActivityLaps(activityId);
+    }
+
+    /**
+     * Download an activity file to disk
+     */
+    public Mono<Path> downloadActivity(Long activityId, ActivityDownloadFormat format, Path target) {
+        return activityService.downloadActivity(activityId, format, target);
+    }
+
     /**
      * Update activity name
      */
@@ -252,6 +328,13 @@ public class GarminConnectClient {
         return healthMetricsService.getHRVData(date);
     }
 
+    /**
+     * Get HRV data as a typed model
+     */
+    public Mono<HrvData> getHrv(LocalDate date) {
+        return healthMetricsService.getHrv(date);
+    }
+
     /**
      * Get training readiness
      */
@@ -259,6 +342,13 @@ public class GarminConnectClient {
         return healthMetricsService.getTrainingReadiness(date);
     }
 
+    /**
+     * Get the training readiness scores of a day as typed models
+     */
+    public Mono<List<TrainingReadiness>> getTrainingReadinessEntries(LocalDate date) {
+        return healthMetricsService.getTrainingReadinessEntries(date);
+    }
+
     /**
      * Get training status
      */
@@ -266,6 +356,13 @@ public class GarminConnectClient {
         return healthMetricsService.getTrainingStatus(date);
     }
 
+    /**
+     * Get training status as a typed model
+     */
+    public Mono<TrainingStatus> getTrainingStatusAggregate(LocalDate date) {
+        return healthMetricsService.getTrainingStatusAggregate(date);
+    }
+
     /**
      * Get SpO2 data
      */
@@ -273,6 +370,13 @@ public class GarminConnectClient {
         return healthMetricsService.getSpO2Data(date);
     }
 
+    /**
+     * Get SpO2 data as a typed model
+     */
+    public Mono<SpO2Data> getSpO2(LocalDate date) {
+        return healthMetricsService.getSpO2(date);
+    }
+
     /**
      * Get stress data
      */
@@ -280,6 +384,13 @@ public class GarminConnectClient {
         return healthMetricsService.getStressData(date);
     }
 
+    /**
+     * Get stress data as a typed model
+     */
+    public Mono<StressData> getStress(LocalDate date) {
+        return healthMetricsService.getStress(date);
+    }
+
     /**
      * Get daily steps for date range
      */
@@ -287,6 +398,95 @@ public class GarminConnectClient {
         return healthMetricsService.getDailySteps(startDate, endDate);
     }
 
+    /**
+     * Get a snapshot of the day's health and wellness data.
+     * All components are requested concurrently, so latency is that of the slowest one; a component
+     * that fails or exceeds the configured timeout is left empty and reported in the snapshot's failures.
+     * When the GraphQL gateway is enabled, the components it supports are fetched in one batched
+     * request with a shorter timeout, and only those it could not resolve fall back to REST within
+     * the component timeout; a component the gateway resolves as empty for the day stays empty.
+     */
+    public Mono<DailyHealthSnapshot> getDailySnapshot(String displayName, LocalDate date) {
+        return getDailySnapshot(displayName, date, properties.getSnapshot().getComponentTimeout());
+    }
+
+    /**
+     * Get a snapshot of the day's health and wellness data with a specific per-component timeout
+     */
+    public Mono<DailyHealthSnapshot> getDailySnapshot(String displayName, LocalDate date, Duration componentTimeout) {
+        return Mono.defer(() -> {
+            DailyHealthSnapshot snapshot = new DailyHealthSnapshot(date);
+            Mono<Map<Component, Optional<Object>>> batch = batchedComponents(date, componentTimeout);
+            return Mono.when(
+                    component(snapshot, Component.SUMMARY, batch, healthMetricsService.getDailySummary(displayName, date),
+                            snapshot::setSummary, componentTimeout),
+                    component(snapshot, Component.HEART_RATE, batch, healthMetricsService.getHeartRates(displayName, date),
+                            snapshot::setHeartRates, componentTimeout),
+                    component(snapshot, Component.BODY_BATTERY, batch, healthMetricsService.getBodyBattery(date),
+                            snapshot::setBodyBattery, componentTimeout),
+                    component(snapshot, Component.HRV, batch, healthMetricsService.getHRVData(date),
+                            snapshot::setHrv, componentTimeout),
+                    component(snapshot, Component.STRESS, batch, healthMetricsService.getStressData(date),
+                            snapshot::setStress, componentTimeout),
+                    component(snapshot, Component.SPO2, batch, healthMetricsService.getSpO2Data(date),
+                            snapshot::setSpO2, componentTimeout),
+                    component(snapshot, Component.RESPIRATION, batch, healthMetricsService.getRespirationData(date),
+                            snapshot::setRespiration, componentTimeout),
+                    component(snapshot, Component.SLEEP, batch, wellnessService.getSleepData(displayName, date),
+                            snapshot::setSleep, componentTimeout),
+                    component(snapshot, Component.TRAINING_READINESS, batch, healthMetricsService.getTrainingReadiness(date),
+                            snapshot::setTrainingReadiness, componentTimeout),
+                    component(snapshot, Component.TRAINING_STATUS, batch, healthMetricsService.getTrainingStatus(date),
+                            snapshot::setTrainingStatus, componentTimeout),
+                    component(snapshot, Component.INTENSITY_MINUTES, batch, healthMetricsService.getIntensityMinutes(date),
+                            snapshot::setIntensityMinutes, componentTimeout),
+                    component(snapshot, Component.HYDRATION, batch, wellnessService.getHydrationData(date),
+                            snapshot::setHydration, componentTimeout)
+            ).thenReturn(snapshot);
+        });
+    }
+
+    /**
+     * One shared GraphQL request for the components the gateway supports, or an empty map when
+     * the gateway is disabled or unavailable. The batch gets the shorter of the batch and component
+     * timeouts, leaving time for the REST fallback.
+     */
+    private Mono<Map<Component, Optional<Object>>> batchedComponents(LocalDate date, Duration componentTimeout) {
+        if (!properties.getGraphql().isEnabled()) {
+            return Mono.just(Map.of());
+        }
+        Duration batchTimeout = properties.getGraphql().getBatchTimeout();
+        return graphQLService.getDailyMetrics(date, GraphQLService.supportedComponents())
+                .timeout(batchTimeout.compareTo(componentTimeout) < 0 ? batchTimeout : componentTimeout)
+                .onErrorResume(error -> {
+                    log.warn("GraphQL batch for {} failed, falling back to REST: {}", date, error.toString());
+                    return Mono.just(Map.of());
+                })
+                .defaultIfEmpty(Map.of())
+                .cache();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<Void> component(DailyHealthSnapshot snapshot, Component component,
+                                     Mono<Map<Component, Optional<Object>>> batch,
+                                     Mono<T> rest, Consumer<T> setter, Duration timeout) {
+        Mono<T> request = GraphQLService.supportedComponents().contains(component)
+                ? batch.flatMap(values -> values.containsKey(component)
+                        ? Mono.justOrEmpty(values.get(component).map(value -> (T) value))
+                        : rest)
+                : rest;
+        // One timeout for the batch and its fallback together, so the slowest component bounds the latency
+        return request
+                .timeout(timeout)
+                .doOnNext(setter)
+                .onErrorResume(error -> {
+                    log.warn("Snapshot component {} for {} unavailable: {}", component, snapshot.getDate(), error.toString());
+                    snapshot.getFailures().put(component, String.valueOf(error.getMessage()));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
     // ==================== Wellness Operations ====================
 
     /**
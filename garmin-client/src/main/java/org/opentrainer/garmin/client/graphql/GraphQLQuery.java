@@ -0,0 +1,125 @@
+package org.opentrainer.garmin.client.graphql;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * GraphQL query selecting several aliased scalar fields, e.g.
+ * {@code query{sleep:sleepScalar(date:"2024-03-01",sleepOnly:false)}}.
+ * Each field's result is returned under its alias, so one request can carry many datasets.
+ */
+public final class GraphQLQuery {
+
+    private final List<Field> fields;
+
+    private GraphQLQuery(List<Field> fields) {
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Render the query document
+     */
+    public String render() {
+        return fields.stream()
+                .map(Field::render)
+                .collect(Collectors.joining(" ", "query{", "}"));
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+
+    /**
+     * One aliased field selection
+     */
+    public record Field(String alias, String name, Map<String, Object> arguments) {
+
+        String render() {
+            if (arguments.isEmpty()) {
+                return alias + ":" + name;
+            }
+            return alias + ":" + name + arguments.entrySet().stream()
+                    .map(argument -> argument.getKey() + ":" + literal(argument.getValue()))
+                    .collect(Collectors.joining(",", "(", ")"));
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Field> fields = new LinkedHashMap<>();
+
+        /**
+         * Select a field without arguments
+         */
+        public Builder field(String alias, String name) {
+            return field(alias, name, Map.of());
+        }
+
+        /**
+         * Select a field. Arguments are rendered in iteration order.
+         */
+        public Builder field(String alias, String name, Map<String, ?> arguments) {
+            if (fields.containsKey(alias)) {
+                throw new IllegalArgumentException("Duplicate GraphQL alias: " + alias);
+            }
+            fields.put(alias, new Field(alias, name, Collections.unmodifiableMap(new LinkedHashMap<>(arguments))));
+            return this;
+        }
+
+        public GraphQLQuery build() {
+            return new GraphQLQuery(new ArrayList<>(fields.values()));
+        }
+    }
+
+    private static String literal(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream()
+                    .map(GraphQLQuery::literal)
+                    .collect(Collectors.joining(",", "[", "]"));
+        }
+        if (value instanceof CharSequence || value instanceof TemporalAccessor || value instanceof Enum<?>) {
+            return quote(value.toString());
+        }
+        throw new IllegalArgumentException("Unsupported GraphQL argument type: " + value.getClass().getName());
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
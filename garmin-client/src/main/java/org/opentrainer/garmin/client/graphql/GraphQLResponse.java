@@ -0,0 +1,49 @@
+package org.opentrainer.garmin.client.graphql;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import tools.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GraphQL gateway response. Fields that could not be resolved are null in {@link #data}
+ * and described in {@link #errors}.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GraphQLResponse {
+    private Map<String, JsonNode> data;
+    private List<Map<String, Object>> errors;
+
+    /**
+     * Result of an aliased field, or null when absent
+     */
+    public JsonNode field(String alias) {
+        if (data == null) {
+            return null;
+        }
+        JsonNode value = data.get(alias);
+        return value == null || value.isNull() ? null : value;
+    }
+
+    /**
+     * Whether the gateway resolved the field, possibly to null for no data, rather than failing on it.
+     * Errors without a path may concern any field, so they leave null fields unresolved.
+     */
+    public boolean isResolved(String alias) {
+        if (data == null || !data.containsKey(alias)) {
+            return false;
+        }
+        if (field(alias) != null || !hasErrors()) {
+            return true;
+        }
+        return errors.stream().allMatch(error -> error.get("path") instanceof List<?> path
+                && !path.isEmpty() && !alias.equals(path.get(0)));
+    }
+
+    public boolean hasErrors() {
+        return errors != null && !errors.isEmpty();
+    }
+}
@@ -0,0 +1,231 @@
+package org.opentrainer.garmin.client.http;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AIMD controller for the rate limiter's permits per period.
+ * A throttled response (429 or 503) cuts the limit multiplicatively and pauses all requests for the
+ * Retry-After duration; while calls succeed the limit is raised additively, at most once per interval,
+ * probing for capacity Garmin is willing to give.
+ */
+@Slf4j
+public class AdaptiveRateLimit {
+
+    private final RateLimiter rateLimiter;
+    private final GarminProperties.Resilience.RateLimiter config;
+    private final Clock clock;
+    private final Counter throttled;
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+    private int limit;
+    private Instant lastIncrease;
+    private Instant lastDecrease = Instant.MIN;
+    private volatile Instant pausedUntil = Instant.MIN;
+
+    public AdaptiveRateLimit(RateLimiter rateLimiter, GarminProperties.Resilience.RateLimiter config,
+                             MeterRegistry meterRegistry) {
+        this(rateLimiter, config, meterRegistry, Clock.systemUTC());
+    }
+
+    public AdaptiveRateLimit(RateLimiter rateLimiter, GarminProperties.Resilience.RateLimiter config,
+                             MeterRegistry meterRegistry, Clock clock) {
+        this.rateLimiter = rateLimiter;
+        this.config = config;
+        this.clock = clock;
+        this.limit = rateLimiter.getRateLimiterConfig().getLimitForPeriod();
+        this.lastIncrease = clock.instant();
+        this.meterRegistry = meterRegistry;
+        this.throttled = Counter.builder("garmin.client.ratelimit.throttled")
+                .description("Responses throttled by Garmin with 429 or 503")
+                .tag("limiter", rateLimiter.getName())
+                .register(meterRegistry);
+        meters.add(throttled);
+        meters.add(Gauge.builder("garmin.client.ratelimit.limit", this, AdaptiveRateLimit::getLimit)
+                .description("Current permits per period of the adaptive rate limiter")
+                .tag("limiter", rateLimiter.getName())
+                .register(meterRegistry));
+        meters.add(Gauge.builder("garmin.client.ratelimit.available", rateLimiter,
+                        limiter -> limiter.getMetrics().getAvailablePermissions())
+                .description("Permits left in the current rate limiter period")
+                .tag("limiter", rateLimiter.getName())
+                .register(meterRegistry));
+        meters.add(Gauge.builder("garmin.client.ratelimit.waiting", rateLimiter,
+                        limiter -> limiter.getMetrics().getNumberOfWaitingThreads())
+                .description("Requests waiting for a rate limiter permit")
+                .tag("limiter", rateLimiter.getName())
+                .register(meterRegistry));
+    }
+
+    /**
+     * Remove the limiter's meters, e.g. when its client is discarded
+     */
+    public void close() {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    /**
+     * Delay the request while paused by a Retry-After.
+     * Apply outside the rate limiter and bulkhead, so that a paused request holds none of their permits.
+     */
+    public <T> Mono<T> delayWhilePaused(Mono<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return pause().then(request);
+    }
+
+    /**
+     * Delay the stream while paused by a Retry-After, outside the rate limiter and bulkhead
+     */
+    public <T> Flux<T> delayWhilePaused(Flux<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return pause().thenMany(request);
+    }
+
+    /**
+     * Feed the request's outcome back into the limit
+     */
+    public <T> Mono<T> decorate(Mono<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return request
+                .doOnSuccess(response -> onSuccess())
+                .doOnError(this::onError);
+    }
+
+    /**
+     * Feed the stream's outcome back into the limit
+     */
+    public <T> Flux<T> decorate(Flux<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return request
+                .doOnComplete(this::onSuccess)
+                .doOnError(this::onError);
+    }
+
+    /**
+     * Current permits per period
+     */
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Time until which requests are held back, or a past instant when not paused
+     */
+    public Instant getPausedUntil() {
+        return pausedUntil;
+    }
+
+    synchronized void onSuccess() {
+        Instant now = clock.instant();
+        if (limit < config.getMaxLimitForPeriod() && !now.isBefore(lastIncrease.plus(config.getIncreaseInterval()))) {
+            changeLimit(Math.min(config.getMaxLimitForPeriod(), limit + config.getAdditiveIncrease()));
+            lastIncrease = now;
+        }
+    }
+
+    synchronized void onThrottled(Duration retryAfter) {
+        Instant now = clock.instant();
+        throttled.increment();
+
+        Duration pause = retryAfter != null ? retryAfter : config.getDefaultRetryAfter();
+        if (pause.compareTo(config.getMaxRetryAfter()) > 0) {
+            pause = config.getMaxRetryAfter();
+        }
+        Instant resumeAt = now.plus(pause);
+        if (resumeAt.isAfter(pausedUntil)) {
+            pausedUntil = resumeAt;
+        }
+
+        // Concurrent requests throttled by the same overload count as one signal
+        if (!now.isBefore(lastDecrease.plus(config.getDecreaseCooldown()))) {
+            changeLimit(Math.max(config.getMinLimitForPeriod(), (int) (limit * config.getMultiplicativeDecrease())));
+            lastDecrease = now;
+            lastIncrease = now;
+        }
+    }
+
+    private void onError(Throwable error) {
+        if (error instanceof WebClientResponseException response && isThrottled(response)) {
+            onThrottled(retryAfter(response.getHeaders(), clock));
+        }
+    }
+
+    private Mono<Void> pause() {
+        return Mono.defer(() -> {
+            Duration wait = Duration.between(clock.instant(), pausedUntil);
+            if (wait.isNegative() || wait.isZero()) {
+                return Mono.empty();
+            }
+            log.debug("Rate limiter {} paused, delaying request by {}", rateLimiter.getName(), wait);
+            return Mono.delay(wait).then();
+        });
+    }
+
+    private void changeLimit(int newLimit) {
+        if (newLimit == limit) {
+            return;
+        }
+        log.info("Adjusting rate limiter {} from {} to {} permits per period", rateLimiter.getName(), limit, newLimit);
+        limit = newLimit;
+        rateLimiter.changeLimitForPeriod(newLimit);
+    }
+
+    private boolean isEnabled() {
+        return config.isEnabled() && config.isAdaptive();
+    }
+
+    /**
+     * Whether a response signals that Garmin is throttling this client
+     */
+    public static boolean isThrottled(WebClientResponseException response) {
+        int status = response.getStatusCode().value();
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Parse a Retry-After header given as delay-seconds or an HTTP date, or null when absent or invalid
+     */
+    public static Duration retryAfter(HttpHeaders headers, Clock clock) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(clock.instant(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
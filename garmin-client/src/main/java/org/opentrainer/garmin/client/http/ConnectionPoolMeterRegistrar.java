@@ -0,0 +1,58 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes Reactor Netty connection pool state as Micrometer gauges.
+ * One set of gauges is registered per pool and remote address.
+ */
+public class ConnectionPoolMeterRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private static final String PREFIX = "garmin.http.pool.";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    public ConnectionPoolMeterRegistrar(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", poolName, "remote.address", String.valueOf(remoteAddress));
+        meters.put(id, List.of(
+                gauge("active", "Connections currently leased", metrics, ConnectionPoolMetrics::acquiredSize, tags),
+                gauge("idle", "Idle connections available for reuse", metrics, ConnectionPoolMetrics::idleSize, tags),
+                gauge("pending", "Requests waiting for a connection", metrics, ConnectionPoolMetrics::pendingAcquireSize, tags),
+                gauge("total", "Connections currently allocated", metrics, ConnectionPoolMetrics::allocatedSize, tags),
+                gauge("max", "Maximum allowed connections", metrics, ConnectionPoolMetrics::maxAllocatedSize, tags)
+        ));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        List<Meter> registered = meters.remove(id);
+        if (registered != null) {
+            registered.forEach(meterRegistry::remove);
+        }
+    }
+
+    private Gauge gauge(String name, String description, ConnectionPoolMetrics metrics,
+                        ToDoubleFunction<ConnectionPoolMetrics> value, Tags tags) {
+        return Gauge.builder(PREFIX + name, metrics, value)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
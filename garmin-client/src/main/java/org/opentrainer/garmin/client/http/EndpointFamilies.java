@@ -0,0 +1,143 @@
+package org.opentrainer.garmin.client.http;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opentrainer.garmin.config.GarminProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Circuit breakers and bulkheads per endpoint family, the service prefix of a path such as
+ * {@code /activity-service} or {@code /metrics-service}.
+ * A degraded backend opens only its own breaker and can only exhaust its own concurrency, leaving
+ * the other families available. Instances are created on first use, named
+ * {@code <client>-<family>}, and report their state through Resilience4j's Micrometer metrics until closed.
+ */
+public class EndpointFamilies {
+
+    private final String name;
+    private final GarminProperties.Resilience config;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+
+    /**
+     * @param name                 Prefix of breaker and bulkhead names, e.g. the client's breaker name
+     * @param defaultCircuitBreaker Configuration of families without an override
+     */
+    public EndpointFamilies(String name, GarminProperties.Resilience config,
+                            CircuitBreakerConfig defaultCircuitBreaker, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.circuitBreakers = CircuitBreakerRegistry.of(defaultCircuitBreaker);
+        this.bulkheads = BulkheadRegistry.of(bulkheadConfig(config.getBulkhead()));
+        config.getFamilies().forEach((family, override) -> {
+            if (override.getCircuitBreaker() != null) {
+                circuitBreakers.addConfiguration(family, circuitBreakerConfig(override.getCircuitBreaker()));
+            }
+            if (override.getBulkhead() != null) {
+                bulkheads.addConfiguration(family, bulkheadConfig(override.getBulkhead()));
+            }
+        });
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    /**
+     * Remove all breakers and bulkheads, which unregisters their meters
+     */
+    public void close() {
+        circuitBreakers.getAllCircuitBreakers().forEach(breaker -> circuitBreakers.remove(breaker.getName()));
+        bulkheads.getAllBulkheads().forEach(bulkhead -> bulkheads.remove(bulkhead.getName()));
+    }
+
+    /**
+     * Circuit breaker guarding the path's family, or empty when circuit breaking is disabled
+     */
+    public Optional<CircuitBreaker> circuitBreaker(String path) {
+        String family = family(path);
+        if (!isEnabled(family)) {
+            return Optional.empty();
+        }
+        return Optional.of(circuitBreakers.getConfiguration(family)
+                .map(familyConfig -> circuitBreakers.circuitBreaker(name + "-" + family, familyConfig))
+                .orElseGet(() -> circuitBreakers.circuitBreaker(name + "-" + family)));
+    }
+
+    /**
+     * Bulkhead limiting concurrent calls to the path's family, or empty when disabled
+     */
+    public Optional<Bulkhead> bulkhead(String path) {
+        String family = family(path);
+        GarminProperties.Resilience.Family override = config.getFamilies().get(family);
+        GarminProperties.Resilience.Bulkhead bulkhead = override != null && override.getBulkhead() != null
+                ? override.getBulkhead()
+                : config.getBulkhead();
+        if (!bulkhead.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.of(bulkheads.getConfiguration(family)
+                .map(familyConfig -> bulkheads.bulkhead(name + "-" + family, familyConfig))
+                .orElseGet(() -> bulkheads.bulkhead(name + "-" + family)));
+    }
+
+    /**
+     * State of each family's circuit breaker created so far
+     */
+    public Map<String, CircuitBreaker.State> states() {
+        return circuitBreakers.getAllCircuitBreakers().stream()
+                .collect(Collectors.toMap(
+                        breaker -> breaker.getName().substring(name.length() + 1),
+                        CircuitBreaker::getState));
+    }
+
+    /**
+     * Family of a path: its first segment, e.g. "activity-service" for "/activity-service/activity/1"
+     */
+    public static String family(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = start;
+        while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != '?') {
+            end++;
+        }
+        return end > start ? path.substring(start, end) : "root";
+    }
+
+    /**
+     * Resilience4j configuration of a circuit breaker property block
+     */
+    public static CircuitBreakerConfig circuitBreakerConfig(GarminProperties.Resilience.CircuitBreaker config) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .build();
+    }
+
+    private boolean isEnabled(String family) {
+        GarminProperties.Resilience.Family override = config.getFamilies().get(family);
+        if (override != null && override.getCircuitBreaker() != null) {
+            return override.getCircuitBreaker().isEnabled();
+        }
+        return config.getCircuitBreaker().isEnabled();
+    }
+
+    private static BulkheadConfig bulkheadConfig(GarminProperties.Resilience.Bulkhead config) {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+    }
+}
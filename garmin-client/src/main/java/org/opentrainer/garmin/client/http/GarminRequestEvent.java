@@ -0,0 +1,45 @@
+package org.opentrainer.garmin.client.http;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one Garmin request, spanning subscription to termination including retries
+ */
+@Name("org.opentrainer.garmin.Request")
+@Label("Garmin Request")
+@Category({"Open Trainer", "Garmin"})
+@Description("Request to Garmin Connect, including rate limiter waits and retries")
+@StackTrace(false)
+class GarminRequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI Template")
+    String uri;
+
+    @Label("Status")
+    int status;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Wait")
+    @Description("Time before the first attempt was sent: authentication, rate limiter, Retry-After pause and bulkhead")
+    @Timespan
+    long wait;
+}
@@ -1,36 +1,89 @@
 package org.opentrainer.garmin.client.http;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.IntervalBiFunction;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
 import io.github.resilience4j.reactor.retry.RetryOperator;
 import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.auth.NativeAuthService;
 import org.opentrainer.garmin.auth.OAuth2Token;
 import org.opentrainer.garmin.auth.TokenManager;
+import org.opentrainer.garmin.auth.TokenRefresher;
 import org.opentrainer.garmin.config.GarminProperties;
 import org.opentrainer.garmin.exception.GarminAuthenticationException;
 import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.exception.GarminRateLimitException;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Resilient HTTP client for Garmin Connect API with circuit breaker, rate limiting, and retry.
+ * Every request is timed and sized through {@link RequestMetrics}.
  */
 @Slf4j
 public class GarminWebClient {
 
+    private static final Pattern UNSATISFIED_RANGE = Pattern.compile("bytes \\*/(\\d+)");
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(?:\\d+|\\*)");
+
     private final WebClient webClient;
     private final TokenManager tokenManager;
-    private final CircuitBreaker circuitBreaker;
+    private final EndpointFamilies endpointFamilies;
     private final RateLimiter rateLimiter;
     private final Retry retry;
     private final GarminProperties properties;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
+    private final ValidatorStore validatorStore;
+    private final JsonStreamDecoder streamDecoder;
+    private final AdaptiveRateLimit adaptiveRateLimit;
+    private final RetryBudget retryBudget;
+    private final RequestHedger requestHedger;
+    private final RequestMetrics requestMetrics;
+    private final TokenRefresher tokenRefresher;
 
     public GarminWebClient(
             WebClient webClient,
@@ -39,35 +92,333 @@ public class GarminWebClient {
             RateLimiter rateLimiter,
             Retry retry,
             GarminProperties properties) {
-        this.webClient = webClient;
+        this(webClient, tokenManager, circuitBreaker, rateLimiter, retry, properties,
+                JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build(),
+                Metrics.globalRegistry);
+    }
+
+    public GarminWebClient(
+            WebClient webClient,
+            TokenManager tokenManager,
+            CircuitBreaker circuitBreaker,
+            RateLimiter rateLimiter,
+            Retry retry,
+            GarminProperties properties,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry) {
+        this(webClient, tokenManager, circuitBreaker, rateLimiter, retry, properties, jsonMapper, meterRegistry,
+                new RetryBudget(properties.getResilience().getRetry(), meterRegistry));
+    }
+
+    /**
+     * @param retryBudget Budget shared with the application's other clients
+     */
+    public GarminWebClient(
+            WebClient webClient,
+            TokenManager tokenManager,
+            CircuitBreaker circuitBreaker,
+            RateLimiter rateLimiter,
+            Retry retry,
+            GarminProperties properties,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            RetryBudget retryBudget) {
+        this.requestMetrics = new RequestMetrics(properties.getMetrics(), meterRegistry);
+        this.webClient = webClient.mutate()
+                .filter(bearerToken(tokenManager))
+                .filter(requestMetrics.filter())
+                .build();
         this.tokenManager = tokenManager;
-        this.circuitBreaker = circuitBreaker;
+        this.endpointFamilies = new EndpointFamilies(circuitBreaker.getName(), properties.getResilience(),
+                circuitBreaker.getCircuitBreakerConfig(), meterRegistry);
         this.rateLimiter = rateLimiter;
-        this.retry = retry;
+        this.retryBudget = retryBudget;
+        this.retry = withRetryPolicy(retry);
         this.properties = properties;
+        this.requestCoalescer = new RequestCoalescer(meterRegistry);
+        this.responseCache = new ResponseCache(circuitBreaker.getName(), properties.getCache(), meterRegistry);
+        this.validatorStore = new ValidatorStore(properties.getCache(), meterRegistry);
+        this.streamDecoder = new JsonStreamDecoder(jsonMapper,
+                Math.toIntExact(properties.getHttp().getMaxStreamElementSize().toBytes()));
+        this.requestHedger = new RequestHedger(properties.getResilience().getHedging(), meterRegistry);
+        this.adaptiveRateLimit = new AdaptiveRateLimit(rateLimiter, properties.getResilience().getRateLimiter(),
+                meterRegistry);
+        // The exchange is OAuth1-signed, so it goes through the client without the bearer token filter
+        this.tokenRefresher = new TokenRefresher(tokenManager, properties.getOauth(),
+                new NativeAuthService(properties, webClient, tokenManager, jsonMapper, null)::exchange);
     }
 
     /**
-     * Execute GET request
+     * Execute GET request.
+     * Served from the response cache when the path is cacheable; identical GETs issued
+     * while one is in flight share its response. Slow GETs to hedged paths are raced by a second attempt.
      */
     public <T> Mono<T> get(String path, Class<T> responseType) {
-        return executeRequest(
+        RequestKey key = RequestKey.get(path, responseType);
+        return responseCache.getOrLoad(key, () -> requestCoalescer.coalesce(key, () -> executeRequest(
+                HttpMethod.GET, path, conditionalGet(key, response -> response.toEntity(responseType)), true, true
+        )));
+    }
+
+    /**
+     * Execute GET request with ParameterizedTypeReference.
+     * Served from the response cache when the path is cacheable; identical GETs issued
+     * while one is in flight share its response.
+     */
+    public <T> Mono<T> get(String path, ParameterizedTypeReference<T> responseType) {
+        RequestKey key = RequestKey.get(path, responseType.getType());
+        return responseCache.getOrLoad(key, () -> requestCoalescer.coalesce(key, () -> executeRequest(
+                HttpMethod.GET, path, conditionalGet(key, response -> response.toEntity(responseType)), true, true
+        )));
+    }
+
+    /**
+     * Execute GET request and decode the elements of a top-level JSON array as they arrive
+     */
+    public <T> Flux<T> getFlux(String path, Class<T> elementType) {
+        return getFlux(path, "", elementType);
+    }
+
+    /**
+     * Execute GET request and decode the elements of the array at a JSON pointer as they arrive.
+     * The body is never aggregated, so memory use is bounded by the largest element.
+     * Streams are not retried, since elements may already have been emitted.
+     *
+     * @param arrayPointer Location of the array, e.g. "/activityDetailMetrics"
+     */
+    public <T> Flux<T> getFlux(String path, String arrayPointer, Class<T> elementType) {
+        return executeStream(path, streamDecoder.decode(
                 webClient.get()
                         .uri(path)
                         .retrieve()
-                        .bodyToMono(responseType)
-        );
+                        .bodyToFlux(DataBuffer.class),
+                arrayPointer,
+                elementType
+        ));
     }
 
     /**
-     * Execute GET request with ParameterizedTypeReference
+     * Execute GET request and decode the elements of the array at a JSON pointer as they arrive
      */
-    public <T> Mono<T> get(String path, ParameterizedTypeReference<T> responseType) {
-        return executeRequest(
+    public <T> Flux<T> getFlux(String path, String arrayPointer, ParameterizedTypeReference<T> elementType) {
+        return executeStream(path, streamDecoder.decode(
                 webClient.get()
                         .uri(path)
                         .retrieve()
-                        .bodyToMono(responseType)
+                        .bodyToFlux(DataBuffer.class),
+                arrayPointer,
+                elementType
+        ));
+    }
+
+    /**
+     * Execute GET request and decode the body as it arrives, handing each token to a reader.
+     * Neither the body nor a tree of it is held in memory, and the response bypasses the response cache and
+     * validator store, which suits large results kept in a compact form by the reader.
+     * The value is only emitted once the body is complete, so failed attempts are retried.
+     *
+     * @param readers Creates the reader of one response
+     */
+    public <T> Mono<T> getStreamed(String path, Supplier<JsonStreamDecoder.TokenReader<T>> readers) {
+        return executeRequest(HttpMethod.GET, path, streamDecoder.decode(
+                webClient.get()
+                        .uri(path)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class),
+                readers
+        ), true, true);
+    }
+
+    /**
+     * Download a file to disk without holding it in memory.
+     * The body is written buffer by buffer to {@code <target>.part}, which is moved to the target once complete.
+     * A failed transfer leaves the part file behind; retries and later downloads to the same target resume it
+     * with a Range request, made conditional with If-Range on the ETag or Last-Modified of the first response
+     * so that a regenerated file is downloaded whole, as is one whose partial response does not start where the
+     * part file ends. Downloads ask for the identity encoding, since ranges of a compressed body would not match
+     * the decoded bytes on disk. Concurrent downloads to the same target are not supported.
+     *
+     * @return The target path
+     */
+    public Mono<Path> download(String path, Path target) {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        return executeStream(path, Mono.defer(() -> transfer(path, part)).flux(), true)
+                .then(Mono.fromCallable(() -> {
+                    Files.deleteIfExists(validatorPath(part));
+                    return moveIntoPlace(part, target);
+                }));
+    }
+
+    private Mono<Void> transfer(String path, Path part) {
+        return Mono.defer(() -> {
+            long offset;
+            String validator;
+            try {
+                Files.createDirectories(part.toAbsolutePath().getParent());
+                offset = Files.exists(part) ? Files.size(part) : 0;
+                validator = offset > 0 && Files.exists(validatorPath(part))
+                        ? Files.readString(validatorPath(part))
+                        : null;
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+
+            return webClient.get()
+                    .uri(path)
+                    .headers(headers -> {
+                        headers.set(HttpHeaders.ACCEPT_ENCODING, "identity");
+                        if (offset > 0) {
+                            headers.setRange(List.of(HttpRange.createByteRange(offset)));
+                            if (validator != null) {
+                                headers.set(HttpHeaders.IF_RANGE, validator);
+                            }
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        HttpStatusCode status = response.statusCode();
+                        if (status.value() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value() && offset > 0) {
+                            if (completeLength(response.headers().asHttpHeaders()) == offset) {
+                                log.debug("Part file of {} is already complete", path);
+                                return response.releaseBody();
+                            }
+                            // The part file does not match the remote file, start over
+                            log.debug("Range not satisfiable for {}, restarting download", path);
+                            return response.releaseBody()
+                                    .then(Mono.fromCallable(() -> Files.deleteIfExists(part)))
+                                    .then(transfer(path, part));
+                        }
+                        if (!status.is2xxSuccessful()) {
+                            return response.createError();
+                        }
+                        // A server ignoring the Range header, or whose file changed, sends the whole file again
+                        if (status.value() == HttpStatus.PARTIAL_CONTENT.value()) {
+                            long start = rangeStart(response.headers().asHttpHeaders());
+                            if (start == offset) {
+                                return write(response.bodyToFlux(DataBuffer.class), part, offset);
+                            }
+                            // Appending a range other than the one asked for would corrupt the part file
+                            log.debug("Partial content of {} starts at {} instead of {}, restarting download",
+                                    path, start, offset);
+                            return response.releaseBody()
+                                    .then(Mono.fromCallable(() -> Files.deleteIfExists(part)))
+                                    .then(transfer(path, part));
+                        }
+                        return Mono.fromCallable(() -> saveValidator(part, response.headers().asHttpHeaders()))
+                                .then(write(response.bodyToFlux(DataBuffer.class), part, 0));
+                    });
+        });
+    }
+
+    /**
+     * Store the validator a resumed download sends as If-Range: a strong ETag, otherwise Last-Modified
+     */
+    private static Path saveValidator(Path part, HttpHeaders headers) throws IOException {
+        Path validatorPath = validatorPath(part);
+        String etag = headers.getETag();
+        if (etag != null && !etag.startsWith("W/")) {
+            return Files.writeString(validatorPath, etag);
+        }
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null) {
+            return Files.writeString(validatorPath, lastModified);
+        }
+        Files.deleteIfExists(validatorPath);
+        return validatorPath;
+    }
+
+    private static Path validatorPath(Path part) {
+        return part.resolveSibling(part.getFileName() + ".validator");
+    }
+
+    /**
+     * Complete length from the {@code Content-Range: bytes *}{@code /<length>} of a 416 response, or -1
+     */
+    private static long completeLength(HttpHeaders headers) {
+        String contentRange = headers.getFirst(HttpHeaders.CONTENT_RANGE);
+        if (contentRange == null) {
+            return -1;
+        }
+        Matcher matcher = UNSATISFIED_RANGE.matcher(contentRange.trim());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * First byte position from the {@code Content-Range: bytes <first>-<last>/<length>} of a 206 response, or -1
+     */
+    private static long rangeStart(HttpHeaders headers) {
+        String contentRange = headers.getFirst(HttpHeaders.CONTENT_RANGE);
+        if (contentRange == null) {
+            return -1;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static Mono<Void> write(Flux<DataBuffer> body, Path file, long position) {
+        return Mono.using(
+                () -> position == 0
+                        ? AsynchronousFileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING)
+                        : AsynchronousFileChannel.open(file, StandardOpenOption.WRITE),
+                channel -> DataBufferUtils.write(body, channel, position)
+                        .map(DataBufferUtils::release)
+                        .then(Mono.fromCallable(() -> {
+                            channel.force(false);
+                            return channel;
+                        }))
+                        .then(),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        log.warn("Failed to close {}: {}", file, e.getMessage());
+                    }
+                });
+    }
+
+    private static Path moveIntoPlace(Path part, Path target) throws IOException {
+        try {
+            return Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * GET that revalidates a previously seen response with If-None-Match / If-Modified-Since
+     * and answers a 304 Not Modified with the stored body
+     */
+    private <T> Mono<T> conditionalGet(
+            RequestKey key,
+            Function<WebClient.ResponseSpec, Mono<ResponseEntity<T>>> toEntity) {
+        return Mono.defer(() -> {
+            ValidatorStore.Validated validated = validatorStore.lookup(key);
+            WebClient.ResponseSpec response = webClient.get()
+                    .uri(key.path())
+                    .headers(headers -> {
+                        if (validated != null) {
+                            validated.applyTo(headers);
+                        }
+                    })
+                    .retrieve();
+            return toEntity.apply(response)
+                    .flatMap(entity -> Mono.justOrEmpty(validatorStore.resolve(key, validated, entity)));
+        });
+    }
+
+    /**
+     * Execute a read-only POST, e.g. a GraphQL query.
+     * Unlike {@link #post}, it is retried and hedged like a GET and evicts no cached responses.
+     */
+    public <T, R> Mono<R> query(String path, T body, Class<R> responseType) {
+        return executeRequest(HttpMethod.POST, path,
+                webClient.post()
+                        .uri(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(responseType),
+                true, true
         );
     }
 
@@ -75,7 +426,7 @@ public class GarminWebClient {
      * Execute POST request
      */
     public <T, R> Mono<R> post(String path, T body, Class<R> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.POST, path,
                 webClient.post()
                         .uri(path)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -89,7 +440,7 @@ public class GarminWebClient {
      * Execute POST request without body
      */
     public <R> Mono<R> post(String path, Class<R> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.POST, path,
                 webClient.post()
                         .uri(path)
                         .retrieve()
@@ -101,7 +452,7 @@ public class GarminWebClient {
      * Execute POST request with ParameterizedTypeReference
      */
     public <T, R> Mono<R> post(String path, T body, ParameterizedTypeReference<R> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.POST, path,
                 webClient.post()
                         .uri(path)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -115,7 +466,7 @@ public class GarminWebClient {
      * Execute PUT request with ParameterizedTypeReference
      */
     public <T, R> Mono<R> put(String path, T body, ParameterizedTypeReference<R> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.PUT, path,
                 webClient.put()
                         .uri(path)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -129,7 +480,7 @@ public class GarminWebClient {
      * Execute PUT request
      */
     public <T, R> Mono<R> put(String path, T body, Class<R> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.PUT, path,
                 webClient.put()
                         .uri(path)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -143,7 +494,7 @@ public class GarminWebClient {
      * Execute DELETE request
      */
     public <T> Mono<T> delete(String path, Class<T> responseType) {
-        return executeRequest(
+        return executeWrite(HttpMethod.DELETE, path,
                 webClient.delete()
                         .uri(path)
                         .retrieve()
@@ -155,7 +506,7 @@ public class GarminWebClient {
      * Execute DELETE request without response
      */
     public Mono<Void> delete(String path) {
-        return executeRequest(
+        return executeWrite(HttpMethod.DELETE, path,
                 webClient.delete()
                         .uri(path)
                         .retrieve()
@@ -164,14 +515,40 @@ public class GarminWebClient {
     }
 
     /**
-     * Execute request with resilience patterns
+     * Execute a write and evict the cached responses it affects.
+     * Only idempotent writes (PUT, DELETE) are retried.
      */
-    private <T> Mono<T> executeRequest(Mono<T> requestMono) {
-        return ensureAuthenticated()
-                .then(requestMono)
-                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
-                .transformDeferred(RateLimiterOperator.of(rateLimiter))
-                .transformDeferred(RetryOperator.of(retry))
+    private <T> Mono<T> executeWrite(HttpMethod method, String path, Mono<T> requestMono) {
+        return executeRequest(method, path, requestMono, method != HttpMethod.POST, false)
+                .doOnSuccess(response -> responseCache.invalidate(path));
+    }
+
+    /**
+     * Execute request with resilience patterns.
+     * Each attempt is bounded by the attempt timeout and the whole request, retries included,
+     * by the {@link RequestDeadline} in the subscriber's context, if any. A coalesced request runs with the
+     * context of the subscriber that started it, so later subscribers joining it share that deadline.
+     * A hedged read's second attempt takes its own rate limiter and bulkhead permits.
+     *
+     * @param idempotent Whether the request may be retried
+     * @param read       Whether the request only reads, so it may be hedged
+     */
+    private <T> Mono<T> executeRequest(HttpMethod method, String path, Mono<T> requestMono, boolean idempotent,
+                                       boolean read) {
+        return Mono.deferContextual(context -> {
+            Optional<Instant> deadline = RequestDeadline.from(context);
+            retryBudget.recordRequest();
+
+            Mono<T> attempt = adaptiveRateLimit.delayWhilePaused(ensureAuthenticated()
+                    .then(adaptiveRateLimit.decorate(requestMetrics.attempt(
+                            Mono.defer(() -> requestMono.timeout(attemptTimeout(deadline))))))
+                    .transform(mono -> withEndpointFamily(path, mono))
+                    .transformDeferred(RateLimiterOperator.of(rateLimiter)));
+            Mono<T> request = read ? requestHedger.hedge(path, () -> attempt) : attempt;
+            Mono<T> resilient = idempotent ? request.transformDeferred(RetryOperator.of(retry)) : request;
+            return deadline.map(at -> withDeadline(resilient, at)).orElse(resilient);
+        })
+                .transform(mono -> requestMetrics.instrument(method, path, mono))
                 .onErrorMap(this::mapException)
                 .doOnSuccess(response -> {
                     if (properties.getHttp().isLoggingEnabled()) {
@@ -182,24 +559,168 @@ public class GarminWebClient {
     }
 
     /**
-     * Ensure OAuth2 token is present and valid
+     * Execute streaming request with circuit breaker and rate limiting
+     */
+    private <T> Flux<T> executeStream(String path, Flux<T> requestFlux) {
+        return executeStream(path, requestFlux, false);
+    }
+
+    /**
+     * Execute streaming request with circuit breaker and rate limiting
+     *
+     * @param resumable Whether a failed stream may be retried, i.e. a new subscription continues where it failed
+     */
+    private <T> Flux<T> executeStream(String path, Flux<T> requestFlux, boolean resumable) {
+        return Flux.deferContextual(context -> {
+            retryBudget.recordRequest();
+            Flux<T> attempt = adaptiveRateLimit.delayWhilePaused(ensureAuthenticated()
+                    .thenMany(adaptiveRateLimit.decorate(requestMetrics.attempt(requestFlux)))
+                    .transform(flux -> withEndpointFamily(path, flux))
+                    .transformDeferred(RateLimiterOperator.of(rateLimiter)));
+            Flux<T> request = resumable ? attempt.transformDeferred(RetryOperator.of(retry)) : attempt;
+            return RequestDeadline.from(context)
+                    .map(at -> request.timeout(Mono.delay(remaining(at)), item -> Mono.never(),
+                            Flux.error(deadlineExceeded(at))))
+                    .orElse(request);
+        })
+                .transform(flux -> requestMetrics.instrument(HttpMethod.GET, path, flux))
+                .onErrorMap(this::mapException)
+                .doOnError(error -> log.error("Streaming request failed: {}", error.getMessage()));
+    }
+
+    /**
+     * Guard a request with the bulkhead and circuit breaker of its endpoint family
+     */
+    private <T> Mono<T> withEndpointFamily(String path, Mono<T> request) {
+        Mono<T> guarded = endpointFamilies.bulkhead(path)
+                .map(bulkhead -> request.transformDeferred(BulkheadOperator.of(bulkhead)))
+                .orElse(request);
+        return endpointFamilies.circuitBreaker(path)
+                .map(breaker -> guarded.transformDeferred(CircuitBreakerOperator.of(breaker)))
+                .orElse(guarded);
+    }
+
+    private <T> Flux<T> withEndpointFamily(String path, Flux<T> request) {
+        Flux<T> guarded = endpointFamilies.bulkhead(path)
+                .map(bulkhead -> request.transformDeferred(BulkheadOperator.of(bulkhead)))
+                .orElse(request);
+        return endpointFamilies.circuitBreaker(path)
+                .map(breaker -> guarded.transformDeferred(CircuitBreakerOperator.of(breaker)))
+                .orElse(guarded);
+    }
+
+    private <T> Mono<T> withDeadline(Mono<T> request, Instant deadline) {
+        Duration remaining = remaining(deadline);
+        if (remaining.isZero()) {
+            return Mono.error(deadlineExceeded(deadline));
+        }
+        return request.timeout(remaining, Mono.error(deadlineExceeded(deadline)));
+    }
+
+    /**
+     * Timeout of the next attempt: the configured attempt timeout, shortened to the time left before the deadline
+     */
+    private Duration attemptTimeout(Optional<Instant> deadline) {
+        Duration timeout = properties.getResilience().getRetry().getAttemptTimeout();
+        if (deadline.isPresent()) {
+            Duration remaining = remaining(deadline.get());
+            if (remaining.compareTo(timeout) < 0) {
+                timeout = remaining.isZero() ? Duration.ofMillis(1) : remaining;
+            }
+        }
+        return timeout;
+    }
+
+    private static Duration remaining(Instant deadline) {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static GarminClientException deadlineExceeded(Instant deadline) {
+        return new GarminClientException("Request deadline exceeded at " + deadline);
+    }
+
+    /**
+     * Restrict retries to failures worth retrying and to the shared retry budget.
+     * The budget is charged from the interval function, which Resilience4j only consults once it has decided
+     * to retry, so a request that used up its attempts spends nothing; a negative interval cancels the retry.
+     */
+    private Retry withRetryPolicy(Retry retry) {
+        RetryConfig config = retry.getRetryConfig();
+        Predicate<Throwable> configured = config.getExceptionPredicate();
+        IntervalBiFunction<Object> interval = config.getIntervalBiFunction();
+        return Retry.of(retry.getName(), RetryConfig.from(config)
+                .retryOnException(error -> configured.test(error) && isRetryable(error))
+                // Replaced by the wrapping interval function, which Resilience4j does not accept alongside it
+                .intervalFunction(null)
+                .intervalBiFunction((attempt, outcome) -> retryBudget.tryAcquireRetry()
+                        ? interval.apply(attempt, outcome)
+                        : -1L)
+                .build());
+    }
+
+    /**
+     * Whether a failed attempt may succeed when repeated: transport errors, attempt timeouts and retryable statuses
+     */
+    private boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return properties.getResilience().getRetry().getRetryableStatuses().contains(response.getStatusCode().value());
+        }
+        return error instanceof WebClientRequestException
+                || error instanceof TimeoutException
+                || error instanceof IOException;
+    }
+
+    /**
+     * Authorize each request with the current OAuth2 access token.
+     * Resolved per request, so a token stored after construction is picked up.
+     */
+    private static ExchangeFilterFunction bearerToken(TokenManager tokenManager) {
+        return (request, next) -> next.exchange(tokenManager.getOAuth2Token()
+                .map(token -> ClientRequest.from(request)
+                        .headers(headers -> headers.setBearerAuth(token.getAccessToken()))
+                        .build())
+                .orElse(request));
+    }
+
+    /**
+     * Ensure OAuth2 token is present and valid.
+     * An expired token is refreshed before the request, shared with concurrent requests; a token about to expire
+     * is refreshed in the background while the request goes ahead with it.
      */
     private Mono<Void> ensureAuthenticated() {
         return Mono.defer(() -> {
-            OAuth2Token token = tokenManager.getOAuth2Token()
-                    .orElseThrow(() -> new GarminAuthenticationException("No valid OAuth2 token found. Please authenticate first."));
-
-            if (tokenManager.needsRefresh() && properties.getOauth().isAutoRefresh()) {
-                log.info("Token needs refresh, initiating refresh flow...");
-                // In a real implementation, this would call the refresh token endpoint
-                // For now, we throw an exception to indicate re-authentication is needed
-                return Mono.error(new GarminAuthenticationException("Token expired, please re-authenticate"));
+            boolean autoRefresh = properties.getOauth().isAutoRefresh();
+            Optional<OAuth2Token> token = tokenManager.getOAuth2Token();
+            if (token.isEmpty()) {
+                if (autoRefresh && tokenRefresher.canRefresh()) {
+                    log.info("No valid OAuth2 token, refreshing before request...");
+                    return tokenRefresher.refresh().then();
+                }
+                return Mono.error(new GarminAuthenticationException("No valid OAuth2 token found. Please authenticate first."));
             }
 
+            if (autoRefresh) {
+                tokenRefresher.schedule(token.get());
+                if (tokenManager.needsRefresh() && tokenRefresher.canRefresh()) {
+                    log.info("Token needs refresh, refreshing in background...");
+                    tokenRefresher.refreshInBackground();
+                }
+            }
             return Mono.empty();
         });
     }
 
+    /**
+     * Stop background token renewal and remove the client's own meters, e.g. when the client is discarded
+     */
+    public void close() {
+        tokenRefresher.close();
+        endpointFamilies.close();
+        adaptiveRateLimit.close();
+        responseCache.close();
+    }
+
     /**
      * Map exceptions to domain-specific exceptions
      */
@@ -208,6 +729,10 @@ public class GarminWebClient {
             HttpStatusCode status = webEx.getStatusCode();
             String body = webEx.getResponseBodyAsString();
 
+            if (AdaptiveRateLimit.isThrottled(webEx)) {
+                return new GarminRateLimitException("Throttled by Garmin (" + status.value() + "): " + body,
+                        AdaptiveRateLimit.retryAfter(webEx.getHeaders(), Clock.systemUTC()), throwable);
+            }
             if (status.is4xxClientError()) {
                 if (status.value() == 401 || status.value() == 403) {
                     return new GarminAuthenticationException("Authentication failed: " + body, throwable);
@@ -222,9 +747,42 @@ public class GarminWebClient {
             return throwable;
         }
 
+        if (throwable instanceof TimeoutException) {
+            return new GarminClientException("Request timed out after "
+                    + properties.getResilience().getRetry().getAttemptTimeout(), throwable);
+        }
+
         return new GarminClientException("Unexpected error: " + throwable.getMessage(), throwable);
     }
 
+    /**
+     * Get client configuration
+     */
+    public GarminProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Get the response cache, e.g. to evict entries after out-of-band changes
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Get the circuit breakers and bulkheads of this client's endpoint families
+     */
+    public EndpointFamilies getEndpointFamilies() {
+        return endpointFamilies;
+    }
+
+    /**
+     * Get the adaptive controller of this client's rate limiter
+     */
+    public AdaptiveRateLimit getAdaptiveRateLimit() {
+        return adaptiveRateLimit;
+    }
+
     /**
      * Get WebClient for custom operations
      */
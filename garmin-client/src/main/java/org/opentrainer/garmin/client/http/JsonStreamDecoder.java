@@ -0,0 +1,238 @@
+package org.opentrainer.garmin.client.http;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonPointer;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.async.ByteArrayFeeder;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.core.json.JsonFactory;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.util.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Incremental decoder emitting the elements of one JSON array of a response body as they arrive.
+ * Bytes are fed to Jackson's non-blocking parser chunk by chunk and only the element being parsed
+ * is buffered, so memory use is bounded by the largest element rather than the whole payload.
+ */
+public class JsonStreamDecoder {
+
+    private final JsonMapper jsonMapper;
+    private final int maxElementSize;
+
+    /**
+     * @param maxElementSize Maximum size in bytes of a single array element
+     */
+    public JsonStreamDecoder(JsonMapper jsonMapper, int maxElementSize) {
+        this.jsonMapper = jsonMapper;
+        this.maxElementSize = maxElementSize;
+    }
+
+    /**
+     * Decode the elements of the array found at a JSON pointer
+     *
+     * @param body         Response body
+     * @param arrayPointer Location of the array, e.g. "" for a top-level array or "/activityDetailMetrics"
+     * @param elementType  Type each element is decoded to
+     */
+    public <T> Flux<T> decode(Flux<DataBuffer> body, String arrayPointer, Class<T> elementType) {
+        return decode(body, arrayPointer, jsonMapper.constructType(elementType));
+    }
+
+    /**
+     * Decode the elements of the array found at a JSON pointer
+     */
+    public <T> Flux<T> decode(Flux<DataBuffer> body, String arrayPointer, ParameterizedTypeReference<T> elementType) {
+        return decode(body, arrayPointer, jsonMapper.constructType(elementType.getType()));
+    }
+
+    /**
+     * Decode a whole body by handing each token to a reader as it is parsed, without buffering the body or its tokens
+     *
+     * @param readers Creates the reader of one body
+     */
+    public <T> Mono<T> decode(Flux<DataBuffer> body, Supplier<TokenReader<T>> readers) {
+        return Mono.defer(() -> {
+            ValueParser<T> parser = new ValueParser<>(readers.get());
+            return body
+                    .concatMapIterable(parser::feed)
+                    .concatWith(Mono.fromCallable(parser::endOfInput).flatMapIterable(values -> values))
+                    .next()
+                    .doFinally(signal -> parser.close());
+        });
+    }
+
+    private <T> Flux<T> decode(Flux<DataBuffer> body, String arrayPointer, JavaType elementType) {
+        JsonPointer pointer = JsonPointer.compile(arrayPointer);
+        return Flux.defer(() -> {
+            ArrayElementParser<T> parser = new ArrayElementParser<>(pointer, elementType);
+            return body
+                    .concatMapIterable(parser::feed)
+                    .concatWith(Mono.fromCallable(parser::endOfInput).flatMapIterable(elements -> elements))
+                    .doFinally(signal -> parser.close());
+        });
+    }
+
+    /**
+     * Incremental reader of a JSON value
+     */
+    @FunctionalInterface
+    public interface TokenReader<T> {
+
+        /**
+         * Consume the parser's current token
+         *
+         * @return The decoded value once the token completes it, otherwise null
+         */
+        T read(JsonParser parser, JsonToken token);
+    }
+
+    /**
+     * Parser state for one body read by a {@link TokenReader}
+     */
+    private class ValueParser<T> {
+
+        private final TokenReader<T> reader;
+        private final JsonParser parser;
+        private boolean started;
+        private boolean done;
+
+        ValueParser(TokenReader<T> reader) {
+            this.reader = reader;
+            this.parser = ((JsonFactory) jsonMapper.tokenStreamFactory())
+                    .createNonBlockingByteArrayParser(ObjectReadContext.empty());
+        }
+
+        List<T> feed(DataBuffer buffer) {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                ((ByteArrayFeeder) parser.nonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+                return parseAvailable();
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        List<T> endOfInput() {
+            parser.nonBlockingInputFeeder().endOfInput();
+            List<T> values = parseAvailable();
+            if (started && !done) {
+                throw new StreamReadException(parser, "Unexpected end of JSON body");
+            }
+            return values;
+        }
+
+        void close() {
+            parser.close();
+        }
+
+        private List<T> parseAvailable() {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                started = true;
+                T value = reader.read(parser, token);
+                if (value != null) {
+                    done = true;
+                    return List.of(value);
+                }
+            }
+            return List.of();
+        }
+    }
+
+    /**
+     * Parser state for one response body
+     */
+    private class ArrayElementParser<T> {
+
+        private final JsonPointer pointer;
+        private final JavaType elementType;
+        private final JsonParser parser;
+        private boolean inArray;
+        private boolean arrayDone;
+        private TokenBuffer element;
+        private int elementDepth;
+        private long elementStart;
+
+        ArrayElementParser(JsonPointer pointer, JavaType elementType) {
+            this.pointer = pointer;
+            this.elementType = elementType;
+            this.parser = ((JsonFactory) jsonMapper.tokenStreamFactory())
+                    .createNonBlockingByteArrayParser(ObjectReadContext.empty());
+        }
+
+        List<T> feed(DataBuffer buffer) {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                ((ByteArrayFeeder) parser.nonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+                return parseAvailable();
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        List<T> endOfInput() {
+            parser.nonBlockingInputFeeder().endOfInput();
+            return parseAvailable();
+        }
+
+        void close() {
+            parser.close();
+        }
+
+        private List<T> parseAvailable() {
+            List<T> decoded = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (arrayDone) {
+                    continue;
+                }
+                if (!inArray) {
+                    inArray = token == JsonToken.START_ARRAY
+                            && parser.streamReadContext().getParent().pathAsPointer().equals(pointer);
+                    continue;
+                }
+                if (element == null) {
+                    if (token == JsonToken.END_ARRAY) {
+                        arrayDone = true;
+                        continue;
+                    }
+                    element = TokenBuffer.forBuffering(parser, ObjectReadContext.empty());
+                    elementStart = parser.currentTokenLocation().getByteOffset();
+                    elementDepth = 0;
+                }
+
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    elementDepth++;
+                } else if (token.isStructEnd()) {
+                    elementDepth--;
+                }
+
+                if (parser.currentLocation().getByteOffset() - elementStart > maxElementSize) {
+                    throw new DataBufferLimitException(
+                            "Exceeded limit on max bytes per JSON array element: " + maxElementSize);
+                }
+                if (elementDepth == 0) {
+                    decoded.add(jsonMapper.readValue(element.asParser(), elementType));
+                    element.close();
+                    element = null;
+                }
+            }
+            return decoded;
+        }
+    }
+}
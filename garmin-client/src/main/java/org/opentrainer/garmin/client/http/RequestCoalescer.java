@@ -0,0 +1,67 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical requests.
+ * Concurrent subscribers asking for the same {@link RequestKey} share one in-flight request;
+ * the entry is dropped as soon as that request completes, fails or is cancelled by all subscribers.
+ * The shared request runs with the context of the subscriber that started it, e.g. its {@link RequestDeadline}.
+ */
+public class RequestCoalescer {
+
+    private final Map<RequestKey, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedHits;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.coalescedHits = Counter.builder("garmin.client.requests.coalesced")
+                .description("Requests served by joining an identical in-flight request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Join the in-flight request for the key, or start a new one from the supplier
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(RequestKey key, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            AtomicBoolean started = new AtomicBoolean();
+            Mono<?> shared = inFlight.computeIfAbsent(key, k -> {
+                started.set(true);
+                return share(k, request.get());
+            });
+            if (!started.get()) {
+                coalescedHits.increment();
+            }
+            return (Mono<T>) shared;
+        });
+    }
+
+    /**
+     * Number of requests currently in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private <T> Mono<T> share(RequestKey key, Mono<T> request) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        // refCount cancels the upstream once every subscriber has cancelled
+        Mono<T> shared = request
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .flux()
+                .publish()
+                .refCount(1)
+                .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,58 @@
+package org.opentrainer.garmin.client.http;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Overall deadline for Garmin requests, carried in the Reactor {@link Context}.
+ * Every request issued within the deadline's scope, including all of its retries, fails once the
+ * deadline has passed:
+ * <pre>
+ * {@code
+ * client.getDailySummary(displayName, date)
+ *         .contextWrite(RequestDeadline.within(Duration.ofSeconds(10)));
+ * }
+ * </pre>
+ * Nested deadlines never extend an outer one.
+ */
+public final class RequestDeadline {
+
+    private static final String CONTEXT_KEY = RequestDeadline.class.getName();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Context modifier setting a deadline the given time from now
+     */
+    public static Function<Context, Context> within(Duration timeout) {
+        return within(timeout, Clock.systemUTC());
+    }
+
+    static Function<Context, Context> within(Duration timeout, Clock clock) {
+        return context -> at(clock.instant().plus(timeout)).apply(context);
+    }
+
+    /**
+     * Context modifier setting an absolute deadline
+     */
+    public static Function<Context, Context> at(Instant deadline) {
+        return context -> from(context)
+                .filter(existing -> existing.isBefore(deadline))
+                .map(existing -> context)
+                .orElseGet(() -> context.put(CONTEXT_KEY, deadline));
+    }
+
+    /**
+     * Deadline in the context, if any
+     */
+    public static Optional<Instant> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+}
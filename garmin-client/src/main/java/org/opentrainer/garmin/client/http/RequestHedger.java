@@ -0,0 +1,159 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow idempotent GETs against tail latency.
+ * When a request to a configured path pattern has not answered within the pattern's observed latency
+ * percentile, a second identical request is sent and whichever answers first wins; the other is cancelled.
+ * A failed hedge is ignored, so the original request still decides the outcome. Hedges are capped by
+ * their own budget so that a slow upstream does not see doubled traffic, and each attempt acquires its own
+ * rate limiter and bulkhead permits, so a hedge rejected by either is simply not sent.
+ */
+@Slf4j
+public class RequestHedger {
+
+    private final GarminProperties.Resilience.Hedging config;
+    private final Clock clock;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final RetryBudget budget;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public RequestHedger(GarminProperties.Resilience.Hedging config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, Clock.systemUTC());
+    }
+
+    public RequestHedger(GarminProperties.Resilience.Hedging config, MeterRegistry meterRegistry, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.budget = new RetryBudget(config.getBudgetRatio(), config.getBudgetMinHedges(), config.getBudgetWindow(),
+                Counter.builder("garmin.client.hedge.budget.exhausted")
+                        .description("Hedges skipped because the hedge budget was spent")
+                        .register(meterRegistry),
+                clock);
+        this.hedges = Counter.builder("garmin.client.hedge.sent")
+                .description("Hedged requests sent")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder("garmin.client.hedge.wins")
+                .description("Hedged requests that answered before the original")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the request, hedging it when its path matches a configured pattern
+     *
+     * @param attempt Supplier of one request attempt, including its permits; called a second time for the hedge
+     */
+    public <T> Mono<T> hedge(String path, Supplier<Mono<T>> attempt) {
+        String pattern = patternFor(path);
+        if (pattern == null) {
+            return attempt.get();
+        }
+
+        return Mono.defer(() -> {
+            LatencyWindow window = latencies.computeIfAbsent(pattern, key -> new LatencyWindow(config.getSampleSize()));
+            budget.recordRequest();
+
+            Mono<T> primary = timed(attempt.get(), window);
+            Mono<T> hedge = Mono.delay(delayFor(window))
+                    .flatMap(tick -> {
+                        if (!budget.tryAcquireRetry()) {
+                            return Mono.never();
+                        }
+                        log.debug("Hedging slow request to {}", path);
+                        hedges.increment();
+                        return timed(attempt.get(), window).doOnSuccess(response -> hedgeWins.increment());
+                    })
+                    .onErrorResume(error -> Mono.never());
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * Delay after which a request to the given path would be hedged, or null when it is not hedged
+     */
+    public Duration delayFor(String path) {
+        String pattern = patternFor(path);
+        if (pattern == null) {
+            return null;
+        }
+        return delayFor(latencies.computeIfAbsent(pattern, key -> new LatencyWindow(config.getSampleSize())));
+    }
+
+    private Duration delayFor(LatencyWindow window) {
+        Long percentileMillis = window.percentile(config.getPercentile(), config.getMinSamples());
+        Duration delay = percentileMillis != null ? Duration.ofMillis(percentileMillis) : config.getInitialDelay();
+        if (delay.compareTo(config.getMinDelay()) < 0) {
+            return config.getMinDelay();
+        }
+        if (delay.compareTo(config.getMaxDelay()) > 0) {
+            return config.getMaxDelay();
+        }
+        return delay;
+    }
+
+    private <T> Mono<T> timed(Mono<T> request, LatencyWindow window) {
+        return Mono.defer(() -> {
+            long started = clock.millis();
+            return request.doOnSuccess(response -> window.record(clock.millis() - started));
+        });
+    }
+
+    private String patternFor(String path) {
+        if (config.getPaths().isEmpty()) {
+            return null;
+        }
+        int query = path.indexOf('?');
+        String pathOnly = query == -1 ? path : path.substring(0, query);
+        for (String pattern : config.getPaths()) {
+            if (pathMatcher.match(pattern, pathOnly)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ring buffer of the most recent successful latencies of one path pattern
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized Long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.opentrainer.garmin.client.http;
+
+import org.springframework.http.HttpMethod;
+
+import java.lang.reflect.Type;
+
+/**
+ * Identity of a Garmin request: method, path (including query) and expected response type.
+ */
+public record RequestKey(HttpMethod method, String path, Type responseType) {
+
+    public static RequestKey get(String path, Type responseType) {
+        return new RequestKey(HttpMethod.GET, path, responseType);
+    }
+}
@@ -0,0 +1,307 @@
+package org.opentrainer.garmin.client.http;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.EventType;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Micrometer instrumentation of Garmin requests.
+ * Records per request, tagged with method and URI template:
+ * <ul>
+ *   <li>{@code garmin.client.requests}: total time including retries, tagged with status, outcome and retries</li>
+ *   <li>{@code garmin.client.requests.wait}: time before the first attempt was sent, spent on authentication,
+ *       rate limiter permits, Retry-After pauses and bulkhead slots</li>
+ *   <li>{@code garmin.client.responses.size}: bytes of each response body</li>
+ *   <li>{@code garmin.client.responses.decode}: time from the last body byte to the decoded response</li>
+ * </ul>
+ * The URI template has numeric IDs, dates and UUIDs replaced. Display names cannot be told apart from fixed path
+ * segments, so they are only replaced in paths matching one of the configured {@code uriTemplates}; the defaults
+ * cover the display-name endpoints this client calls, and custom requests to others need a template of their own.
+ * The same data is committed as a {@link GarminRequestEvent} while a Flight Recorder recording enables it.
+ * The state of a request travels in the Reactor context, so the exchange filter can attribute response bodies to it.
+ */
+public class RequestMetrics {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern UUID = Pattern.compile("(?=.*\\d)[0-9a-fA-F-]{16,}");
+
+    private static final EventType REQUEST_EVENT = EventType.getEventType(GarminRequestEvent.class);
+
+    private final MeterRegistry meterRegistry;
+    private final GarminProperties.Metrics config;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RequestMetrics(GarminProperties.Metrics config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Time a request from subscription to termination
+     */
+    public <T> Mono<T> instrument(HttpMethod method, String path, Mono<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            Exchange exchange = new Exchange(method.name(), uriTemplate(path));
+            return request
+                    .doOnSuccess(response -> record(exchange, SignalType.ON_COMPLETE, null))
+                    .doOnError(error -> record(exchange, SignalType.ON_ERROR, error))
+                    .doOnCancel(() -> record(exchange, SignalType.CANCEL, null))
+                    .contextWrite(context -> context.put(Exchange.class, exchange));
+        });
+    }
+
+    /**
+     * Time a streaming request from subscription to termination
+     */
+    public <T> Flux<T> instrument(HttpMethod method, String path, Flux<T> request) {
+        if (!isEnabled()) {
+            return request;
+        }
+        return Flux.defer(() -> {
+            Exchange exchange = new Exchange(method.name(), uriTemplate(path));
+            return request
+                    .doOnComplete(() -> record(exchange, SignalType.ON_COMPLETE, null))
+                    .doOnError(error -> record(exchange, SignalType.ON_ERROR, error))
+                    .doOnCancel(() -> record(exchange, SignalType.CANCEL, null))
+                    .contextWrite(context -> context.put(Exchange.class, exchange));
+        });
+    }
+
+    /**
+     * Mark one attempt of an instrumented request, counting retries and timing the decoding of its response
+     */
+    public <T> Mono<T> attempt(Mono<T> attempt) {
+        return Mono.deferContextual(context -> {
+            Exchange exchange = context.getOrDefault(Exchange.class, null);
+            if (exchange == null) {
+                return attempt;
+            }
+            startAttempt(exchange);
+            return attempt.doOnSuccess(response -> recordDecode(exchange));
+        });
+    }
+
+    /**
+     * Mark the attempt of an instrumented streaming request
+     */
+    public <T> Flux<T> attempt(Flux<T> attempt) {
+        return Flux.deferContextual(context -> {
+            Exchange exchange = context.getOrDefault(Exchange.class, null);
+            if (exchange != null) {
+                startAttempt(exchange);
+            }
+            return attempt;
+        });
+    }
+
+    /**
+     * Exchange filter recording the status and body size of responses to instrumented requests
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            Exchange exchange = context.getOrDefault(Exchange.class, null);
+            if (exchange == null) {
+                return next.exchange(request);
+            }
+            return next.exchange(request).map(response -> {
+                exchange.status = response.statusCode().value();
+                AtomicLong bytes = new AtomicLong();
+                return response.mutate()
+                        .body(body -> body
+                                .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                .doOnComplete(() -> {
+                                    exchange.bodyCompletedAt = System.nanoTime();
+                                    exchange.bytes.addAndGet(bytes.get());
+                                    if (!config.isEnabled()) {
+                                        return;
+                                    }
+                                    DistributionSummary.builder("garmin.client.responses.size")
+                                            .description("Size of Garmin response bodies")
+                                            .baseUnit("bytes")
+                                            .tags(exchange.tags())
+                                            .publishPercentileHistogram(config.isPercentileHistogram())
+                                            .register(meterRegistry)
+                                            .record(bytes.get());
+                                }))
+                        .build();
+            });
+        });
+    }
+
+    /**
+     * URI template of a path: the first configured template it matches, otherwise the path without its query
+     * and with numeric IDs, dates and UUIDs replaced by {id}, {date} and {uuid}
+     */
+    public String uriTemplate(String path) {
+        int query = path.indexOf('?');
+        String pathOnly = query == -1 ? path : path.substring(0, query);
+        for (String template : config.getUriTemplates()) {
+            if (pathMatcher.match(template, pathOnly)) {
+                return template;
+            }
+        }
+
+        String[] segments = pathOnly.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (NUMBER.matcher(segments[i]).matches()) {
+                segments[i] = "{id}";
+            } else if (DATE.matcher(segments[i]).matches()) {
+                segments[i] = "{date}";
+            } else if (UUID.matcher(segments[i]).matches()) {
+                segments[i] = "{uuid}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    private void startAttempt(Exchange exchange) {
+        if (exchange.attempts.getAndIncrement() == 0) {
+            exchange.wait = System.nanoTime() - exchange.startedAt;
+            if (config.isEnabled()) {
+                Timer.builder("garmin.client.requests.wait")
+                        .description("Time Garmin requests waited before the first attempt was sent")
+                        .tags(exchange.tags())
+                        .register(meterRegistry)
+                        .record(exchange.wait, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void recordDecode(Exchange exchange) {
+        long bodyCompletedAt = exchange.bodyCompletedAt;
+        if (bodyCompletedAt == 0 || !config.isEnabled()) {
+            return;
+        }
+        Timer.builder("garmin.client.responses.decode")
+                .description("Time to decode Garmin response bodies")
+                .tags(exchange.tags())
+                .publishPercentileHistogram(config.isPercentileHistogram())
+                .register(meterRegistry)
+                .record(System.nanoTime() - bodyCompletedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private void record(Exchange exchange, SignalType signal, Throwable error) {
+        // A Mono may still see a cancel after it has completed
+        if (!exchange.recorded.compareAndSet(false, true)) {
+            return;
+        }
+        int status = error instanceof WebClientResponseException response
+                ? response.getStatusCode().value()
+                : exchange.status;
+        String outcome = outcome(signal, error, status);
+        int attempts = exchange.attempts.get();
+        if (config.isEnabled()) {
+            Timer.builder("garmin.client.requests")
+                    .description("Garmin requests, including retries")
+                    .tags(exchange.tags())
+                    .tag("status", status > 0 ? String.valueOf(status) : "NONE")
+                    .tag("outcome", outcome)
+                    .tag("retries", String.valueOf(Math.max(0, attempts - 1)))
+                    .publishPercentileHistogram(config.isPercentileHistogram())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - exchange.startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        GarminRequestEvent event = exchange.event;
+        if (event != null && event.shouldCommit()) {
+            event.method = exchange.method;
+            event.uri = exchange.uri;
+            event.status = status;
+            event.outcome = outcome;
+            event.attempts = attempts;
+            event.bytes = exchange.bytes.get();
+            event.wait = exchange.wait;
+            event.commit();
+        }
+    }
+
+    /**
+     * Whether meters are recorded or a Flight Recorder recording takes request events
+     */
+    private boolean isEnabled() {
+        return config.isEnabled() || REQUEST_EVENT.isEnabled();
+    }
+
+    private static String outcome(SignalType signal, Throwable error, int status) {
+        if (signal == SignalType.CANCEL) {
+            return "CANCELLED";
+        }
+        if (error == null) {
+            return "SUCCESS";
+        }
+        if (error instanceof CallNotPermittedException
+                || error instanceof BulkheadFullException
+                || error instanceof RequestNotPermitted) {
+            return "REJECTED";
+        }
+        if (error instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        if (error instanceof WebClientResponseException response && AdaptiveRateLimit.isThrottled(response)) {
+            return "THROTTLED";
+        }
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return "ERROR";
+    }
+
+    /**
+     * State of one instrumented request, shared by its attempts through the Reactor context
+     */
+    private static final class Exchange {
+
+        private final String method;
+        private final String uri;
+        private final long startedAt = System.nanoTime();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final AtomicLong bytes = new AtomicLong();
+        private final GarminRequestEvent event;
+        private volatile int status;
+        private volatile long bodyCompletedAt;
+        private volatile long wait;
+
+        Exchange(String method, String uri) {
+            this.method = method;
+            this.uri = uri;
+            if (REQUEST_EVENT.isEnabled()) {
+                event = new GarminRequestEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        Tags tags() {
+            return Tags.of("method", method, "uri", uri);
+        }
+    }
+}
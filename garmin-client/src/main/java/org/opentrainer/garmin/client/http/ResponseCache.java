@@ -0,0 +1,232 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded in-memory cache of decoded GET responses.
+ * Entries expire after the TTL configured for their path pattern and the least recently used
+ * entry is evicted once the cache is full. Cached values are shared between callers and must be
+ * treated as read-only.
+ */
+@Slf4j
+public class ResponseCache {
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+    private final GarminProperties.Cache config;
+    private final Clock clock;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<RequestKey, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final MeterRegistry meterRegistry;
+    private final Gauge sizeGauge;
+
+    /**
+     * @param client Name of the owning client, tagging its cache size
+     */
+    public ResponseCache(String client, GarminProperties.Cache config, MeterRegistry meterRegistry) {
+        this(client, config, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    public ResponseCache(String client, GarminProperties.Cache config, MeterRegistry meterRegistry, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RequestKey, Entry> eldest) {
+                return size() > config.getMaxEntries();
+            }
+        };
+        this.hits = Counter.builder("garmin.client.cache.hits")
+                .description("GET responses served from the response cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("garmin.client.cache.misses")
+                .description("Cacheable GET responses fetched from Garmin")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.sizeGauge = Gauge.builder("garmin.client.cache.size", this, ResponseCache::size)
+                .description("Responses currently cached")
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Remove the client's cache size gauge; hit and miss counters are shared by all clients
+     */
+    public void close() {
+        meterRegistry.remove(sizeGauge);
+    }
+
+    /**
+     * Serve the response from cache when fresh, otherwise load and cache it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> getOrLoad(RequestKey key, Supplier<Mono<T>> loader) {
+        Duration ttl = ttlFor(key.path());
+        if (ttl == null) {
+            return loader.get();
+        }
+
+        return Mono.defer(() -> {
+            Object cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                return Mono.just((T) cached);
+            }
+            misses.increment();
+            long loadGeneration = generation.get();
+            return loader.get().doOnNext(value -> store(key, value, ttl, loadGeneration));
+        });
+    }
+
+    /**
+     * Evict entries affected by a successful write to the given path.
+     * Responses in flight are discarded when the write matches a cached entry or an invalidation rule.
+     */
+    public void invalidate(String writePath) {
+        String path = stripQuery(writePath);
+        List<String> evictPatterns = config.getInvalidations().stream()
+                .filter(invalidation -> pathMatcher.match(invalidation.getPattern(), path))
+                .flatMap(invalidation -> {
+                    Map<String, String> variables =
+                            pathMatcher.extractUriTemplateVariables(invalidation.getPattern(), path);
+                    return invalidation.getEvict().stream().map(pattern -> expand(pattern, variables));
+                })
+                .toList();
+
+        synchronized (entries) {
+            boolean evicted = entries.keySet().removeIf(key -> {
+                String cachedPath = stripQuery(key.path());
+                return cachedPath.equals(path)
+                        || evictPatterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, cachedPath));
+            });
+            // Writes that affect nothing cached leave responses in flight to be stored
+            if (evicted || !evictPatterns.isEmpty()) {
+                generation.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Evict all entries
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Number of cached responses, including expired ones not yet evicted
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Resolve the TTL for a path, or null when the path is not cacheable
+     */
+    Duration ttlFor(String requestPath) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+
+        String path = stripQuery(requestPath);
+        for (GarminProperties.Cache.Rule rule : config.getRules()) {
+            if (pathMatcher.match(rule.getPattern(), path)) {
+                return rule.getTtl();
+            }
+        }
+
+        Duration historicalTtl = config.getHistoricalTtl();
+        if (!historicalTtl.isZero() && referencesOnlyPastDates(requestPath)) {
+            return historicalTtl;
+        }
+        return null;
+    }
+
+    private Object lookup(RequestKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!clock.instant().isBefore(entry.expiresAt())) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    private void store(RequestKey key, Object value, Duration ttl, long loadGeneration) {
+        synchronized (entries) {
+            // A write invalidated the cache while this response was in flight
+            if (generation.get() != loadGeneration) {
+                log.debug("Discarding response for {} loaded before an invalidation", key.path());
+                return;
+            }
+            entries.put(key, new Entry(value, clock.instant().plus(ttl)));
+        }
+    }
+
+    /**
+     * Whether the path names dates, all at least the configured delay behind today on the server
+     */
+    private boolean referencesOnlyPastDates(String path) {
+        LocalDate latest = LocalDate.now(clock).minusDays(config.getHistoricalDelayDays());
+        Matcher matcher = ISO_DATE.matcher(path);
+        boolean found = false;
+        while (matcher.find()) {
+            try {
+                if (LocalDate.parse(matcher.group()).isAfter(latest)) {
+                    return false;
+                }
+                found = true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return found;
+    }
+
+    private static String expand(String pattern, Map<String, String> variables) {
+        String expanded = pattern;
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            expanded = expanded.replace("{" + variable.getKey() + "}", variable.getValue());
+        }
+        return expanded;
+    }
+
+    private static String stripQuery(String path) {
+        int query = path.indexOf('?');
+        return query == -1 ? path : path.substring(0, query);
+    }
+
+    private record Entry(Object value, Instant expiresAt) {
+    }
+}
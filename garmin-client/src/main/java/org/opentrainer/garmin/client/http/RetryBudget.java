@@ -0,0 +1,98 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opentrainer.garmin.config.GarminProperties;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Caps retries at a fraction of recent traffic, so an upstream brownout cannot multiply load.
+ * Requests and retries are counted in one-second buckets over a sliding window; a retry is allowed
+ * while retries in the window stay below {@code ratio} times the requests, with a small floor so
+ * that low-traffic clients can still retry. One budget is shared by all clients of an application.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final int minRetries;
+    private final Clock clock;
+    private final long[] bucketSeconds;
+    private final long[] requests;
+    private final long[] retries;
+    private final Counter exhausted;
+
+    public RetryBudget(GarminProperties.Resilience.Retry config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, Clock.systemUTC());
+    }
+
+    public RetryBudget(GarminProperties.Resilience.Retry config, MeterRegistry meterRegistry, Clock clock) {
+        this(config.getBudgetRatio(), config.getBudgetMinRetries(), config.getBudgetWindow(),
+                Counter.builder("garmin.client.retry.budget.exhausted")
+                        .description("Retries skipped because the retry budget was spent")
+                        .register(meterRegistry),
+                clock);
+    }
+
+    /**
+     * Budget with explicit limits, e.g. for hedged requests
+     *
+     * @param exhausted Counter of attempts refused by the budget
+     */
+    RetryBudget(double ratio, int minRetries, Duration window, Counter exhausted, Clock clock) {
+        int windowSeconds = Math.toIntExact(Math.max(1, window.toSeconds()));
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+        this.clock = clock;
+        this.bucketSeconds = new long[windowSeconds];
+        this.requests = new long[windowSeconds];
+        this.retries = new long[windowSeconds];
+        this.exhausted = exhausted;
+    }
+
+    /**
+     * Record an original (non-retry) request
+     */
+    public synchronized void recordRequest() {
+        requests[bucket()]++;
+    }
+
+    /**
+     * Withdraw one retry from the budget
+     *
+     * @return false when the budget is spent and the request must not be retried
+     */
+    public synchronized boolean tryAcquireRetry() {
+        int current = bucket();
+        long now = bucketSeconds[current];
+        long requestCount = 0;
+        long retryCount = 0;
+        for (int i = 0; i < bucketSeconds.length; i++) {
+            if (now - bucketSeconds[i] < bucketSeconds.length) {
+                requestCount += requests[i];
+                retryCount += retries[i];
+            }
+        }
+        if (retryCount >= Math.max(minRetries, ratio * requestCount)) {
+            exhausted.increment();
+            return false;
+        }
+        retries[current]++;
+        return true;
+    }
+
+    /**
+     * Index of the current second's bucket, clearing buckets that fell out of the window
+     */
+    private int bucket() {
+        long second = clock.millis() / 1000;
+        int index = (int) (second % bucketSeconds.length);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,102 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded store of response validators (ETag / Last-Modified) and the bodies they validate.
+ * Used to send conditional GETs and to answer a 304 Not Modified with the stored body.
+ */
+public class ValidatorStore {
+
+    private final GarminProperties.Cache config;
+    private final Map<RequestKey, Validated> entries;
+    private final Counter notModified;
+    private final Counter modified;
+
+    public ValidatorStore(GarminProperties.Cache config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RequestKey, Validated> eldest) {
+                return size() > config.getMaxValidatorEntries();
+            }
+        };
+        this.notModified = Counter.builder("garmin.client.revalidations")
+                .description("Conditional GETs by outcome")
+                .tag("outcome", "not_modified")
+                .register(meterRegistry);
+        this.modified = Counter.builder("garmin.client.revalidations")
+                .description("Conditional GETs by outcome")
+                .tag("outcome", "modified")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the validators stored for the request, or null when none are known
+     */
+    public Validated lookup(RequestKey key) {
+        if (!config.isConditionalRequestsEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Resolve the body of a (possibly conditional) response and remember its validators
+     *
+     * @param sent validators sent with the request, null for an unconditional request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(RequestKey key, Validated sent, ResponseEntity<T> response) {
+        if (sent != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            notModified.increment();
+            return (T) sent.body();
+        }
+        if (sent != null) {
+            modified.increment();
+        }
+
+        HttpHeaders headers = response.getHeaders();
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        T body = response.getBody();
+        if (config.isConditionalRequestsEnabled() && body != null && (etag != null || lastModified != null)) {
+            synchronized (entries) {
+                entries.put(key, new Validated(etag, lastModified, body));
+            }
+        } else if (sent != null) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Validators of a stored response together with its decoded body
+     */
+    public record Validated(String etag, String lastModified, Object body) {
+
+        /**
+         * Add If-None-Match / If-Modified-Since headers to a request
+         */
+        public void applyTo(HttpHeaders headers) {
+            if (etag != null) {
+                headers.setIfNoneMatch(etag);
+            }
+            if (lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+    }
+}
@@ -4,12 +4,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opentrainer.garmin.client.http.GarminWebClient;
 import org.opentrainer.garmin.model.Activity;
+import org.opentrainer.garmin.model.ActivityDownloadFormat;
+import org.opentrainer.garmin.model.ActivityDetails;
+import org.opentrainer.garmin.model.ActivitySplits;
+import org.opentrainer.garmin.model.ActivityStreams;
 import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Service for activity operations
@@ -29,6 +36,63 @@ public class ActivityService {
         return webClient.get(path, new ParameterizedTypeReference<List<Activity>>() {});
     }
 
+    /**
+     * Get one page of activities, emitting each activity as it is decoded.
+     * Suited to large limits, where the page is never held in memory as a whole.
+     */
+    public Flux<Activity> getActivitiesFlux(int start, int limit) {
+        String path = String.format("/activitylist-service/activities/search/activities?start=%d&limit=%d",
+                start, limit);
+        return webClient.getFlux(path, Activity.class);
+    }
+
+    /**
+     * Stream all activities, newest first, paging through the activity list.
+     * The next page is fetched while the current one is consumed and no more than two pages
+     * are held in memory, whatever the downstream demand.
+     *
+     * @param pageSize Number of activities requested per page
+     */
+    public Flux<Activity> streamActivities(int pageSize) {
+        return streamActivities(pageSize, activity -> false);
+    }
+
+    /**
+     * Stream activities, newest first, until one matches the stop condition.
+     * The matching activity is not emitted and no further pages are requested.
+     *
+     * @param pageSize Number of activities requested per page
+     * @param stopAt   Boundary condition, e.g. the last activity already synchronized
+     */
+    public Flux<Activity> streamActivities(int pageSize, Predicate<Activity> stopAt) {
+        if (pageSize <= 0) {
+            return Flux.error(new IllegalArgumentException("pageSize must be positive"));
+        }
+        return Flux.range(0, Integer.MAX_VALUE)
+                // The next page is requested as soon as the current one is handed downstream
+                .flatMapSequential(page -> getActivities(page * pageSize, pageSize), 1, 1)
+                .takeUntil(page -> page.size() < pageSize)
+                // No prefetch: a buffered page is only taken once the current one is fully consumed
+                .concatMap(Flux::fromIterable, 0)
+                .takeWhile(activity -> !stopAt.test(activity));
+    }
+
+    /**
+     * Stream activities started on or after the given date, newest first
+     */
+    public Flux<Activity> streamActivitiesSince(LocalDate since, int pageSize) {
+        return streamActivities(pageSize, activity -> activity.getStartTimeLocal() != null
+                && activity.getStartTimeLocal().toLocalDate().isBefore(since));
+    }
+
+    /**
+     * Stream activities newer than the given activity ID, newest first
+     */
+    public Flux<Activity> streamActivitiesAfter(Long lastActivityId, int pageSize) {
+        return streamActivities(pageSize, activity -> activity.getActivityId() != null
+                && activity.getActivityId() <= lastActivityId);
+    }
+
     /**
      * Get activity by ID
      */
@@ -45,6 +109,38 @@ public class ActivityService {
         return webClient.get(path, new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get activity details decoded into a typed model, avoiding the map tree built by {@link #getActivityDetails}
+     */
+    public Mono<ActivityDetails> getTypedActivityDetails(Long activityId, int maxChartSize, int maxPolylineSize) {
+        String path = String.format("/activity-service/activity/%d/details?maxChartSize=%d&maxPolylineSize=%d",
+                activityId, maxChartSize, maxPolylineSize);
+        return webClient.get(path, ActivityDetails.class);
+    }
+
+    /**
+     * Get an activity's chart data as one primitive column per metric.
+     * Prefer this over {@link #getActivityDetails} for analysis of long activities: no per-sample objects are created,
+     * and the columns are filled as the body arrives rather than from a buffered copy of it.
+     * Results are not kept in the response cache.
+     */
+    public Mono<ActivityStreams> getActivityStreams(Long activityId, int maxChartSize) {
+        String path = String.format("/activity-service/activity/%d/details?maxChartSize=%d&maxPolylineSize=0",
+                activityId, maxChartSize);
+        return webClient.getStreamed(path, () -> new ActivityStreams.Reader()::read);
+    }
+
+    /**
+     * Stream the chart rows of an activity's details as they are received.
+     * Unlike {@link #getActivityDetails}, the response is never held in memory as a whole,
+     * which keeps large {@code maxChartSize} requests cheap.
+     */
+    public Flux<Map<String, Object>> streamActivityDetailMetrics(Long activityId, int maxChartSize) {
+        String path = String.format("/activity-service/activity/%d/details?maxChartSize=%d&maxPolylineSize=0",
+                activityId, maxChartSize);
+        return webClient.getFlux(path, "/activityDetailMetrics", new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
     /**
      * Get activity splits
      */
@@ -53,6 +149,13 @@ public class ActivityService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get activity laps decoded into a typed model
+     */
+    public Mono<ActivitySplits> getActivityLaps(Long activityId) {
+        return webClient.get("/activity-service/activity/" + activityId + "/splits", ActivitySplits.class);
+    }
+
     /**
      * Get activity weather
      */
@@ -61,6 +164,16 @@ public class ActivityService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Download an activity file to disk, streaming it without buffering the whole file in memory.
+     * Interrupted downloads resume from {@code <target>.part} on retry or on the next call.
+     *
+     * @return The target path, once the complete file has been moved there
+     */
+    public Mono<Path> downloadActivity(Long activityId, ActivityDownloadFormat format, Path target) {
+        return webClient.download(format.path(activityId), target);
+    }
+
     /**
      * Update activity name
      */
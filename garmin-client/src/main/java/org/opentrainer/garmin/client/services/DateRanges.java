@@ -0,0 +1,40 @@
+package org.opentrainer.garmin.client.services;
+
+import org.opentrainer.garmin.model.DatedResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Bounded-concurrency fan-out of a day-scoped request over a date range
+ */
+final class DateRanges {
+
+    private DateRanges() {
+    }
+
+    /**
+     * Request every day from start to end (inclusive), reporting per-day failures as results
+     */
+    static <T> Flux<DatedResult<T>> fetch(
+            LocalDate start,
+            LocalDate end,
+            RangeOptions options,
+            Function<LocalDate, Mono<T>> perDay) {
+        if (end.isBefore(start)) {
+            return Flux.error(new IllegalArgumentException("end date " + end + " is before start date " + start));
+        }
+
+        Flux<LocalDate> days = Flux.fromStream(() -> start.datesUntil(end.plusDays(1)));
+        Function<LocalDate, Mono<DatedResult<T>>> fetchDay = day -> perDay.apply(day)
+                .map(value -> DatedResult.success(day, value))
+                .defaultIfEmpty(DatedResult.success(day, null))
+                .onErrorResume(error -> Mono.just(DatedResult.failure(day, error)));
+
+        return options.ordered()
+                ? days.flatMapSequential(fetchDay, options.concurrency())
+                : days.flatMap(fetchDay, options.concurrency());
+    }
+}
@@ -0,0 +1,131 @@
+package org.opentrainer.garmin.client.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opentrainer.garmin.client.graphql.GraphQLQuery;
+import org.opentrainer.garmin.client.graphql.GraphQLResponse;
+import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.model.DailyHealthSnapshot.Component;
+import org.opentrainer.garmin.model.DailySummary;
+import org.opentrainer.garmin.model.SleepData;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service for the Garmin Connect GraphQL gateway.
+ * Combines several day-scoped metric requests into a single POST, which costs one round trip
+ * and one rate limiter permit instead of one per metric.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class GraphQLService {
+
+    private static final String GRAPHQL_PATH = "/graphql-gateway/graphql";
+
+    /**
+     * Gateway fields for the snapshot components available through GraphQL
+     */
+    private static final Map<Component, DailyField> DAILY_FIELDS = new EnumMap<>(Map.of(
+            Component.SUMMARY, new DailyField("userDailySummaryV2Scalar", DailySummary.class, DailyField::range),
+            Component.SLEEP, new DailyField("sleepScalar", SleepData.class, DailyField::sleep),
+            Component.HRV, new DailyField("heartRateVariabilityScalar", Map.class, DailyField::range),
+            Component.TRAINING_READINESS, new DailyField("trainingReadinessRangeScalar", Map.class, DailyField::range),
+            Component.TRAINING_STATUS, new DailyField("trainingStatusDailyScalar", Map.class,
+                    date -> Map.of("calendarDate", date))
+    ));
+
+    private final GarminWebClient webClient;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Snapshot components that can be fetched through the gateway
+     */
+    public static Set<Component> supportedComponents() {
+        return DAILY_FIELDS.keySet();
+    }
+
+    /**
+     * Execute a query; queries only read, so they are retried and leave the response cache alone
+     */
+    public Mono<GraphQLResponse> execute(GraphQLQuery query) {
+        return webClient.query(GRAPHQL_PATH, Map.of("query", query.render()), GraphQLResponse.class);
+    }
+
+    /**
+     * Fetch several day-scoped metrics in one request.
+     * Values are decoded into the same types the REST services return, and are empty when the day has no
+     * data for the component; components the gateway does not support or could not resolve are absent
+     * from the result.
+     */
+    public Mono<Map<Component, Optional<Object>>> getDailyMetrics(LocalDate date, Set<Component> components) {
+        GraphQLQuery.Builder builder = GraphQLQuery.builder();
+        Map<String, Component> aliases = new LinkedHashMap<>();
+        for (Component component : components) {
+            DailyField field = DAILY_FIELDS.get(component);
+            if (field != null) {
+                String alias = component.name().toLowerCase();
+                builder.field(alias, field.name(), field.arguments().apply(date));
+                aliases.put(alias, component);
+            }
+        }
+        GraphQLQuery query = builder.build();
+        if (query.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return execute(query).map(response -> {
+            if (response.hasErrors()) {
+                log.debug("GraphQL gateway reported errors for {}: {}", date, response.getErrors());
+            }
+            Map<Component, Optional<Object>> values = new EnumMap<>(Component.class);
+            aliases.forEach((alias, component) -> {
+                if (response.isResolved(alias)) {
+                    values.put(component,
+                            Optional.ofNullable(decode(response.field(alias), DAILY_FIELDS.get(component).type())));
+                }
+            });
+            return values;
+        });
+    }
+
+    private Object decode(JsonNode node, Class<?> type) {
+        // Range fields return one element per day
+        if (node != null && node.isArray()) {
+            node = node.isEmpty() ? null : node.get(0);
+        }
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        JavaType javaType = type == Map.class
+                ? jsonMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class)
+                : jsonMapper.constructType(type);
+        return jsonMapper.treeToValue(node, javaType);
+    }
+
+    private record DailyField(String name, Class<?> type, Function<LocalDate, Map<String, ?>> arguments) {
+
+        static Map<String, ?> range(LocalDate date) {
+            Map<String, Object> arguments = new LinkedHashMap<>();
+            arguments.put("startDate", date);
+            arguments.put("endDate", date);
+            return arguments;
+        }
+
+        static Map<String, ?> sleep(LocalDate date) {
+            Map<String, Object> arguments = new LinkedHashMap<>();
+            arguments.put("date", date);
+            arguments.put("sleepOnly", false);
+            return arguments;
+        }
+    }
+}
@@ -5,12 +5,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.opentrainer.garmin.client.http.GarminWebClient;
 import org.opentrainer.garmin.model.BodyBattery;
 import org.opentrainer.garmin.model.DailySummary;
+import org.opentrainer.garmin.model.DatedResult;
 import org.opentrainer.garmin.model.HeartRateData;
+import org.opentrainer.garmin.model.HrvData;
+import org.opentrainer.garmin.model.SpO2Data;
+import org.opentrainer.garmin.model.StressData;
+import org.opentrainer.garmin.model.TrainingReadiness;
+import org.opentrainer.garmin.model.TrainingStatus;
 import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Service for health metrics operations
@@ -157,6 +166,13 @@ public class HealthMetricsService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get HRV data decoded into a typed model, avoiding the map tree built by {@link #getHRVData}
+     */
+    public Mono<HrvData> getHrv(LocalDate date) {
+        return webClient.get("/hrv-service/hrv/" + date.toString(), HrvData.class);
+    }
+
     /**
      * Get training readiness
      */
@@ -165,6 +181,14 @@ public class HealthMetricsService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get the training readiness scores of a day decoded into typed models
+     */
+    public Mono<List<TrainingReadiness>> getTrainingReadinessEntries(LocalDate date) {
+        return webClient.get("/metrics-service/metrics/trainingreadiness/" + date.toString(),
+                new ParameterizedTypeReference<List<TrainingReadiness>>() {});
+    }
+
     /**
      * Get training status
      */
@@ -173,6 +197,14 @@ public class HealthMetricsService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get training status decoded into a typed model
+     */
+    public Mono<TrainingStatus> getTrainingStatusAggregate(LocalDate date) {
+        return webClient.get("/metrics-service/metrics/trainingstatus/aggregated/" + date.toString(),
+                TrainingStatus.class);
+    }
+
     /**
      * Get SpO2 data
      */
@@ -181,6 +213,13 @@ public class HealthMetricsService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get SpO2 data decoded into a typed model
+     */
+    public Mono<SpO2Data> getSpO2(LocalDate date) {
+        return webClient.get("/wellness-service/wellness/daily/spo2/" + date.toString(), SpO2Data.class);
+    }
+
     /**
      * Get respiration data
      */
@@ -197,6 +236,13 @@ public class HealthMetricsService {
                 new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
+    /**
+     * Get stress data decoded into a typed model
+     */
+    public Mono<StressData> getStress(LocalDate date) {
+        return webClient.get("/wellness-service/wellness/dailyStress/" + date.toString(), StressData.class);
+    }
+
     /**
      * Get intensity minutes
      */
@@ -221,4 +267,93 @@ public class HealthMetricsService {
                 startDate.toString(), endDate.toString());
         return webClient.get(path, new ParameterizedTypeReference<Map<String, Object>>() {});
     }
+
+    // ==================== Date Ranges ====================
+
+    /**
+     * Request a day-scoped metric for every day from start to end (inclusive) with the configured
+     * concurrency and ordering. A failing day is reported as a failed result and does not fail the range.
+     */
+    public <T> Flux<DatedResult<T>> forRange(LocalDate startDate, LocalDate endDate,
+                                              Function<LocalDate, Mono<T>> perDay) {
+        return forRange(startDate, endDate, RangeOptions.from(webClient.getProperties().getRange()), perDay);
+    }
+
+    /**
+     * Request a day-scoped metric for every day from start to end (inclusive)
+     */
+    public <T> Flux<DatedResult<T>> forRange(LocalDate startDate, LocalDate endDate, RangeOptions options,
+                                              Function<LocalDate, Mono<T>> perDay) {
+        return DateRanges.fetch(startDate, endDate, options, perDay);
+    }
+
+    /**
+     * Get daily summaries for a date range
+     */
+    public Flux<DatedResult<DailySummary>> getDailySummaryRange(String displayName, LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, date -> getDailySummary(displayName, date));
+    }
+
+    /**
+     * Get heart rate data for a date range
+     */
+    public Flux<DatedResult<HeartRateData>> getHeartRatesRange(String displayName, LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, date -> getHeartRates(displayName, date));
+    }
+
+    /**
+     * Get body battery data for a date range
+     */
+    public Flux<DatedResult<BodyBattery>> getBodyBatteryRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getBodyBattery);
+    }
+
+    /**
+     * Get HRV data for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getHRVDataRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getHRVData);
+    }
+
+    /**
+     * Get training readiness for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getTrainingReadinessRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getTrainingReadiness);
+    }
+
+    /**
+     * Get training status for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getTrainingStatusRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getTrainingStatus);
+    }
+
+    /**
+     * Get SpO2 data for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getSpO2DataRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getSpO2Data);
+    }
+
+    /**
+     * Get respiration data for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getRespirationDataRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getRespirationData);
+    }
+
+    /**
+     * Get stress data for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getStressDataRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getStressData);
+    }
+
+    /**
+     * Get intensity minutes for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getIntensityMinutesRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getIntensityMinutes);
+    }
 }
@@ -0,0 +1,30 @@
+package org.opentrainer.garmin.client.services;
+
+import org.opentrainer.garmin.config.GarminProperties;
+
+/**
+ * Fan-out options for date-range requests.
+ *
+ * @param concurrency Maximum number of days requested at the same time
+ * @param ordered     Emit results in date order rather than as they complete
+ */
+public record RangeOptions(int concurrency, boolean ordered) {
+
+    public RangeOptions {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+    }
+
+    public static RangeOptions from(GarminProperties.Range range) {
+        return new RangeOptions(range.getConcurrency(), range.isOrdered());
+    }
+
+    public RangeOptions withConcurrency(int concurrency) {
+        return new RangeOptions(concurrency, ordered);
+    }
+
+    public RangeOptions unordered() {
+        return new RangeOptions(concurrency, false);
+    }
+}
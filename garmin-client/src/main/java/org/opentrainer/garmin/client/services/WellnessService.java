@@ -3,13 +3,16 @@ package org.opentrainer.garmin.client.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.model.DatedResult;
 import org.opentrainer.garmin.model.SleepData;
 import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Service for wellness and sleep operations
@@ -186,4 +189,44 @@ public class WellnessService {
                 displayName, date.toString());
         return webClient.get(path, new ParameterizedTypeReference<Map<String, Object>>() {});
     }
+
+    // ==================== Date Ranges ====================
+
+    /**
+     * Request a day-scoped metric for every day from start to end (inclusive) with the configured
+     * concurrency and ordering. A failing day is reported as a failed result and does not fail the range.
+     */
+    public <T> Flux<DatedResult<T>> forRange(LocalDate startDate, LocalDate endDate,
+                                              Function<LocalDate, Mono<T>> perDay) {
+        return forRange(startDate, endDate, RangeOptions.from(webClient.getProperties().getRange()), perDay);
+    }
+
+    /**
+     * Request a day-scoped metric for every day from start to end (inclusive)
+     */
+    public <T> Flux<DatedResult<T>> forRange(LocalDate startDate, LocalDate endDate, RangeOptions options,
+                                              Function<LocalDate, Mono<T>> perDay) {
+        return DateRanges.fetch(startDate, endDate, options, perDay);
+    }
+
+    /**
+     * Get sleep data for a date range
+     */
+    public Flux<DatedResult<SleepData>> getSleepDataRange(String displayName, LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, date -> getSleepData(displayName, date));
+    }
+
+    /**
+     * Get hydration data for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getHydrationDataRange(LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, this::getHydrationData);
+    }
+
+    /**
+     * Get resting heart rate for a date range
+     */
+    public Flux<DatedResult<Map<String, Object>>> getRHRDayRange(String displayName, LocalDate startDate, LocalDate endDate) {
+        return forRange(startDate, endDate, date -> getRHRDay(displayName, date));
+    }
 }
@@ -9,20 +9,42 @@ import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
 import lombok.RequiredArgsConstructor;
+import org.opentrainer.garmin.auth.NativeAuthService;
 import org.opentrainer.garmin.auth.PythonAuthService;
+import org.opentrainer.garmin.auth.PythonWorkerPool;
 import org.opentrainer.garmin.auth.TokenManager;
+import org.opentrainer.garmin.auth.TokenStoreFactory;
+import org.opentrainer.garmin.client.GarminClientRegistry;
 import org.opentrainer.garmin.client.GarminConnectClient;
+import org.opentrainer.garmin.client.http.ConnectionPoolMeterRegistrar;
+import org.opentrainer.garmin.client.http.EndpointFamilies;
 import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.client.http.RetryBudget;
 import org.opentrainer.garmin.client.services.*;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.codec.json.JacksonJsonDecoder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.codec.json.JacksonJsonEncoder;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.sql.DataSource;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Auto-configuration for Garmin Connect client.
@@ -45,8 +67,21 @@ public class GarminAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public TokenManager tokenManager(JsonMapper jsonMapper) {
-        return new TokenManager(properties.getOauth(), jsonMapper);
+    public TokenStoreFactory tokenStoreFactory(JsonMapper jsonMapper, ObjectProvider<DataSource> dataSource) {
+        GarminProperties.OAuth oauth = properties.getOauth();
+        return switch (oauth.getTokenStorage().getType()) {
+            case FILE -> TokenStoreFactory.files(oauth, jsonMapper);
+            case MEMORY -> TokenStoreFactory.memory();
+            case JDBC -> TokenStoreFactory.jdbc(oauth, dataSource.getIfAvailable(() -> {
+                throw new IllegalStateException("JDBC token storage requires a DataSource bean");
+            }), jsonMapper);
+        };
+    }
+
+    @Bean(destroyMethod = "flush")
+    @ConditionalOnMissingBean
+    public TokenManager tokenManager(TokenStoreFactory tokenStoreFactory) {
+        return new TokenManager(properties.getOauth(), tokenStoreFactory.create(null));
     }
 
     @Bean
@@ -55,18 +90,7 @@ public class GarminAutoConfiguration {
         if (!properties.getResilience().getCircuitBreaker().isEnabled()) {
             return CircuitBreaker.ofDefaults("garmin-dummy");
         }
-
-        var config = properties.getResilience().getCircuitBreaker();
-        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
-                .failureRateThreshold(config.getFailureRateThreshold())
-                .slowCallRateThreshold(config.getSlowCallRateThreshold())
-                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
-                .waitDurationInOpenState(config.getWaitDurationInOpenState())
-                .slidingWindowSize(config.getSlidingWindowSize())
-                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
-                .build();
-
-        return CircuitBreaker.of("garmin", circuitBreakerConfig);
+        return CircuitBreaker.of("garmin", circuitBreakerConfig());
     }
 
     @Bean
@@ -75,15 +99,7 @@ public class GarminAutoConfiguration {
         if (!properties.getResilience().getRateLimiter().isEnabled()) {
             return RateLimiter.ofDefaults("garmin-dummy");
         }
-
-        var config = properties.getResilience().getRateLimiter();
-        RateLimiterConfig rateLimiterConfig = RateLimiterConfig.custom()
-                .limitForPeriod(config.getLimitForPeriod())
-                .limitRefreshPeriod(config.getLimitRefreshPeriod())
-                .timeoutDuration(config.getTimeoutDuration())
-                .build();
-
-        return RateLimiter.of("garmin", rateLimiterConfig);
+        return RateLimiter.of("garmin", rateLimiterConfig());
     }
 
     @Bean
@@ -92,8 +108,34 @@ public class GarminAutoConfiguration {
         if (!properties.getResilience().getRetry().isEnabled()) {
             return Retry.ofDefaults("garmin-dummy");
         }
+        return Retry.of("garmin", retryConfig());
+    }
+
+    private CircuitBreakerConfig circuitBreakerConfig() {
+        var config = properties.getResilience().getCircuitBreaker();
+        if (!config.isEnabled()) {
+            return CircuitBreakerConfig.ofDefaults();
+        }
+        return EndpointFamilies.circuitBreakerConfig(config);
+    }
+
+    private RateLimiterConfig rateLimiterConfig() {
+        var config = properties.getResilience().getRateLimiter();
+        if (!config.isEnabled()) {
+            return RateLimiterConfig.ofDefaults();
+        }
+        return RateLimiterConfig.custom()
+                .limitForPeriod(config.getLimitForPeriod())
+                .limitRefreshPeriod(config.getLimitRefreshPeriod())
+                .timeoutDuration(config.getTimeoutDuration())
+                .build();
+    }
 
+    private RetryConfig retryConfig() {
         var config = properties.getResilience().getRetry();
+        if (!config.isEnabled()) {
+            return RetryConfig.ofDefaults();
+        }
 
         RetryConfig.Builder<Object> retryConfigBuilder = RetryConfig.custom()
                 .maxAttempts(config.getMaxAttempts());
@@ -109,27 +151,97 @@ public class GarminAutoConfiguration {
             retryConfigBuilder.waitDuration(config.getWaitDuration());
         }
 
-        return Retry.of("garmin", retryConfigBuilder.build());
+        return retryConfigBuilder.build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryBudget garminRetryBudget(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RetryBudget(properties.getResilience().getRetry(),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnMissingBean
+    public ConnectionProvider garminConnectionProvider(ObjectProvider<MeterRegistry> meterRegistry) {
+        var config = properties.getHttp();
+        URI baseUri = URI.create(properties.getBaseUrl());
+        int port = baseUri.getPort() != -1 ? baseUri.getPort() : ("http".equals(baseUri.getScheme()) ? 80 : 443);
+
+        MeterRegistry registry = config.isPoolMetricsEnabled()
+                ? meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)
+                : null;
+        // Reactor Netty pools per remote address and a host's spec starts from defaults, so the Garmin host
+        // repeats every pool setting with its own, tighter connection limit
+        return poolSettings(ConnectionProvider.builder("garmin"), config, registry)
+                .maxConnections(config.getMaxConnections())
+                .forRemoteHost(InetSocketAddress.createUnresolved(baseUri.getHost(), port),
+                        spec -> poolSettings(spec, config, registry).maxConnections(config.getMaxConnectionsPerHost()))
+                .build();
+    }
+
+    /**
+     * Apply the pool settings shared by the default pool and the Garmin host's pool
+     *
+     * @param registry Registry of the pool metrics, or null when they are disabled
+     */
+    private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> S poolSettings(
+            S spec, GarminProperties.Http config, MeterRegistry registry) {
+        spec.pendingAcquireMaxCount(config.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(config.getPendingAcquireTimeout())
+                .maxIdleTime(config.getMaxIdleTime())
+                .maxLifeTime(config.getMaxLifeTime())
+                .evictInBackground(config.getEvictionInterval())
+                .lifo();
+        if (registry != null) {
+            spec.metrics(true, () -> new ConnectionPoolMeterRegistrar(registry));
+        }
+        return spec;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public WebClient garminWebClient(JsonMapper jsonMapper) {
+    public WebClient garminWebClient(JsonMapper jsonMapper, ConnectionProvider garminConnectionProvider) {
         ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(configurer -> {
                     configurer.defaultCodecs().jacksonJsonEncoder(new JacksonJsonEncoder(jsonMapper));
                     configurer.defaultCodecs().jacksonJsonDecoder(new JacksonJsonDecoder(jsonMapper));
-                    configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024); // 16MB
+                    configurer.defaultCodecs().maxInMemorySize(
+                            Math.toIntExact(properties.getHttp().getMaxInMemorySize().toBytes()));
                 })
                 .build();
 
         return WebClient.builder()
                 .baseUrl(properties.getBaseUrl() + properties.getApiPath())
                 .defaultHeader("User-Agent", properties.getHttp().getUserAgent())
+                .clientConnector(new ReactorClientHttpConnector(reactorHttpClient(garminConnectionProvider)))
                 .exchangeStrategies(strategies)
                 .build();
     }
 
+    /**
+     * Reactor Netty client with timeouts, keep-alive, compression and protocol negotiation
+     */
+    private HttpClient reactorHttpClient(ConnectionProvider connectionProvider) {
+        var config = properties.getHttp();
+        long writeTimeoutMillis = config.getWriteTimeout().toMillis();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(config.getConnectTimeout().toMillis()))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(config.getReadTimeout())
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(writeTimeoutMillis, TimeUnit.MILLISECONDS)))
+                .compress(config.isCompressionEnabled());
+
+        if (config.isHttp2Enabled()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public GarminWebClient garminHttpClient(
@@ -137,14 +249,20 @@ public class GarminAutoConfiguration {
             TokenManager tokenManager,
             CircuitBreaker circuitBreaker,
             RateLimiter rateLimiter,
-            Retry retry) {
+            Retry retry,
+            JsonMapper jsonMapper,
+            RetryBudget retryBudget,
+            ObjectProvider<MeterRegistry> meterRegistry) {
         return new GarminWebClient(
                 garminWebClient,
                 tokenManager,
                 circuitBreaker,
                 rateLimiter,
                 retry,
-                properties
+                properties,
+                jsonMapper,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                retryBudget
         );
     }
 
@@ -190,13 +308,36 @@ public class GarminAutoConfiguration {
         return new TrainingPlanService(webClient);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public GraphQLService graphQLService(GarminWebClient webClient, JsonMapper jsonMapper) {
+        return new GraphQLService(webClient, jsonMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public PythonWorkerPool pythonWorkerPool(JsonMapper jsonMapper) {
+        return new PythonWorkerPool(properties.getOauth(), jsonMapper);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public PythonAuthService pythonAuthService(
             GarminProperties properties,
             TokenManager tokenManager,
-            JsonMapper jsonMapper) {
-        return new PythonAuthService(properties, tokenManager, jsonMapper);
+            JsonMapper jsonMapper,
+            PythonWorkerPool pythonWorkerPool) {
+        return new PythonAuthService(properties, tokenManager, jsonMapper, pythonWorkerPool);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NativeAuthService nativeAuthService(
+            WebClient garminWebClient,
+            TokenManager tokenManager,
+            JsonMapper jsonMapper,
+            PythonAuthService pythonAuthService) {
+        return new NativeAuthService(properties, garminWebClient, tokenManager, jsonMapper, pythonAuthService);
     }
 
     @Bean
@@ -209,7 +350,8 @@ public class GarminAutoConfiguration {
             DeviceService deviceService,
             GearService gearService,
             TrainingPlanService trainingPlanService,
-            PythonAuthService pythonAuthService) {
+            GraphQLService graphQLService,
+            NativeAuthService nativeAuthService) {
         return new GarminConnectClient(
                 userProfileService,
                 activityService,
@@ -218,7 +360,33 @@ public class GarminAutoConfiguration {
                 deviceService,
                 gearService,
                 trainingPlanService,
-                pythonAuthService
+                graphQLService,
+                nativeAuthService,
+                properties
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public GarminClientRegistry garminClientRegistry(
+            WebClient garminWebClient,
+            JsonMapper jsonMapper,
+            RetryBudget retryBudget,
+            PythonWorkerPool pythonWorkerPool,
+            TokenStoreFactory tokenStoreFactory,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new GarminClientRegistry(
+                properties,
+                garminWebClient,
+                jsonMapper,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                circuitBreakerConfig(),
+                rateLimiterConfig(),
+                retryConfig(),
+                retryBudget,
+                pythonWorkerPool,
+                tokenStoreFactory,
+                Clock.systemUTC()
         );
     }
 }
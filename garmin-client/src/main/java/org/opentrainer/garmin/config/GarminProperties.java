@@ -1,13 +1,21 @@
 package org.opentrainer.garmin.config;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties for Garmin Connect API client.
@@ -50,6 +58,42 @@ public class GarminProperties {
     @NotNull
     private Resilience resilience = new Resilience();
 
+    /**
+     * In-memory response cache configuration
+     */
+    @NotNull
+    private Cache cache = new Cache();
+
+    /**
+     * Date-range fan-out configuration
+     */
+    @NotNull
+    private Range range = new Range();
+
+    /**
+     * Daily snapshot configuration
+     */
+    @NotNull
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * GraphQL gateway configuration
+     */
+    @NotNull
+    private GraphQL graphql = new GraphQL();
+
+    /**
+     * Multi-tenant client registry configuration
+     */
+    @NotNull
+    private Tenants tenants = new Tenants();
+
+    /**
+     * Request metrics configuration
+     */
+    @NotNull
+    private Metrics metrics = new Metrics();
+
     @Data
     public static class OAuth {
         /**
@@ -72,6 +116,33 @@ public class GarminProperties {
          */
         private String authHelperPath = "java_auth_helper.py";
 
+        /**
+         * Fall back to the Python helper script when the native login fails
+         */
+        private boolean pythonFallback = true;
+
+        /**
+         * Garmin SSO base URL used by the native login
+         */
+        private String ssoUrl = "https://sso.garmin.com";
+
+        /**
+         * Garmin OAuth service base URL used by the native login
+         */
+        private String connectApiUrl = "https://connectapi.garmin.com";
+
+        /**
+         * Location to fetch the OAuth consumer key and secret from when they are not configured,
+         * e.g. https://thegarth.s3.amazonaws.com/oauth_consumer.json. Unset by default, since the fetched
+         * secret is trusted as is.
+         */
+        private String consumerUrl;
+
+        /**
+         * Maximum duration of a native login, from SSO sign-in to OAuth2 token
+         */
+        private Duration loginTimeout = Duration.ofSeconds(60);
+
         /**
          * OAuth consumer key
          */
@@ -87,6 +158,16 @@ public class GarminProperties {
          */
         private String tokenStoragePath = System.getProperty("user.home") + "/.garmin/tokens";
 
+        /**
+         * Force token file writes to the storage device before replacing the previous file
+         */
+        private boolean fsyncTokenStorage = false;
+
+        /**
+         * Where tokens are persisted
+         */
+        private TokenStorage tokenStorage = new TokenStorage();
+
         /**
          * Auto-refresh tokens before expiration
          */
@@ -96,6 +177,77 @@ public class GarminProperties {
          * Token refresh threshold (refresh if expires within this duration)
          */
         private Duration refreshThreshold = Duration.ofMinutes(5);
+
+        /**
+         * Upper bound of the random lead added to the refresh threshold, spreading renewals of many clients
+         */
+        private Duration refreshJitter = Duration.ofMinutes(1);
+
+        /**
+         * Wait after a failed token refresh before the next attempt, doubled with each consecutive failure
+         */
+        private Duration refreshBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Upper bound of the wait between failed token refreshes
+         */
+        private Duration refreshMaxBackoff = Duration.ofMinutes(10);
+
+        /**
+         * Pool of long-lived Python helper processes
+         */
+        private PythonPool pythonPool = new PythonPool();
+
+        @Data
+        public static class PythonPool {
+            /**
+             * Serve Python authentication from persistent workers instead of one process per call
+             */
+            private boolean enabled = false;
+
+            /**
+             * Number of worker processes
+             */
+            @Positive
+            private int size = 2;
+
+            /**
+             * Maximum time to wait for a free worker and for its response
+             */
+            private Duration requestTimeout = Duration.ofSeconds(60);
+
+            /**
+             * Interval between health checks of idle workers
+             */
+            private Duration healthCheckInterval = Duration.ofSeconds(30);
+
+            /**
+             * Time a worker has to answer a health check before it is restarted
+             */
+            private Duration healthCheckTimeout = Duration.ofSeconds(5);
+        }
+
+        @Data
+        public static class TokenStorage {
+            /**
+             * Token store: FILE under the token storage path, MEMORY, or JDBC for tokens shared by several nodes
+             */
+            private Type type = Type.FILE;
+
+            /**
+             * Base64 encoded AES key (16, 24 or 32 bytes) encrypting tokens stored by JDBC
+             */
+            private String encryptionKey;
+
+            /**
+             * How long tokens read from the database are served before reading them again
+             */
+            private Duration cacheTtl = Duration.ofSeconds(10);
+
+            public enum Type {
+                FILE, MEMORY, JDBC
+            }
+        }
     }
 
     @Data
@@ -130,6 +282,63 @@ public class GarminProperties {
         @Positive
         private int maxConnectionsPerHost = 10;
 
+        /**
+         * Maximum number of requests waiting for a pooled connection
+         */
+        @Positive
+        private int pendingAcquireMaxCount = 500;
+
+        /**
+         * Maximum time a request waits for a pooled connection
+         */
+        @NotNull
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Idle time after which a pooled connection is closed
+         */
+        @NotNull
+        private Duration maxIdleTime = Duration.ofSeconds(20);
+
+        /**
+         * Maximum lifetime of a pooled connection
+         */
+        @NotNull
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Interval of the background eviction of idle and expired connections
+         */
+        @NotNull
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        /**
+         * Request gzip compressed responses
+         */
+        private boolean compressionEnabled = true;
+
+        /**
+         * Negotiate HTTP/2 when the server supports it, falling back to HTTP/1.1
+         */
+        private boolean http2Enabled = true;
+
+        /**
+         * Publish connection pool gauges (active, idle, pending)
+         */
+        private boolean poolMetricsEnabled = true;
+
+        /**
+         * Maximum size of a response body aggregated in memory before decoding
+         */
+        @NotNull
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+
+        /**
+         * Maximum size of a single array element on streaming decode paths
+         */
+        @NotNull
+        private DataSize maxStreamElementSize = DataSize.ofMegabytes(1);
+
         /**
          * Enable request/response logging
          */
@@ -142,6 +351,189 @@ public class GarminProperties {
         private String userAgent = "GarminConnectJavaClient/1.0";
     }
 
+    @Data
+    public static class Tenants {
+        /**
+         * Maximum number of tenant clients kept; the least recently used is evicted beyond this
+         */
+        @Positive
+        private int maxTenants = 10_000;
+
+        /**
+         * Tenant clients unused for this long are evicted
+         */
+        @NotNull
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Interval of the background eviction of idle tenant clients (zero disables it, leaving eviction to
+         * accesses and explicit {@code evictIdle()} calls)
+         */
+        @NotNull
+        private Duration idleSweepInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         * Record request timers, response sizes and decode times
+         */
+        private boolean enabled = true;
+
+        /**
+         * Publish percentile histograms of request latency, response size and decode time
+         */
+        private boolean percentileHistogram = true;
+
+        /**
+         * URI templates (Ant-style, query excluded) used as the uri tag of matching paths, first match wins.
+         * Paths matching none have numeric IDs, dates and UUIDs replaced, but keep any display name.
+         */
+        @NotNull
+        private List<String> uriTemplates = new ArrayList<>(List.of(
+                "/usersummary-service/usersummary/daily/{displayName}",
+                "/userstats-service/wellness/daily/{displayName}",
+                "/wellness-service/wellness/dailySummaryChart/{displayName}",
+                "/wellness-service/wellness/dailyHeartRate/{displayName}",
+                "/wellness-service/wellness/dailySleepData/{displayName}",
+                "/personalrecord-service/personalrecord/prs/{displayName}",
+                "/metrics-service/metrics/racepredictions/{type}/{displayName}"
+        ));
+    }
+
+    @Data
+    public static class GraphQL {
+        /**
+         * Batch supported day-scoped metrics into one GraphQL request; when disabled, every metric uses REST
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time after which a batch is given up and its components fall back to REST; keep it well below
+         * the snapshot component timeout so the fallback can complete within it
+         */
+        private Duration batchTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * Time after which a snapshot component is given up and left empty
+         */
+        @NotNull
+        private Duration componentTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Range {
+        /**
+         * Maximum number of days requested at the same time. Every request takes a rate limiter
+         * permit, so keep this well below the limiter's permits per period.
+         */
+        @Positive
+        private int concurrency = 4;
+
+        /**
+         * Emit results in date order by default
+         */
+        private boolean ordered = true;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Enable response caching of GET requests
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached responses, least recently used entries are evicted first
+         */
+        @Positive
+        private int maxEntries = 1000;
+
+        /**
+         * Time to live of day-scoped responses whose dates are all in the past (zero disables)
+         */
+        @NotNull
+        private Duration historicalTtl = Duration.ofHours(12);
+
+        /**
+         * Days a date must lie behind the server's current date to count as past for the historical TTL.
+         * Garmin dates are in the athlete's time zone and watches sync late, so yesterday may still be changing.
+         */
+        @PositiveOrZero
+        private int historicalDelayDays = 2;
+
+        /**
+         * Revalidate GET responses carrying an ETag or Last-Modified header with conditional requests
+         */
+        private boolean conditionalRequestsEnabled = true;
+
+        /**
+         * Maximum number of responses kept for revalidation
+         */
+        @Positive
+        private int maxValidatorEntries = 500;
+
+        /**
+         * Time to live per path pattern (Ant-style, query excluded), first match wins
+         */
+        @NotNull
+        private List<Rule> rules = new ArrayList<>(List.of(
+                new Rule("/activity-service/activity/activityTypes", Duration.ofHours(24)),
+                new Rule("/device-service/deviceregistration/devices", Duration.ofHours(1)),
+                new Rule("/userprofile-service/userprofile/**", Duration.ofHours(1)),
+                new Rule("/metrics-service/metrics/racepredictions/**", Duration.ofHours(6))
+        ));
+
+        /**
+         * Cached paths evicted after a successful write, keyed by the written path pattern.
+         * URI variables of the write pattern can be used in the evicted patterns.
+         */
+        @NotNull
+        private List<Invalidation> invalidations = new ArrayList<>(List.of(
+                new Invalidation("/activity-service/activity/{activityId}",
+                        List.of("/activity-service/activity/{activityId}/**", "/activitylist-service/**")),
+                new Invalidation("/activity-service/activity", List.of("/activitylist-service/**")),
+                new Invalidation("/usersummary-service/usersummary/hydration/**",
+                        List.of("/usersummary-service/usersummary/hydration/**")),
+                new Invalidation("/weight-service/**", List.of("/weight-service/**")),
+                new Invalidation("/bloodpressure-service/**", List.of("/bloodpressure-service/**")),
+                new Invalidation("/gear-service/**", List.of("/gear-service/**"))
+        ));
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Rule {
+            /**
+             * Path pattern
+             */
+            private String pattern;
+
+            /**
+             * Time to live of matching responses
+             */
+            private Duration ttl;
+        }
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Invalidation {
+            /**
+             * Pattern of the written path
+             */
+            private String pattern;
+
+            /**
+             * Patterns of cached paths to evict
+             */
+            private List<String> evict = new ArrayList<>();
+        }
+    }
+
     @Data
     public static class Resilience {
         /**
@@ -162,6 +554,52 @@ public class GarminProperties {
         @NotNull
         private Retry retry = new Retry();
 
+        /**
+         * Hedged request configuration
+         */
+        @NotNull
+        private Hedging hedging = new Hedging();
+
+        /**
+         * Default bulkhead applied to each endpoint family
+         */
+        @NotNull
+        private Bulkhead bulkhead = new Bulkhead();
+
+        /**
+         * Per-family overrides keyed by service prefix without the slash, e.g. "metrics-service".
+         * Families not listed use the default circuit breaker and bulkhead.
+         */
+        @NotNull
+        private Map<String, Family> families = new LinkedHashMap<>();
+
+        @Data
+        public static class Family {
+            /**
+             * Circuit breaker replacing the default for this family
+             */
+            private CircuitBreaker circuitBreaker;
+
+            /**
+             * Bulkhead replacing the default for this family
+             */
+            private Bulkhead bulkhead;
+        }
+
+        @Data
+        public static class Bulkhead {
+            /**
+             * Enable bulkhead
+             */
+            private boolean enabled = true;
+
+            /**
+             * Maximum concurrent calls to one endpoint family; further calls are rejected
+             */
+            @Positive
+            private int maxConcurrentCalls = 25;
+        }
+
         @Data
         public static class CircuitBreaker {
             /**
@@ -221,6 +659,118 @@ public class GarminProperties {
              * Timeout duration for acquiring permission
              */
             private Duration timeoutDuration = Duration.ofSeconds(5);
+
+            /**
+             * Adapt the limit to Garmin's throttling: cut it on 429/503 and raise it while calls succeed
+             */
+            private boolean adaptive = true;
+
+            /**
+             * Lowest limit per period the adaptive limiter backs off to
+             */
+            @Positive
+            private int minLimitForPeriod = 10;
+
+            /**
+             * Highest limit per period the adaptive limiter probes up to
+             */
+            @Positive
+            private int maxLimitForPeriod = 300;
+
+            /**
+             * Permits added per increase interval while calls succeed
+             */
+            @Positive
+            private int additiveIncrease = 5;
+
+            /**
+             * Minimum time between two additive increases
+             */
+            @NotNull
+            private Duration increaseInterval = Duration.ofMinutes(1);
+
+            /**
+             * Factor the limit is multiplied by when throttled
+             */
+            private double multiplicativeDecrease = 0.5;
+
+            /**
+             * Minimum time between two decreases, so a burst of throttled responses counts once
+             */
+            @NotNull
+            private Duration decreaseCooldown = Duration.ofSeconds(10);
+
+            /**
+             * Pause after a throttled response without a Retry-After header
+             */
+            @NotNull
+            private Duration defaultRetryAfter = Duration.ofSeconds(1);
+
+            /**
+             * Upper bound on the pause requested by a Retry-After header
+             */
+            @NotNull
+            private Duration maxRetryAfter = Duration.ofMinutes(5);
+        }
+
+        @Data
+        public static class Hedging {
+            /**
+             * Path patterns of GETs to hedge, e.g. "/wellness-service/**"; none by default
+             */
+            @NotNull
+            private List<String> paths = new ArrayList<>();
+
+            /**
+             * Latency percentile of a path pattern after which the hedge is sent
+             */
+            private double percentile = 0.95;
+
+            /**
+             * Hedge delay used until enough latencies have been observed
+             */
+            @NotNull
+            private Duration initialDelay = Duration.ofSeconds(1);
+
+            /**
+             * Lower bound on the hedge delay
+             */
+            @NotNull
+            private Duration minDelay = Duration.ofMillis(50);
+
+            /**
+             * Upper bound on the hedge delay
+             */
+            @NotNull
+            private Duration maxDelay = Duration.ofSeconds(3);
+
+            /**
+             * Recent latencies kept per path pattern
+             */
+            @Positive
+            private int sampleSize = 256;
+
+            /**
+             * Latencies required before the percentile is trusted
+             */
+            @Positive
+            private int minSamples = 20;
+
+            /**
+             * Maximum hedges as a fraction of hedgeable requests in the budget window
+             */
+            private double budgetRatio = 0.1;
+
+            /**
+             * Hedges always allowed per budget window regardless of traffic
+             */
+            private int budgetMinHedges = 5;
+
+            /**
+             * Sliding window over which the hedge budget is computed
+             */
+            @NotNull
+            private Duration budgetWindow = Duration.ofSeconds(10);
         }
 
         @Data
@@ -249,6 +799,34 @@ public class GarminProperties {
              * Backoff multiplier
              */
             private double exponentialBackoffMultiplier = 2.0;
+
+            /**
+             * Timeout of a single attempt; the whole request may take up to maxAttempts times this plus backoff
+             */
+            @NotNull
+            private Duration attemptTimeout = Duration.ofSeconds(15);
+
+            /**
+             * Response statuses worth retrying; other client and server errors fail immediately
+             */
+            @NotNull
+            private List<Integer> retryableStatuses = new ArrayList<>(List.of(429, 500, 502, 503, 504));
+
+            /**
+             * Maximum retries as a fraction of requests in the budget window, shared by all clients
+             */
+            private double budgetRatio = 0.2;
+
+            /**
+             * Retries always allowed per budget window regardless of traffic
+             */
+            private int budgetMinRetries = 10;
+
+            /**
+             * Sliding window over which the retry budget is computed
+             */
+            @NotNull
+            private Duration budgetWindow = Duration.ofSeconds(10);
         }
     }
 }
@@ -0,0 +1,12 @@
+package org.opentrainer.garmin.exception;
+
+/**
+ * Exception for sign-ins Garmin rejected, e.g. wrong credentials or a required second factor.
+ * Repeating such a sign-in elsewhere cannot succeed and risks locking the account.
+ */
+public class GarminLoginRejectedException extends GarminAuthenticationException {
+
+    public GarminLoginRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package org.opentrainer.garmin.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception for requests throttled by Garmin (429 Too Many Requests or 503 Service Unavailable)
+ */
+public class GarminRateLimitException extends GarminClientException {
+
+    private final Duration retryAfter;
+
+    public GarminRateLimitException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Pause requested by Garmin, or null when none was given
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
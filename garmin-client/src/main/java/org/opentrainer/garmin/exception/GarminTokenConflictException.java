@@ -0,0 +1,11 @@
+package org.opentrainer.garmin.exception;
+
+/**
+ * Exception for token writes rejected because another client stored newer tokens first
+ */
+public class GarminTokenConflictException extends GarminClientException {
+
+    public GarminTokenConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,114 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.deser.std.StdDeserializer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chart metrics and GPS track of an activity.
+ * For analysis of the chart metrics alone, prefer {@link ActivityStreams}, which holds one column per metric
+ * instead of one row per sample.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ActivityDetails {
+    private Long activityId;
+    private Integer measurementCount;
+    private Integer metricsCount;
+    private Boolean detailsAvailable;
+    private List<MetricDescriptor> metricDescriptors;
+    private List<DetailMetrics> activityDetailMetrics;
+    private GeoPolyline geoPolylineDTO;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MetricDescriptor {
+        /**
+         * Position of the metric in each row of {@link DetailMetrics#getMetrics()}
+         */
+        private Integer metricsIndex;
+        private String key;
+        private Unit unit;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Unit {
+        private Integer id;
+        private String key;
+        private Double factor;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class DetailMetrics {
+        /**
+         * One value per metric descriptor, {@link Double#NaN} where the metric was not recorded
+         */
+        @JsonDeserialize(using = MetricsDeserializer.class)
+        private double[] metrics;
+    }
+
+    /**
+     * Reads a row of metrics without boxing, mapping nulls to NaN
+     */
+    static final class MetricsDeserializer extends StdDeserializer<double[]> {
+
+        MetricsDeserializer() {
+            super(double[].class);
+        }
+
+        @Override
+        public double[] deserialize(JsonParser parser, DeserializationContext context) throws JacksonException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (double[]) context.handleUnexpectedToken(double[].class, parser);
+            }
+            double[] values = new double[16];
+            int size = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                if (token.isNumeric()) {
+                    values[size++] = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                    values[size++] = Double.NaN;
+                }
+            }
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class GeoPolyline {
+        private Double minLat;
+        private Double maxLat;
+        private Double minLon;
+        private Double maxLon;
+        private List<GeoPoint> polyline;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class GeoPoint {
+        private Double lat;
+        private Double lon;
+        private Double altitude;
+        private Long time;
+        private Double speed;
+        private Double distanceFromPreviousPoint;
+        private Double distanceInMeters;
+        private Boolean valid;
+    }
+}
@@ -0,0 +1,28 @@
+package org.opentrainer.garmin.model;
+
+/**
+ * File formats an activity can be downloaded in
+ */
+public enum ActivityDownloadFormat {
+    /**
+     * File as uploaded by the device, usually a ZIP archive holding a FIT file
+     */
+    ORIGINAL("/download-service/files/activity/"),
+    TCX("/download-service/export/tcx/activity/"),
+    GPX("/download-service/export/gpx/activity/"),
+    KML("/download-service/export/kml/activity/"),
+    CSV("/download-service/export/csv/activity/");
+
+    private final String pathPrefix;
+
+    ActivityDownloadFormat(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    /**
+     * Download path of an activity in this format
+     */
+    public String path(Long activityId) {
+        return pathPrefix + activityId;
+    }
+}
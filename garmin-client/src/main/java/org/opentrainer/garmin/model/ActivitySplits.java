@@ -0,0 +1,66 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Laps and lap events of an activity
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ActivitySplits {
+    private Long activityId;
+    private List<Lap> lapDTOs;
+    private List<LapEvent> eventDTOs;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Lap {
+        private Integer lapIndex;
+        private LocalDateTime startTimeGMT;
+        private Double startLatitude;
+        private Double startLongitude;
+        private Double distance;
+        private Double duration;
+        private Double movingDuration;
+        private Double elapsedDuration;
+        private Double elevationGain;
+        private Double elevationLoss;
+        private Double maxElevation;
+        private Double minElevation;
+        private Double averageSpeed;
+        private Double averageMovingSpeed;
+        private Double maxSpeed;
+        private Double calories;
+        private Double averageHR;
+        private Double maxHR;
+        private Double averageRunCadence;
+        private Double maxRunCadence;
+        private Double averagePower;
+        private Double maxPower;
+        private Double normalizedPower;
+        private Double strideLength;
+        private Double avgVerticalOscillation;
+        private Double avgGroundContactTime;
+        private String intensityType;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class LapEvent {
+        private LocalDateTime startTimeGMT;
+        private Double startTimeGMTDoubleValue;
+        private SectionType sectionTypeDTO;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class SectionType {
+        private Long id;
+        private String key;
+        private String sectionTypeKey;
+    }
+}
@@ -0,0 +1,294 @@
+package org.opentrainer.garmin.model;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.TokenStreamContext;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.deser.std.StdDeserializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Chart data of an activity stored column-wise: one {@code double[]} per metric, one entry per sample.
+ * Samples where Garmin recorded no value for a metric hold {@link Double#NaN}.
+ * Decoded from the details endpoint's {@code metricDescriptors} and {@code activityDetailMetrics} in a single
+ * pass over the token stream, without materializing rows, maps or boxed numbers.
+ * Columns are returned without copying and must not be modified.
+ */
+@JsonDeserialize(using = ActivityStreams.Deserializer.class)
+public final class ActivityStreams {
+
+    public static final String TIMESTAMP = "directTimestamp";
+    public static final String HEART_RATE = "directHeartRate";
+    public static final String SPEED = "directSpeed";
+    public static final String POWER = "directPower";
+    public static final String RUN_CADENCE = "directRunCadence";
+    public static final String BIKE_CADENCE = "directBikeCadence";
+    public static final String ELEVATION = "directElevation";
+    public static final String LATITUDE = "directLatitude";
+    public static final String LONGITUDE = "directLongitude";
+    public static final String DISTANCE = "sumDistance";
+
+    private final Long activityId;
+    private final int size;
+    private final Map<String, double[]> columns;
+
+    ActivityStreams(Long activityId, int size, Map<String, double[]> columns) {
+        this.activityId = activityId;
+        this.size = size;
+        this.columns = Collections.unmodifiableMap(columns);
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    /**
+     * Number of samples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Metric keys in descriptor order, e.g. "directHeartRate"
+     */
+    public Set<String> keys() {
+        return columns.keySet();
+    }
+
+    /**
+     * Column of a metric by its Garmin key
+     */
+    public Optional<double[]> column(String key) {
+        return Optional.ofNullable(columns.get(key));
+    }
+
+    /**
+     * Sample times in epoch milliseconds
+     */
+    public Optional<long[]> timestamps() {
+        return column(TIMESTAMP).map(column -> {
+            long[] timestamps = new long[column.length];
+            for (int i = 0; i < column.length; i++) {
+                timestamps[i] = (long) column[i];
+            }
+            return timestamps;
+        });
+    }
+
+    public Optional<double[]> heartRate() {
+        return column(HEART_RATE);
+    }
+
+    /**
+     * Speed in meters per second
+     */
+    public Optional<double[]> speed() {
+        return column(SPEED);
+    }
+
+    public Optional<double[]> power() {
+        return column(POWER);
+    }
+
+    /**
+     * Running or cycling cadence, whichever the activity recorded
+     */
+    public Optional<double[]> cadence() {
+        return column(RUN_CADENCE).or(() -> column(BIKE_CADENCE));
+    }
+
+    /**
+     * Elevation in meters
+     */
+    public Optional<double[]> elevation() {
+        return column(ELEVATION);
+    }
+
+    public Optional<double[]> latitude() {
+        return column(LATITUDE);
+    }
+
+    public Optional<double[]> longitude() {
+        return column(LONGITUDE);
+    }
+
+    /**
+     * Cumulative distance in meters
+     */
+    public Optional<double[]> distance() {
+        return column(DISTANCE);
+    }
+
+    @Override
+    public String toString() {
+        return "ActivityStreams[activityId=" + activityId + ", samples=" + size + ", metrics=" + keys() + "]";
+    }
+
+    /**
+     * Decoder of the details response fed one token at a time, so that it can be driven by a non-blocking parser
+     * as the body arrives as well as by a regular one.
+     * Row values are appended to one growing column per position, so descriptors and rows may come in either order;
+     * columns are named by their descriptors once the object ends.
+     */
+    public static final class Reader {
+
+        private int depth = -1;
+        private Long activityId;
+        private final Map<Integer, String> keys = new LinkedHashMap<>();
+        private final List<Column> positions = new ArrayList<>();
+        private int rows;
+        private Integer descriptorIndex;
+        private String descriptorKey;
+
+        /**
+         * Consume the parser's current token
+         *
+         * @return The decoded streams once the token ends the details object, otherwise null
+         */
+        public ActivityStreams read(JsonParser parser, JsonToken token) {
+            TokenStreamContext context = parser.streamReadContext();
+            if (depth < 0) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new StreamReadException(parser, "Expected activity details object, got " + token);
+                }
+                depth = context.getNestingDepth();
+                return null;
+            }
+            int level = context.getNestingDepth() - depth;
+            switch (token) {
+                case START_OBJECT -> {
+                    if (level == 2 && in(context.getParent(), "metricDescriptors")) {
+                        descriptorIndex = null;
+                        descriptorKey = null;
+                    } else if (level == 2 && in(context.getParent(), "activityDetailMetrics")) {
+                        rows++;
+                    }
+                }
+                case END_OBJECT -> {
+                    if (level == -1) {
+                        return build();
+                    }
+                    if (level == 1 && in(context, "metricDescriptors")
+                            && descriptorIndex != null && descriptorKey != null) {
+                        keys.put(descriptorIndex, descriptorKey);
+                    }
+                }
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                    if (level == 0 && "activityId".equals(context.currentName())) {
+                        activityId = parser.getLongValue();
+                    } else if (level == 2 && "metricsIndex".equals(context.currentName())
+                            && in(context.getParent(), "metricDescriptors")) {
+                        descriptorIndex = parser.getIntValue();
+                    } else if (level == 3 && "metrics".equals(context.getParent().currentName())
+                            && in(context.getParent().getParent(), "activityDetailMetrics")) {
+                        int index = context.getCurrentIndex();
+                        while (positions.size() <= index) {
+                            positions.add(new Column());
+                        }
+                        positions.get(index).set(rows - 1, parser.getDoubleValue());
+                    }
+                }
+                case VALUE_STRING -> {
+                    if (level == 2 && "key".equals(context.currentName())
+                            && in(context.getParent(), "metricDescriptors")) {
+                        descriptorKey = parser.getString();
+                    }
+                }
+                default -> {
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Whether a context is an array held by the given field of the details object
+         */
+        private boolean in(TokenStreamContext context, String field) {
+            return context.inArray() && context.getNestingDepth() - depth == 1
+                    && field.equals(context.getParent().currentName());
+        }
+
+        private ActivityStreams build() {
+            Map<String, double[]> columns = new LinkedHashMap<>();
+            for (Map.Entry<Integer, String> descriptor : keys.entrySet()) {
+                int index = descriptor.getKey();
+                Column column = index < positions.size() ? positions.get(index) : null;
+                columns.put(descriptor.getValue(), column != null ? column.toArray(rows) : Column.missing(rows));
+            }
+            return new ActivityStreams(activityId, rows, columns);
+        }
+    }
+
+    /**
+     * Decoder for a regular parser, reading the details object through a {@link Reader}
+     */
+    static final class Deserializer extends StdDeserializer<ActivityStreams> {
+
+        Deserializer() {
+            super(ActivityStreams.class);
+        }
+
+        @Override
+        public ActivityStreams deserialize(JsonParser parser, DeserializationContext context) throws JacksonException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (ActivityStreams) context.handleUnexpectedToken(ActivityStreams.class, parser);
+            }
+            Reader reader = new Reader();
+            JsonToken token = parser.currentToken();
+            ActivityStreams streams;
+            while ((streams = reader.read(parser, token)) == null) {
+                token = parser.nextToken();
+                if (token == null) {
+                    throw new StreamReadException(parser, "Unexpected end of activity details");
+                }
+            }
+            return streams;
+        }
+    }
+
+    /**
+     * Growing column of one row position; rows never set stay NaN
+     */
+    private static final class Column {
+
+        private double[] values = new double[0];
+
+        void set(int row, double value) {
+            if (row >= values.length) {
+                int length = values.length;
+                values = Arrays.copyOf(values, Math.max(row + 1, Math.max(256, length * 2)));
+                Arrays.fill(values, length, values.length, Double.NaN);
+            }
+            values[row] = value;
+        }
+
+        double[] toArray(int rows) {
+            if (values.length == rows) {
+                return values;
+            }
+            double[] column = Arrays.copyOf(values, rows);
+            if (values.length < rows) {
+                Arrays.fill(column, values.length, rows, Double.NaN);
+            }
+            return column;
+        }
+
+        static double[] missing(int rows) {
+            double[] column = new double[rows];
+            Arrays.fill(column, Double.NaN);
+            return column;
+        }
+    }
+}
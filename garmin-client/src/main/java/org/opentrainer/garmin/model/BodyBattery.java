@@ -1,10 +1,10 @@
 package org.opentrainer.garmin.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Body battery data
@@ -16,13 +16,6 @@ public class BodyBattery {
     private Integer charged;
     private Integer drained;
     private Integer mostRecentValue;
-    private List<BodyBatteryValue> values;
-
-    @Data
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public static class BodyBatteryValue {
-        private Long timestamp;
-        private Integer value;
-        private String status;
-    }
+    @JsonAlias("bodyBatteryValuesArray")
+    private IntTimeSeries values;
 }
@@ -0,0 +1,57 @@
+package org.opentrainer.garmin.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Health and wellness data for one day, fetched concurrently.
+ * Components that failed or timed out are left null and listed in {@link #failures}.
+ */
+@Data
+@NoArgsConstructor
+public class DailyHealthSnapshot {
+    private LocalDate date;
+    private DailySummary summary;
+    private HeartRateData heartRates;
+    private BodyBattery bodyBattery;
+    private Map<String, Object> hrv;
+    private Map<String, Object> stress;
+    private Map<String, Object> spO2;
+    private Map<String, Object> respiration;
+    private SleepData sleep;
+    private Map<String, Object> trainingReadiness;
+    private Map<String, Object> trainingStatus;
+    private Map<String, Object> intensityMinutes;
+    private Map<String, Object> hydration;
+    private Map<Component, String> failures = new ConcurrentHashMap<>();
+
+    public DailyHealthSnapshot(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Whether every component was fetched
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    public enum Component {
+        SUMMARY,
+        HEART_RATE,
+        BODY_BATTERY,
+        HRV,
+        STRESS,
+        SPO2,
+        RESPIRATION,
+        SLEEP,
+        TRAINING_READINESS,
+        TRAINING_STATUS,
+        INTENSITY_MINUTES,
+        HYDRATION
+    }
+}
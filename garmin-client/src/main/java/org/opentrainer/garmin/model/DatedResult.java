@@ -0,0 +1,27 @@
+package org.opentrainer.garmin.model;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of a day-scoped request within a date range.
+ * Either holds the value for the day (possibly null when Garmin has no data) or the error that
+ * made this day fail, without failing the rest of the range.
+ */
+public record DatedResult<T>(LocalDate date, T value, Throwable error) {
+
+    public static <T> DatedResult<T> success(LocalDate date, T value) {
+        return new DatedResult<>(date, value, null);
+    }
+
+    public static <T> DatedResult<T> failure(LocalDate date, Throwable error) {
+        return new DatedResult<>(date, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public boolean hasValue() {
+        return value != null;
+    }
+}
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Heart rate data for a day
@@ -16,12 +15,5 @@ public class HeartRateData {
     private Integer restingHeartRate;
     private Integer maxHeartRate;
     private Integer minHeartRate;
-    private List<HeartRateValue> heartRateValues;
-
-    @Data
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public static class HeartRateValue {
-        private Long timestamp;
-        private Integer heartRate;
-    }
+    private IntTimeSeries heartRateValues;
 }
@@ -0,0 +1,52 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Heart rate variability of a night
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HrvData {
+    private Long userProfilePk;
+    private HrvSummary hrvSummary;
+    private List<HrvReading> hrvReadings;
+    private LocalDateTime startTimestampGMT;
+    private LocalDateTime endTimestampGMT;
+    private LocalDateTime sleepStartTimestampGMT;
+    private LocalDateTime sleepEndTimestampGMT;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class HrvSummary {
+        private LocalDate calendarDate;
+        private Integer weeklyAvg;
+        private Integer lastNightAvg;
+        private Integer lastNight5MinHigh;
+        private Baseline baseline;
+        private String status;
+        private String feedbackPhrase;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Baseline {
+        private Integer lowUpper;
+        private Integer balancedLow;
+        private Integer balancedUpper;
+        private Double markerValue;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class HrvReading {
+        private Integer hrvValue;
+        private LocalDateTime readingTimeGMT;
+        private LocalDateTime readingTimeLocal;
+    }
+}
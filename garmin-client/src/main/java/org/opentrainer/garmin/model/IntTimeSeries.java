@@ -0,0 +1,370 @@
+package org.opentrainer.garmin.model;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.deser.std.StdDeserializer;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable series of integer samples, such as heart rate, stress or body battery, stored column-wise in
+ * primitive arrays: epoch-millisecond timestamps in ascending order and one value per timestamp.
+ * Samples Garmin reports without a value are kept as missing and skipped by iteration and aggregation.
+ * Decodes from and encodes to Garmin's {@code [[timestamp, value], ...]} arrays.
+ */
+@JsonSerialize(using = IntTimeSeries.Serializer.class)
+@JsonDeserialize(using = IntTimeSeries.Deserializer.class)
+public final class IntTimeSeries {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+    private static final IntTimeSeries EMPTY = new IntTimeSeries(new long[0], new int[0]);
+
+    private final long[] timestamps;
+    private final int[] values;
+
+    private IntTimeSeries(long[] timestamps, int[] values) {
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public static IntTimeSeries empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder(64);
+    }
+
+    /**
+     * Number of samples, missing ones included
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    /**
+     * Epoch milliseconds of the sample at an index
+     */
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public Instant instant(int index) {
+        return Instant.ofEpochMilli(timestamps[index]);
+    }
+
+    /**
+     * Whether the sample at an index has a value
+     */
+    public boolean isPresent(int index) {
+        return values[index] != MISSING;
+    }
+
+    /**
+     * Value of the sample at an index
+     *
+     * @throws IllegalStateException if the sample is missing
+     */
+    public int value(int index) {
+        int value = values[index];
+        if (value == MISSING) {
+            throw new IllegalStateException("No value at " + instant(index));
+        }
+        return value;
+    }
+
+    /**
+     * Samples from {@code from} (inclusive) to {@code to} (exclusive)
+     */
+    public IntTimeSeries between(Instant from, Instant to) {
+        int start = indexOf(from.toEpochMilli());
+        int end = indexOf(to.toEpochMilli());
+        if (start >= end) {
+            return EMPTY;
+        }
+        return new IntTimeSeries(Arrays.copyOfRange(timestamps, start, end), Arrays.copyOfRange(values, start, end));
+    }
+
+    /**
+     * Visit the samples that have a value, in time order, without allocating per sample
+     */
+    public void forEach(SampleConsumer consumer) {
+        for (int i = 0; i < timestamps.length; i++) {
+            if (values[i] != MISSING) {
+                consumer.accept(timestamps[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Values of the samples that have one, in time order
+     */
+    public IntStream values() {
+        return Arrays.stream(values).filter(value -> value != MISSING);
+    }
+
+    /**
+     * Number of samples that have a value
+     */
+    public int count() {
+        int count = 0;
+        for (int value : values) {
+            if (value != MISSING) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public OptionalInt min() {
+        return values().min();
+    }
+
+    public OptionalInt max() {
+        return values().max();
+    }
+
+    public OptionalDouble average() {
+        return values().average();
+    }
+
+    /**
+     * Index of the first sample at or after the timestamp
+     */
+    private int indexOf(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, timestamp);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Walk back over samples sharing the timestamp
+        while (index > 0 && timestamps[index - 1] == timestamp) {
+            index--;
+        }
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof IntTimeSeries series
+                && Arrays.equals(timestamps, series.timestamps)
+                && Arrays.equals(values, series.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(timestamps) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "IntTimeSeries[]";
+        }
+        return "IntTimeSeries[" + size() + " samples, " + instant(0) + " to " + instant(size() - 1) + "]";
+    }
+
+    /**
+     * Receiver of one sample
+     */
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(long timestamp, int value);
+    }
+
+    /**
+     * Collects samples into growing primitive arrays; samples added out of order are sorted on build
+     */
+    public static final class Builder {
+
+        private long[] timestamps;
+        private int[] values;
+        private int size;
+        private boolean sorted = true;
+
+        private Builder(int capacity) {
+            this.timestamps = new long[capacity];
+            this.values = new int[capacity];
+        }
+
+        public Builder add(long timestamp, int value) {
+            if (value == MISSING) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+            return append(timestamp, value);
+        }
+
+        public Builder addMissing(long timestamp) {
+            return append(timestamp, MISSING);
+        }
+
+        public IntTimeSeries build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            long[] builtTimestamps = Arrays.copyOf(timestamps, size);
+            int[] builtValues = Arrays.copyOf(values, size);
+            if (!sorted) {
+                sort(builtTimestamps, builtValues);
+            }
+            return new IntTimeSeries(builtTimestamps, builtValues);
+        }
+
+        private Builder append(long timestamp, int value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        private static void sort(long[] timestamps, int[] values) {
+            Integer[] order = new Integer[timestamps.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            long[] originalTimestamps = timestamps.clone();
+            int[] originalValues = values.clone();
+            for (int i = 0; i < order.length; i++) {
+                timestamps[i] = originalTimestamps[order[i]];
+                values[i] = originalValues[order[i]];
+            }
+        }
+    }
+
+    /**
+     * Writes {@code [[timestamp, value], ...]}, with null for missing values
+     */
+    static final class Serializer extends StdSerializer<IntTimeSeries> {
+
+        Serializer() {
+            super(IntTimeSeries.class);
+        }
+
+        @Override
+        public void serialize(IntTimeSeries series, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartArray();
+            for (int i = 0; i < series.size(); i++) {
+                generator.writeStartArray();
+                generator.writeNumber(series.timestamps[i]);
+                if (series.isPresent(i)) {
+                    generator.writeNumber(series.values[i]);
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Reads Garmin's {@code [[timestamp, value], ...]} arrays straight into primitive arrays.
+     * The value is the first number after the timestamp, so rows such as body battery's
+     * {@code [timestamp, "MEASURED", level, version]} are read as well; null values are kept as missing.
+     */
+    static class Deserializer extends StdDeserializer<IntTimeSeries> {
+
+        private final boolean negativeMissing;
+
+        Deserializer() {
+            this(false);
+        }
+
+        Deserializer(boolean negativeMissing) {
+            super(IntTimeSeries.class);
+            this.negativeMissing = negativeMissing;
+        }
+
+        @Override
+        public IntTimeSeries deserialize(JsonParser parser, DeserializationContext context) throws JacksonException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (IntTimeSeries) context.handleUnexpectedToken(IntTimeSeries.class, parser);
+            }
+            Builder builder = builder();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_ARRAY) {
+                    readSample(parser, builder, negativeMissing);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return builder.build();
+        }
+
+        private static void readSample(JsonParser parser, Builder builder, boolean negativeMissing) {
+            JsonToken token = parser.nextToken();
+            if (!token.isNumeric()) {
+                skipRest(parser, token);
+                return;
+            }
+            long timestamp = parser.getLongValue();
+
+            boolean read = false;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (read) {
+                    parser.skipChildren();
+                } else if (token == JsonToken.VALUE_NULL) {
+                    builder.addMissing(timestamp);
+                    read = true;
+                } else if (token.isNumeric()) {
+                    int value = token == JsonToken.VALUE_NUMBER_INT
+                            ? parser.getIntValue()
+                            : (int) Math.round(parser.getDoubleValue());
+                    if (negativeMissing && value < 0) {
+                        builder.addMissing(timestamp);
+                    } else {
+                        builder.add(timestamp, value);
+                    }
+                    read = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!read) {
+                builder.addMissing(timestamp);
+            }
+        }
+
+        private static void skipRest(JsonParser parser, JsonToken token) {
+            while (token != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    /**
+     * Reads sample arrays whose negative values are sentinels rather than measurements, such as the stress levels
+     * Garmin reports as -1 or -2 during rest or activity, keeping those samples as missing
+     */
+    static final class NonNegativeDeserializer extends Deserializer {
+
+        NonNegativeDeserializer() {
+            super(true);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pulse oximetry of a day
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SpO2Data {
+    private Long userProfilePK;
+    private LocalDate calendarDate;
+    private LocalDateTime startTimestampGMT;
+    private LocalDateTime endTimestampGMT;
+    private LocalDateTime sleepStartTimestampGMT;
+    private LocalDateTime sleepEndTimestampGMT;
+    private Integer averageSpO2;
+    private Integer lowestSpO2;
+    private Integer latestSpO2;
+    private LocalDateTime latestSpO2TimestampGMT;
+    private Double lastSevenDaysAvgSpO2;
+    private Double avgSleepSpO2;
+
+    private IntTimeSeries spO2HourlyAverages;
+}
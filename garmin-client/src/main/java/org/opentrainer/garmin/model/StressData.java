@@ -0,0 +1,29 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import tools.jackson.databind.annotation.JsonDeserialize;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Stress levels of a day
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StressData {
+    private Long userProfilePK;
+    private LocalDate calendarDate;
+    private LocalDateTime startTimestampGMT;
+    private LocalDateTime endTimestampGMT;
+    private Integer maxStressLevel;
+    private Integer avgStressLevel;
+
+    /**
+     * Stress levels; the negative levels marking rest or unmeasurable periods are kept as missing samples
+     */
+    @JsonDeserialize(using = IntTimeSeries.NonNegativeDeserializer.class)
+    private IntTimeSeries stressValuesArray;
+    private IntTimeSeries bodyBatteryValuesArray;
+}
@@ -0,0 +1,41 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Training readiness score and the factors behind it; a day may have several, e.g. on waking and after activities
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TrainingReadiness {
+    private LocalDate calendarDate;
+    private LocalDateTime timestamp;
+    private LocalDateTime timestampLocal;
+    private Long deviceId;
+    private Integer score;
+    private String level;
+    private String feedbackShort;
+    private String feedbackLong;
+    private String inputContext;
+    private Integer sleepScore;
+    private Integer sleepScoreFactorPercent;
+    private String sleepScoreFactorFeedback;
+    private Integer sleepHistoryFactorPercent;
+    private String sleepHistoryFactorFeedback;
+    private Integer recoveryTime;
+    private Integer recoveryTimeFactorPercent;
+    private String recoveryTimeFactorFeedback;
+    private Integer acuteLoad;
+    private Integer acwrFactorPercent;
+    private String acwrFactorFeedback;
+    private Integer stressHistoryFactorPercent;
+    private String stressHistoryFactorFeedback;
+    private Integer hrvWeeklyAverage;
+    private Integer hrvFactorPercent;
+    private String hrvFactorFeedback;
+    private Boolean validSleep;
+}
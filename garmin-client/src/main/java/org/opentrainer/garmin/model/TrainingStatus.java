@@ -0,0 +1,103 @@
+package org.opentrainer.garmin.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Aggregated training status: latest VO2 max, training load balance and status per device
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TrainingStatus {
+    private Long userId;
+    private MostRecentVo2Max mostRecentVO2Max;
+    private MostRecentLoadBalance mostRecentTrainingLoadBalance;
+    private MostRecentStatus mostRecentTrainingStatus;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MostRecentVo2Max {
+        private Vo2Max generic;
+        private Vo2Max cycling;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Vo2Max {
+        private LocalDate calendarDate;
+        private Double vo2MaxPreciseValue;
+        private Double vo2MaxValue;
+        private Double fitnessAge;
+        private Integer maxMetCategory;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MostRecentLoadBalance {
+        /**
+         * Load balance keyed by device id
+         */
+        private Map<String, LoadBalance> metricsTrainingLoadBalanceDTOMap;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class LoadBalance {
+        private LocalDate calendarDate;
+        private Long deviceId;
+        private Double monthlyLoadAerobicLow;
+        private Double monthlyLoadAerobicHigh;
+        private Double monthlyLoadAnaerobic;
+        private Double monthlyLoadAerobicLowTargetMin;
+        private Double monthlyLoadAerobicLowTargetMax;
+        private Double monthlyLoadAerobicHighTargetMin;
+        private Double monthlyLoadAerobicHighTargetMax;
+        private Double monthlyLoadAnaerobicTargetMin;
+        private Double monthlyLoadAnaerobicTargetMax;
+        private String trainingBalanceFeedbackPhrase;
+        private Boolean primaryTrainingDevice;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MostRecentStatus {
+        /**
+         * Status keyed by device id
+         */
+        private Map<String, StatusData> latestTrainingStatusData;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class StatusData {
+        private LocalDate calendarDate;
+        private LocalDate sinceDate;
+        private Long deviceId;
+        private Long timestamp;
+        private Integer weeklyTrainingLoad;
+        private Integer trainingStatus;
+        private String trainingStatusFeedbackPhrase;
+        private Integer loadTunnelMin;
+        private Integer loadTunnelMax;
+        private Integer fitnessTrend;
+        private Boolean trainingPaused;
+        private AcuteTrainingLoad acuteTrainingLoadDTO;
+        private Boolean primaryTrainingDevice;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AcuteTrainingLoad {
+        private Double acwrPercent;
+        private String acwrStatus;
+        private String acwrStatusFeedback;
+        private Integer dailyTrainingLoadAcute;
+        private Integer dailyTrainingLoadChronic;
+        private Integer minTrainingLoadChronic;
+        private Integer maxTrainingLoadChronic;
+        private Double dailyAcuteChronicWorkloadRatio;
+    }
+}
@@ -0,0 +1,10 @@
+-- Garmin Client Token Storage
+-- Tokens of each client, encrypted with AES-GCM (IV followed by ciphertext)
+-- Owners are "default" or "tenants/" followed by a tenant id of up to 128 characters
+
+CREATE TABLE IF NOT EXISTS garmin_tokens (
+    owner VARCHAR(160) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    tokens BYTEA NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+);
@@ -8,7 +8,16 @@ and return tokens as JSON.
 Usage:
     python3 java_auth_helper.py <email> <password>
     python3 java_auth_helper.py load [tokenstore_path]
-    python3 java_auth_helper.py refresh <refresh_token>
+    python3 java_auth_helper.py refresh [tokenstore_path]
+    python3 java_auth_helper.py serve
+
+In serve mode the script stays running and answers newline-delimited JSON
+requests on stdin, one JSON response line per request on stdout:
+    {"id": 1, "command": "authenticate", "email": "...", "password": "..."}
+    {"id": 2, "command": "load", "tokenstore": "..."}
+    {"id": 3, "command": "refresh", "tokenstore": "..."}
+    {"id": 4, "command": "ping"}
+Each response carries the id of its request.
 """
 
 import sys
@@ -46,6 +55,7 @@ def authenticate(email: str, password: str, is_cn: bool = False):
         oauth1_secret = None
         oauth2_access_token = None
         oauth2_refresh_token = None
+        oauth2_expires_at = None
         
         if garmin.garth.oauth1_token:
             oauth1_token = garmin.garth.oauth1_token.token
@@ -54,6 +64,7 @@ def authenticate(email: str, password: str, is_cn: bool = False):
         if garmin.garth.oauth2_token:
             oauth2_access_token = garmin.garth.oauth2_token.access_token
             oauth2_refresh_token = garmin.garth.oauth2_token.refresh_token
+            oauth2_expires_at = garmin.garth.oauth2_token.expires_at
         
         # Save tokens for future use
         tokenstore = os.getenv("GARMINTOKENS", str(Path.home() / ".garminconnect"))
@@ -69,6 +80,7 @@ def authenticate(email: str, password: str, is_cn: bool = False):
             "oauth1_secret": oauth1_secret,
             "oauth2_access_token": oauth2_access_token,
             "oauth2_refresh_token": oauth2_refresh_token,
+            "oauth2_expires_at": oauth2_expires_at,
             "display_name": display_name,
             "full_name": full_name,
             "error": None
@@ -104,6 +116,7 @@ def resume_login(client_state: str, mfa_code: str, is_cn: bool = False):
         oauth1_secret = None
         oauth2_access_token = None
         oauth2_refresh_token = None
+        oauth2_expires_at = None
         
         if garmin.garth.oauth1_token:
             oauth1_token = garmin.garth.oauth1_token.token
@@ -112,6 +125,7 @@ def resume_login(client_state: str, mfa_code: str, is_cn: bool = False):
         if garmin.garth.oauth2_token:
             oauth2_access_token = garmin.garth.oauth2_token.access_token
             oauth2_refresh_token = garmin.garth.oauth2_token.refresh_token
+            oauth2_expires_at = garmin.garth.oauth2_token.expires_at
         
         # Save tokens
         tokenstore = os.getenv("GARMINTOKENS", str(Path.home() / ".garminconnect"))
@@ -126,6 +140,7 @@ def resume_login(client_state: str, mfa_code: str, is_cn: bool = False):
             "oauth1_secret": oauth1_secret,
             "oauth2_access_token": oauth2_access_token,
             "oauth2_refresh_token": oauth2_refresh_token,
+            "oauth2_expires_at": oauth2_expires_at,
             "display_name": display_name,
             "full_name": full_name,
             "error": None
@@ -156,6 +171,7 @@ def load_tokens(tokenstore: str = None):
         oauth1_secret = None
         oauth2_access_token = None
         oauth2_refresh_token = None
+        oauth2_expires_at = None
         
         if garmin.garth.oauth1_token:
             oauth1_token = garmin.garth.oauth1_token.token
@@ -164,6 +180,7 @@ def load_tokens(tokenstore: str = None):
         if garmin.garth.oauth2_token:
             oauth2_access_token = garmin.garth.oauth2_token.access_token
             oauth2_refresh_token = garmin.garth.oauth2_token.refresh_token
+            oauth2_expires_at = garmin.garth.oauth2_token.expires_at
         
         display_name = garmin.display_name
         full_name = garmin.full_name
@@ -174,6 +191,7 @@ def load_tokens(tokenstore: str = None):
             "oauth1_secret": oauth1_secret,
             "oauth2_access_token": oauth2_access_token,
             "oauth2_refresh_token": oauth2_refresh_token,
+            "oauth2_expires_at": oauth2_expires_at,
             "display_name": display_name,
             "full_name": full_name,
             "error": None
@@ -199,6 +217,69 @@ def load_tokens(tokenstore: str = None):
         })
 
 
+def refresh_tokens(tokenstore: str = None):
+    """Exchange the stored OAuth1 token for a new OAuth2 token and store it."""
+    try:
+        if not tokenstore:
+            tokenstore = os.getenv("GARMINTOKENS", str(Path.home() / ".garminconnect"))
+
+        garmin = Garmin()
+        garmin.garth.load(tokenstore)
+        garmin.garth.refresh_oauth2()
+        garmin.garth.dump(tokenstore)
+
+        oauth2_token = garmin.garth.oauth2_token
+        return json.dumps({
+            "status": "success",
+            "oauth1_token": garmin.garth.oauth1_token.token,
+            "oauth1_secret": garmin.garth.oauth1_token.token_secret,
+            "oauth2_access_token": oauth2_token.access_token,
+            "oauth2_refresh_token": oauth2_token.refresh_token,
+            "oauth2_expires_at": oauth2_token.expires_at,
+            "error": None
+        })
+
+    except Exception as e:
+        return json.dumps({
+            "status": "error",
+            "error": str(e),
+            "oauth1_token": None,
+            "oauth1_secret": None,
+            "oauth2_access_token": None,
+            "oauth2_refresh_token": None
+        })
+
+
+def serve():
+    """Answer JSON-lines requests on stdin until it is closed."""
+    print(json.dumps({"status": "ready"}), flush=True)
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            request = json.loads(line)
+        except ValueError as e:
+            print(json.dumps({"status": "error", "error": "Invalid request: " + str(e)}), flush=True)
+            continue
+
+        command = request.get("command")
+        if command == "ping":
+            response = {"status": "success"}
+        elif command == "authenticate":
+            response = json.loads(authenticate(request.get("email"), request.get("password"),
+                                               request.get("is_cn", False)))
+        elif command == "load":
+            response = json.loads(load_tokens(request.get("tokenstore")))
+        elif command == "refresh":
+            response = json.loads(refresh_tokens(request.get("tokenstore")))
+        else:
+            response = {"status": "error", "error": "Unknown command: " + str(command)}
+
+        response["id"] = request.get("id")
+        print(json.dumps(response), flush=True)
+
+
 def main():
     if len(sys.argv) < 2:
         print(json.dumps({
@@ -209,6 +290,17 @@ def main():
     
     command = sys.argv[1].lower()
     
+    if command == "serve":
+        serve()
+        sys.exit(0)
+
+    if command == "refresh":
+        tokenstore = sys.argv[2] if len(sys.argv) > 2 else None
+        result = refresh_tokens(tokenstore)
+        print(result)
+        response = json.loads(result)
+        sys.exit(0 if response.get("status") == "success" else 1)
+
     if command == "authenticate" and len(sys.argv) >= 4:
         email = sys.argv[2]
         password = sys.argv[3]
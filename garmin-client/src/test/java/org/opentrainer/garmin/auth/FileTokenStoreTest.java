@@ -0,0 +1,78 @@
+package org.opentrainer.garmin.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileTokenStoreTest {
+
+    @TempDir
+    Path tokenDir;
+
+    private FileTokenStore store() {
+        return new FileTokenStore(tokenDir.resolve("tenants/alice/garmin-tokens.json"), JsonMapper.builder().build(), false);
+    }
+
+    private static OAuth2Token accessToken(String value) {
+        return OAuth2Token.builder().accessToken(value).tokenType("Bearer").build();
+    }
+
+    @Test
+    void savesNewVersionOnEachWrite() throws Exception {
+        FileTokenStore store = store();
+        assertThat(store.load()).isEmpty();
+
+        assertThat(store.save(OAuth1Token.builder().token("token").tokenSecret("secret").build(),
+                accessToken("first"), 0)).isEqualTo(1);
+        assertThat(store.save(null, accessToken("second"), 1)).isEqualTo(2);
+
+        assertThat(store().load()).get()
+                .satisfies(tokens -> assertThat(tokens.getVersion()).isEqualTo(2))
+                .extracting(tokens -> tokens.getOauth2Token().getAccessToken()).isEqualTo("second");
+        try (var files = Files.list(tokenDir.resolve("tenants/alice"))) {
+            assertThat(files).extracting(path -> path.getFileName().toString()).containsExactly("garmin-tokens.json");
+        }
+    }
+
+    @Test
+    void saveOfStaleVersionConflicts() {
+        FileTokenStore store = store();
+        store.save(null, accessToken("first"), 0);
+        store().save(null, accessToken("second"), 1);
+
+        assertThatThrownBy(() -> store.save(null, accessToken("stale"), 1))
+                .isInstanceOf(GarminTokenConflictException.class);
+        assertThat(store.load()).get().extracting(tokens -> tokens.getOauth2Token().getAccessToken())
+                .isEqualTo("second");
+    }
+
+    @Test
+    void unreadableFileIsTreatedAsEmpty() throws Exception {
+        Path path = tokenDir.resolve("tenants/alice/garmin-tokens.json");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, "{\"oauth2Token\":");
+        FileTokenStore store = store();
+
+        assertThat(store.load()).isEmpty();
+        assertThat(store.save(null, accessToken("first"), 0)).isEqualTo(1);
+        assertThat(store.load()).get().extracting(StoredTokens::getVersion).isEqualTo(1L);
+    }
+
+    @Test
+    void deleteRemovesFile() {
+        FileTokenStore store = store();
+        store.save(null, accessToken("first"), 0);
+
+        store.delete();
+
+        assertThat(tokenDir.resolve("tenants/alice/garmin-tokens.json")).doesNotExist();
+        assertThat(store.load()).isEmpty();
+    }
+}
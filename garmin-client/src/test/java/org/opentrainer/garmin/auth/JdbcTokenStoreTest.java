@@ -0,0 +1,114 @@
+package org.opentrainer.garmin.auth;
+
+import org.junit.jupiter.api.Test;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.exception.GarminTokenConflictException;
+import org.opentrainer.garmin.support.MutableClock;
+import org.opentrainer.garmin.support.TokenTable;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcTokenStoreTest {
+
+    private static final String OWNER = "tenants/alice";
+
+    private final TokenTable table = new TokenTable();
+    private final TokenCipher cipher = new TokenCipher(Base64.getEncoder().encodeToString(new byte[32]));
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private JdbcTokenStore store() {
+        return new JdbcTokenStore(table, OWNER, cipher, jsonMapper, Duration.ofSeconds(30), clock);
+    }
+
+    private static OAuth2Token accessToken(String value) {
+        return OAuth2Token.builder().accessToken(value).tokenType("Bearer").build();
+    }
+
+    @Test
+    void onlyFirstOfConcurrentInsertsIsStored() {
+        JdbcTokenStore node1 = store();
+        JdbcTokenStore node2 = store();
+
+        assertThat(node1.save(null, accessToken("first"), 0)).isEqualTo(1);
+        assertThatThrownBy(() -> node2.save(null, accessToken("second"), 0))
+                .isInstanceOf(GarminTokenConflictException.class);
+
+        assertThat(node2.load()).get()
+                .satisfies(tokens -> assertThat(tokens.getVersion()).isEqualTo(1))
+                .extracting(tokens -> tokens.getOauth2Token().getAccessToken()).isEqualTo("first");
+    }
+
+    @Test
+    void updateOfStaleVersionConflicts() {
+        JdbcTokenStore node1 = store();
+        JdbcTokenStore node2 = store();
+        node1.save(null, accessToken("first"), 0);
+        assertThat(node2.load()).get().extracting(StoredTokens::getVersion).isEqualTo(1L);
+
+        assertThat(node1.save(null, accessToken("second"), 1)).isEqualTo(2);
+        assertThatThrownBy(() -> node2.save(null, accessToken("stale"), 1))
+                .isInstanceOf(GarminTokenConflictException.class);
+
+        // A conflict drops the cached tokens, so the next load sees the winner's
+        assertThat(node2.load()).get()
+                .satisfies(tokens -> assertThat(tokens.getVersion()).isEqualTo(2))
+                .extracting(tokens -> tokens.getOauth2Token().getAccessToken()).isEqualTo("second");
+        assertThat(table.row(OWNER).version()).isEqualTo(2);
+    }
+
+    @Test
+    void loadIsCachedUntilTtlWhileLoadFreshReadsTable() {
+        JdbcTokenStore node1 = store();
+        JdbcTokenStore node2 = store();
+        node1.save(null, accessToken("first"), 0);
+        node2.load();
+        node1.save(null, accessToken("second"), 1);
+        int selects = table.selects();
+
+        assertThat(node2.load()).get().extracting(StoredTokens::getVersion).isEqualTo(1L);
+        assertThat(table.selects()).isEqualTo(selects);
+        assertThat(node2.loadFresh()).get().extracting(StoredTokens::getVersion).isEqualTo(2L);
+        assertThat(table.selects()).isEqualTo(selects + 1);
+
+        node1.save(null, accessToken("third"), 2);
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(node2.load()).get().extracting(StoredTokens::getVersion).isEqualTo(3L);
+    }
+
+    @Test
+    void storesTokensEncryptedForOwner() {
+        store().save(OAuth1Token.builder().token("token").tokenSecret("secret").build(), accessToken("access"), 0);
+
+        byte[] stored = table.row(OWNER).tokens();
+        assertThat(new String(stored, StandardCharsets.ISO_8859_1)).doesNotContain("access", "secret");
+        assertThat(store().loadFresh()).get().satisfies(tokens -> {
+            assertThat(tokens.getOauth1Token().getTokenSecret()).isEqualTo("secret");
+            assertThat(tokens.getOauth2Token().getAccessToken()).isEqualTo("access");
+        });
+
+        // Tokens copied to another owner's row do not decrypt
+        table.put("tenants/bob", table.row(OWNER));
+        JdbcTokenStore other = new JdbcTokenStore(table, "tenants/bob", cipher, jsonMapper, Duration.ZERO, clock);
+        assertThatThrownBy(other::load).isInstanceOf(GarminClientException.class);
+    }
+
+    @Test
+    void deleteRemovesRow() {
+        JdbcTokenStore store = store();
+        store.save(null, accessToken("access"), 0);
+
+        store.delete();
+
+        assertThat(table.row(OWNER)).isNull();
+        assertThat(store.load()).isEmpty();
+        assertThat(store.save(null, accessToken("again"), 0)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,158 @@
+package org.opentrainer.garmin.auth;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import org.opentrainer.garmin.exception.GarminLoginRejectedException;
+import org.opentrainer.garmin.support.MockGarmin;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class NativeAuthServiceTest {
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private TokenManager tokenManager;
+    private final List<RecordedRequest> requests = new ArrayList<>();
+    private final AtomicReference<String> signinTitle = new AtomicReference<>("Success");
+    private final AtomicReference<String> csrfField = new AtomicReference<>("_csrf");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        String server = garmin.getServer().url("").toString().replaceAll("/$", "");
+        GarminProperties.OAuth oauth = garmin.getProperties().getOauth();
+        oauth.setSsoUrl(server);
+        oauth.setConnectApiUrl(server);
+        oauth.setConsumerUrl(server + "/oauth_consumer.json");
+        tokenManager = new TokenManager(oauth, garmin.getJsonMapper());
+
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.add(request);
+                String path = request.getRequestUrl().encodedPath();
+                return switch (path) {
+                    case "/oauth_consumer.json" -> json("{\"consumer_key\":\"key\",\"consumer_secret\":\"secret\"}");
+                    case "/sso/embed" -> new MockResponse().addHeader("Set-Cookie", "GARMIN-SSO=1; Path=/");
+                    case "/sso/signin" -> "GET".equals(request.getMethod())
+                            ? new MockResponse().setBody("<input type=\"hidden\" name=\"" + csrfField.get()
+                            + "\" value=\"csrf-1\"/>")
+                            : new MockResponse().setBody("<title>" + signinTitle.get() + "</title>"
+                            + "<script>var response_url = \"https://sso.garmin.com/sso/embed?ticket=ST-1\";</script>");
+                    case "/oauth-service/oauth/preauthorized" ->
+                            new MockResponse().setBody("oauth_token=token-1&oauth_token_secret=secret-1");
+                    case "/oauth-service/oauth/exchange/user/2.0" -> json("{\"access_token\":\"access-1\","
+                            + "\"refresh_token\":\"refresh-1\",\"token_type\":\"Bearer\",\"expires_in\":3600,"
+                            + "\"refresh_token_expires_in\":7200}");
+                    default -> new MockResponse().setResponseCode(404);
+                };
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void signsInThroughSsoAndExchangesTicketForTokens() {
+        service(null).authenticate("user@example.com", "password");
+
+        assertThat(tokenManager.getOAuth1Token()).get()
+                .satisfies(token -> assertThat(token.getTokenSecret()).isEqualTo("secret-1"));
+        assertThat(tokenManager.getOAuth2Token()).get()
+                .satisfies(token -> {
+                    assertThat(token.getAccessToken()).isEqualTo("access-1");
+                    assertThat(token.getRefreshToken()).isEqualTo("refresh-1");
+                    assertThat(token.getExpiresAt()).isNotNull();
+                });
+
+        RecordedRequest signin = request("POST", "/sso/signin");
+        assertThat(signin.getHeader("Cookie")).contains("GARMIN-SSO=1");
+        assertThat(signin.getBody().readUtf8()).contains("username=user%40example.com", "_csrf=csrf-1");
+
+        RecordedRequest preauthorized = request("GET", "/oauth-service/oauth/preauthorized");
+        assertThat(preauthorized.getRequestUrl().queryParameter("ticket")).isEqualTo("ST-1");
+        assertThat(preauthorized.getHeader("Authorization"))
+                .startsWith("OAuth ")
+                .contains("oauth_consumer_key=\"key\"", "oauth_signature=")
+                .doesNotContain("oauth_token=");
+
+        assertThat(request("POST", "/oauth-service/oauth/exchange/user/2.0").getHeader("Authorization"))
+                .contains("oauth_token=\"token-1\"", "oauth_signature_method=\"HMAC-SHA1\"");
+    }
+
+    @Test
+    void fallsBackToPythonHelperWhenSsoPageIsUnexpected() {
+        csrfField.set("csrf-renamed");
+        List<String> fallbackLogins = new ArrayList<>();
+
+        service(fallback(fallbackLogins)).authenticate("user@example.com", "password");
+
+        assertThat(fallbackLogins).containsExactly("user@example.com");
+        assertThat(tokenManager.getOAuth2Token()).isEmpty();
+        assertThat(requests).noneMatch(request -> request.getPath().startsWith("/oauth-service"));
+    }
+
+    @Test
+    void rejectedSignInIsNotRepeatedByFallback() {
+        signinTitle.set("GARMIN Authentication Application");
+        List<String> fallbackLogins = new ArrayList<>();
+
+        assertThatThrownBy(() -> service(fallback(fallbackLogins)).authenticate("user@example.com", "wrong"))
+                .isInstanceOf(GarminLoginRejectedException.class);
+
+        assertThat(fallbackLogins).isEmpty();
+        assertThat(requests).filteredOn(request -> request.getMethod().equals("POST")).hasSize(1);
+    }
+
+    @Test
+    void requiresConfiguredConsumerWithoutConsumerUrl() {
+        garmin.getProperties().getOauth().setConsumerUrl(null);
+
+        assertThatThrownBy(() -> service(null).authenticate("user@example.com", "password"))
+                .isInstanceOf(GarminAuthenticationException.class)
+                .hasMessageContaining("consumer key and secret must be configured");
+        assertThat(requests).isEmpty();
+    }
+
+    private PythonAuthService fallback(List<String> fallbackLogins) {
+        return new PythonAuthService(garmin.getProperties(), tokenManager, garmin.getJsonMapper()) {
+            @Override
+            public void authenticate(String email, String password) {
+                fallbackLogins.add(email);
+            }
+        };
+    }
+
+    private NativeAuthService service(PythonAuthService fallback) {
+        return new NativeAuthService(garmin.getProperties(), WebClient.create(), tokenManager,
+                garmin.getJsonMapper(), fallback);
+    }
+
+    private RecordedRequest request(String method, String path) {
+        return requests.stream()
+                .filter(request -> request.getMethod().equals(method)
+                        && request.getRequestUrl().encodedPath().equals(path))
+                .findFirst()
+                .orElseThrow();
+    }
+}
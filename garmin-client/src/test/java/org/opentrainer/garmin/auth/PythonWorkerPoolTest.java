@@ -0,0 +1,146 @@
+package org.opentrainer.garmin.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminAuthenticationException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PythonWorkerPoolTest {
+
+    /**
+     * Stand-in for java_auth_helper.py serve: answers with its process ID, crashes or hangs on request
+     */
+    private static final String WORKER = """
+            import json, os, sys, time
+            print(json.dumps({"status": "ready"}), flush=True)
+            for line in sys.stdin:
+                request = json.loads(line)
+                if request["command"] == "crash":
+                    sys.exit(3)
+                if request["command"] == "hang":
+                    time.sleep(60)
+                print("library output", flush=True)
+                print(json.dumps({"id": request["id"], "status": "success", "pid": os.getpid(),
+                                  "oauth1_token": "token", "oauth1_secret": "secret",
+                                  "oauth2_access_token": "access-" + str(request.get("email")),
+                                  "oauth2_refresh_token": "refresh",
+                                  "oauth2_expires_at": int(time.time()) + 3600}), flush=True)
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final GarminProperties properties = new GarminProperties();
+    private PythonWorkerPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(pythonAvailable(), "python3 is required");
+        Path script = Files.writeString(dir.resolve("worker.py"), WORKER);
+        GarminProperties.OAuth oauth = properties.getOauth();
+        oauth.setAuthHelperPath(script.toString());
+        oauth.setTokenStoragePath(dir.toString());
+        oauth.getPythonPool().setEnabled(true);
+        oauth.getPythonPool().setSize(1);
+        oauth.getPythonPool().setRequestTimeout(Duration.ofSeconds(2));
+        pool = new PythonWorkerPool(oauth, jsonMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void servesAuthenticationFromLongLivedWorker() {
+        TokenManager tokenManager = new TokenManager(properties.getOauth(), jsonMapper);
+        PythonAuthService authService = new PythonAuthService(properties, tokenManager, jsonMapper, pool);
+
+        long pid = pid();
+        authService.authenticate("user@example.com", "password");
+
+        assertThat(pid()).isEqualTo(pid);
+        assertThat(tokenManager.getOAuth1Token()).get()
+                .satisfies(token -> assertThat(token.getTokenSecret()).isEqualTo("secret"));
+        assertThat(tokenManager.getOAuth2Token()).get()
+                .satisfies(token -> {
+                    assertThat(token.getAccessToken()).isEqualTo("access-user@example.com");
+                    assertThat(token.getExpiresAt()).isAfter(Instant.now().plusSeconds(3000));
+                });
+    }
+
+    @Test
+    void restartsWorkersThatCrashOrTimeOut() {
+        long first = pid();
+
+        assertThatThrownBy(() -> pool.call("crash", Map.of()))
+                .isInstanceOf(GarminAuthenticationException.class);
+        long second = pid();
+        assertThat(second).isNotEqualTo(first);
+
+        assertThatThrownBy(() -> pool.call("hang", Map.of()))
+                .isInstanceOf(GarminAuthenticationException.class)
+                .hasMessageContaining("timed out");
+        assertThat(pid()).isNotEqualTo(second);
+    }
+
+    @Test
+    void waitingForWorkerCountsAgainstRequestTimeout() throws Exception {
+        pid();
+        CompletableFuture<Void> busy = CompletableFuture.runAsync(() -> {
+            try {
+                pool.call("hang", Map.of());
+            } catch (GarminAuthenticationException e) {
+                // Expected: the worker is held until it times out
+            }
+        });
+        Thread.sleep(200);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> pool.call("hang", Map.of()))
+                .isInstanceOf(GarminAuthenticationException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(3));
+        busy.join();
+    }
+
+    @Test
+    void healthCheckReturnsEveryWorker() {
+        pool.close();
+        properties.getOauth().getPythonPool().setSize(2);
+        pool = new PythonWorkerPool(properties.getOauth(), jsonMapper);
+        pool.start();
+
+        pool.checkHealth();
+
+        assertThat(pid()).isNotEqualTo(pid());
+    }
+
+    private long pid() {
+        return pool.call("ping", Map.of()).path("pid").asLong();
+    }
+
+    private static boolean pythonAvailable() {
+        try {
+            return new ProcessBuilder("python3", "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.opentrainer.garmin.auth;
+
+import org.junit.jupiter.api.Test;
+import org.opentrainer.garmin.exception.GarminClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenCipherTest {
+
+    private final TokenCipher cipher = new TokenCipher(Base64.getEncoder().encodeToString(new byte[32]));
+
+    @Test
+    void decryptsWhatItEncryptedForTheSameOwner() {
+        byte[] plaintext = "{\"oauth1Token\":{}}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encrypted = cipher.encrypt(plaintext, "tenants/alice");
+
+        assertThat(encrypted).isNotEqualTo(cipher.encrypt(plaintext, "tenants/alice"));
+        assertThat(new String(encrypted, StandardCharsets.ISO_8859_1)).doesNotContain("oauth1Token");
+        assertThat(cipher.decrypt(encrypted, "tenants/alice")).isEqualTo(plaintext);
+    }
+
+    @Test
+    void rejectsTamperedTokensAndOtherOwners() {
+        byte[] encrypted = cipher.encrypt("tokens".getBytes(StandardCharsets.UTF_8), "tenants/alice");
+
+        assertThatThrownBy(() -> cipher.decrypt(encrypted, "tenants/bob"))
+                .isInstanceOf(GarminClientException.class);
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThatThrownBy(() -> cipher.decrypt(encrypted, "tenants/alice"))
+                .isInstanceOf(GarminClientException.class);
+        assertThatThrownBy(() -> new TokenCipher(Base64.getEncoder().encodeToString(new byte[10])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
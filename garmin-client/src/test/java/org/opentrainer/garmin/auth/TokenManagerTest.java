@@ -0,0 +1,136 @@
+package org.opentrainer.garmin.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenManagerTest {
+
+    @TempDir
+    Path tokenDir;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final GarminProperties.OAuth oauth = new GarminProperties.OAuth();
+
+    @Test
+    void persistsLatestTokensThroughAtomicReplace() throws Exception {
+        oauth.setTokenStoragePath(tokenDir.toString());
+        oauth.setFsyncTokenStorage(true);
+        TokenManager tokenManager = new TokenManager(oauth, jsonMapper);
+
+        tokenManager.storeOAuth1Token(OAuth1Token.builder().token("token").tokenSecret("secret").build());
+        for (int i = 0; i < 100; i++) {
+            tokenManager.storeOAuth2Token(accessToken("access-" + i));
+        }
+        tokenManager.flush();
+
+        assertThat(tokenDir.resolve("garmin-tokens.json.tmp")).doesNotExist();
+        TokenManager reloaded = new TokenManager(oauth, jsonMapper);
+        assertThat(reloaded.getOAuth1Token()).get().extracting(OAuth1Token::getToken).isEqualTo("token");
+        assertThat(reloaded.getOAuth2Token()).get().extracting(OAuth2Token::getAccessToken).isEqualTo("access-99");
+
+        tokenManager.clearTokens();
+        tokenManager.flush();
+        assertThat(tokenDir.resolve("garmin-tokens.json")).doesNotExist();
+    }
+
+    @Test
+    void truncatedTokenFileIsIgnored() throws Exception {
+        oauth.setTokenStoragePath(tokenDir.toString());
+        Files.writeString(tokenDir.resolve("garmin-tokens.json"), "{\"oauth2Token\":{\"accessTo");
+
+        TokenManager tokenManager = new TokenManager(oauth, jsonMapper);
+
+        assertThat(tokenManager.getOAuth2Token()).isEmpty();
+        tokenManager.storeOAuth2Token(accessToken("access"));
+        tokenManager.flush();
+        assertThat(new TokenManager(oauth, jsonMapper).getOAuth2Token()).isPresent();
+    }
+
+    @Test
+    void adoptsTokensStoredConcurrentlyByAnotherNode() {
+        InMemoryTokenStore store = new InMemoryTokenStore();
+        TokenManager first = new TokenManager(oauth, store);
+        TokenManager second = new TokenManager(oauth, store);
+
+        first.storeOAuth2Token(accessToken("first"));
+        first.flush();
+        second.storeOAuth2Token(accessToken("second"));
+        second.flush();
+
+        assertThat(store.load()).get().extracting(StoredTokens::getVersion).isEqualTo(1L);
+        assertThat(second.getOAuth2Token()).get().extracting(OAuth2Token::getAccessToken).isEqualTo("first");
+
+        second.storeOAuth2Token(accessToken("renewed"));
+        second.flush();
+        assertThat(first.reload()).isTrue();
+        assertThat(first.getOAuth2Token()).get().extracting(OAuth2Token::getAccessToken).isEqualTo("renewed");
+        assertThat(first.reload()).isFalse();
+    }
+
+    @Test
+    void reloadReadsPastTheStoreCache() {
+        InMemoryTokenStore shared = new InMemoryTokenStore();
+        TokenManager first = new TokenManager(oauth, shared);
+        first.storeOAuth2Token(accessToken("first"));
+        first.flush();
+        Optional<StoredTokens> cached = shared.load();
+        InMemoryTokenStore caching = new InMemoryTokenStore() {
+            @Override
+            public synchronized Optional<StoredTokens> load() {
+                return cached;
+            }
+
+            @Override
+            public synchronized Optional<StoredTokens> loadFresh() {
+                return shared.load();
+            }
+        };
+        TokenManager second = new TokenManager(oauth, caching);
+
+        first.storeOAuth2Token(accessToken("renewed"));
+        first.flush();
+
+        assertThat(second.reload()).isTrue();
+        assertThat(second.getOAuth2Token()).get().extracting(OAuth2Token::getAccessToken).isEqualTo("renewed");
+    }
+
+    @Test
+    void failedWriteIsRetriedOnFlush() {
+        AtomicInteger failures = new AtomicInteger(1);
+        InMemoryTokenStore store = new InMemoryTokenStore() {
+            @Override
+            public synchronized long save(OAuth1Token oauth1Token, OAuth2Token oauth2Token, long expectedVersion) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("connection pool exhausted");
+                }
+                return super.save(oauth1Token, oauth2Token, expectedVersion);
+            }
+        };
+        TokenManager tokenManager = new TokenManager(oauth, store);
+
+        tokenManager.storeOAuth2Token(accessToken("access"));
+        tokenManager.flush();
+        tokenManager.flush();
+
+        assertThat(store.load()).get().extracting(stored -> stored.getOauth2Token().getAccessToken())
+                .isEqualTo("access");
+    }
+
+    private static OAuth2Token accessToken(String value) {
+        return OAuth2Token.builder()
+                .accessToken(value)
+                .tokenType("Bearer")
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+    }
+}
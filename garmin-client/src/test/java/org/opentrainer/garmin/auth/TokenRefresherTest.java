@@ -0,0 +1,150 @@
+package org.opentrainer.garmin.auth;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import org.opentrainer.garmin.support.MutableClock;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class TokenRefresherTest {
+
+    private static final String EXCHANGE_PATH = "/oauth-service/oauth/exchange/user/2.0";
+    private static final String DEVICE_PATH = "/device-service/deviceservice/mylastused";
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        GarminProperties.OAuth oauth = garmin.getProperties().getOauth();
+        oauth.setConnectApiUrl(garmin.getServer().url("").toString().replaceAll("/$", ""));
+        oauth.setConsumerKey("key");
+        oauth.setConsumerSecret("secret");
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.add(request);
+                if (request.getPath().equals(EXCHANGE_PATH)) {
+                    return json("{\"access_token\":\"refreshed\",\"token_type\":\"Bearer\",\"expires_in\":3600}")
+                            .setBodyDelay(300, TimeUnit.MILLISECONDS);
+                }
+                return json("{\"deviceId\":1}");
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void concurrentRequestsWithExpiredTokenShareOneRefresh() {
+        GarminWebClient client = garmin.client();
+        TokenManager tokenManager = garmin.tokenManager();
+        tokenManager.storeOAuth1Token(OAuth1Token.builder().token("token").tokenSecret("secret").build());
+        tokenManager.storeOAuth2Token(OAuth2Token.builder()
+                .accessToken("expired")
+                .tokenType("Bearer")
+                .expiresAt(Instant.now().minusSeconds(1))
+                .build());
+
+        Mono.zip(client.get(DEVICE_PATH, Device.class), client.get(DEVICE_PATH + "?v=2", Device.class)).block();
+
+        assertThat(requests).filteredOn(request -> request.getPath().equals(EXCHANGE_PATH)).hasSize(1)
+                .first()
+                .satisfies(request -> assertThat(request.getHeader("Authorization"))
+                        .startsWith("OAuth ")
+                        .contains("oauth_token=\"token\""));
+        assertThat(requests).filteredOn(request -> request.getPath().startsWith(DEVICE_PATH))
+                .extracting(request -> request.getHeader("Authorization"))
+                .containsOnly("Bearer refreshed");
+        assertThat(tokenManager.getOAuth2Token()).get()
+                .extracting(OAuth2Token::getAccessToken).isEqualTo("refreshed");
+        client.close();
+    }
+
+    @Test
+    void renewsTokenAheadOfExpiry() throws Exception {
+        GarminProperties.OAuth oauth = garmin.getProperties().getOauth();
+        oauth.setRefreshThreshold(Duration.ofSeconds(1));
+        oauth.setRefreshJitter(Duration.ZERO);
+        TokenManager tokenManager = new TokenManager(oauth, garmin.getJsonMapper());
+        tokenManager.storeOAuth1Token(OAuth1Token.builder().token("token").tokenSecret("secret").build());
+        OAuth2Token expiring = OAuth2Token.builder()
+                .accessToken("expiring")
+                .expiresAt(Instant.now().plusMillis(1500))
+                .build();
+        tokenManager.storeOAuth2Token(expiring);
+
+        AtomicInteger exchanges = new AtomicInteger();
+        try (TokenRefresher refresher = new TokenRefresher(tokenManager, oauth, oauth1 -> Mono.fromSupplier(() -> {
+            exchanges.incrementAndGet();
+            return OAuth2Token.builder().accessToken("renewed").expiresAt(Instant.now().plusSeconds(3600)).build();
+        }))) {
+            refresher.schedule(expiring);
+            refresher.schedule(expiring);
+
+            Instant deadline = Instant.now().plusSeconds(3);
+            while (!"renewed".equals(tokenManager.getOAuth2Token().map(OAuth2Token::getAccessToken).orElse(null))
+                    && Instant.now().isBefore(deadline)) {
+                Thread.sleep(50);
+            }
+            assertThat(tokenManager.getOAuth2Token()).get()
+                    .extracting(OAuth2Token::getAccessToken).isEqualTo("renewed");
+            assertThat(exchanges.get()).isEqualTo(1);
+        }
+        // Finish the background token write before the temporary directory is deleted
+        tokenManager.flush();
+    }
+
+    @Test
+    void backsOffAfterFailedRefresh() {
+        GarminProperties.OAuth oauth = garmin.getProperties().getOauth();
+        oauth.setRefreshBackoff(Duration.ofSeconds(10));
+        TokenManager tokenManager = new TokenManager(oauth, garmin.getJsonMapper());
+        tokenManager.storeOAuth1Token(OAuth1Token.builder().token("token").tokenSecret("secret").build());
+        MutableClock clock = new MutableClock(Instant.now());
+
+        AtomicInteger exchanges = new AtomicInteger();
+        try (TokenRefresher refresher = new TokenRefresher(tokenManager, oauth, oauth1 -> Mono.defer(() -> {
+            exchanges.incrementAndGet();
+            return Mono.error(new IllegalStateException("429 Too Many Requests"));
+        }), clock)) {
+            assertThatThrownBy(() -> refresher.refresh().block()).hasMessageContaining("429");
+            refresher.refreshInBackground();
+            refresher.refreshInBackground();
+            assertThatThrownBy(() -> refresher.refresh().block()).hasMessageContaining("failed recently");
+            assertThat(exchanges.get()).isEqualTo(1);
+
+            clock.advance(Duration.ofSeconds(10));
+            assertThatThrownBy(() -> refresher.refresh().block()).hasMessageContaining("429");
+            assertThat(exchanges.get()).isEqualTo(2);
+        }
+        tokenManager.flush();
+    }
+}
@@ -0,0 +1,229 @@
+package org.opentrainer.garmin.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Meter;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.auth.InMemoryTokenStore;
+import org.opentrainer.garmin.auth.OAuth2Token;
+import org.opentrainer.garmin.auth.StoredTokens;
+import org.opentrainer.garmin.client.http.RetryBudget;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import org.opentrainer.garmin.support.MutableClock;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class GarminClientRegistryTest {
+
+    private static final String DEVICE_PATH = "/device-service/deviceservice/mylastused";
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private MutableClock clock;
+    private GarminClientRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return "Bearer token-broken".equals(request.getHeader("Authorization"))
+                        ? new MockResponse().setResponseCode(503)
+                        : json("{\"deviceId\":1}");
+            }
+        });
+        clock = new MutableClock(Instant.parse("2024-03-01T00:00:00Z"));
+        registry = createRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        registry.close();
+        garmin.close();
+    }
+
+    @Test
+    void tenantsUseTheirOwnTokens() throws Exception {
+        authenticate("alice", "token-alice");
+        authenticate("bob", "token-bob");
+
+        registry.client("alice").getDeviceService().getDeviceLastUsed().block();
+        registry.client("bob").getDeviceService().getDeviceLastUsed().block();
+
+        assertThat(garmin.getServer().takeRequest().getHeader("Authorization")).isEqualTo("Bearer token-alice");
+        assertThat(garmin.getServer().takeRequest().getHeader("Authorization")).isEqualTo("Bearer token-bob");
+        registry.tokenManager("alice").flush();
+        registry.tokenManager("bob").flush();
+        assertThat(tokenDir.resolve("tenants/alice/garmin-tokens.json")).exists();
+        assertThat(tokenDir.resolve("tenants/bob/garmin-tokens.json")).exists();
+    }
+
+    @Test
+    void openBreakerIsolatesOnlyItsTenant() {
+        authenticate("broken", "token-broken");
+        authenticate("healthy", "token-healthy");
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> registry.webClient("broken").get(DEVICE_PATH, Device.class).block());
+        }
+
+        assertThat(garmin.getServer().getRequestCount()).isEqualTo(2);
+        assertThat(registry.webClient("healthy").get(DEVICE_PATH, Device.class).block().getDeviceId()).isEqualTo(1L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndIdleTenants() {
+        garmin.getProperties().getTenants().setMaxTenants(2);
+        garmin.getProperties().getTenants().setIdleTimeout(Duration.ofMinutes(10));
+
+        GarminConnectClient first = registry.client("a");
+        registry.client("b");
+        registry.client("a");
+        registry.client("c");
+
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.client("a")).isSameAs(first);
+
+        clock.advance(Duration.ofMinutes(11));
+        registry.evictIdle();
+
+        assertThat(registry.size()).isZero();
+        assertThat(registry.client("a")).isNotSameAs(first);
+    }
+
+    @Test
+    void backgroundSweepEvictsIdleTenants() throws Exception {
+        registry.close();
+        garmin.getProperties().getTenants().setIdleTimeout(Duration.ofMinutes(10));
+        garmin.getProperties().getTenants().setIdleSweepInterval(Duration.ofMillis(50));
+        registry = createRegistry();
+        authenticate("alice", "token-alice");
+
+        clock.advance(Duration.ofMinutes(11));
+        Instant deadline = Instant.now().plusSeconds(3);
+        while (registry.size() > 0 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+
+        assertThat(registry.size()).isZero();
+        assertThat(tokenDir.resolve("tenants/alice/garmin-tokens.json")).exists();
+    }
+
+    @Test
+    void evictionAndCloseWritePendingTokens() {
+        authenticate("alice", "token-alice");
+        registry.evict("alice");
+        assertThat(tokenDir.resolve("tenants/alice/garmin-tokens.json")).exists();
+        assertThat(registry.tokenManager("alice").getOAuth2Token()).get()
+                .extracting(OAuth2Token::getAccessToken).isEqualTo("token-alice");
+
+        authenticate("bob", "token-bob");
+        registry.close();
+        assertThat(registry.size()).isZero();
+        assertThat(tokenDir.resolve("tenants/bob/garmin-tokens.json")).exists();
+    }
+
+    @Test
+    void evictionRemovesTenantMeters() {
+        authenticate("alice", "token-alice");
+        registry.webClient("alice").get(DEVICE_PATH, Device.class).block();
+        assertThat(tenantMeters("garmin-alice")).isNotEmpty();
+
+        registry.evict("alice");
+
+        assertThat(tenantMeters("garmin-alice")).isEmpty();
+    }
+
+    @Test
+    void slowTokenStoreDoesNotBlockOtherTenants() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GarminClientRegistry slowStores = new GarminClientRegistry(
+                garmin.getProperties(),
+                WebClient.builder().baseUrl(garmin.getServer().url("/").toString()).build(),
+                garmin.getJsonMapper(),
+                garmin.getMeterRegistry(),
+                CircuitBreakerConfig.ofDefaults(),
+                RateLimiterConfig.ofDefaults(),
+                RetryConfig.custom().maxAttempts(1).build(),
+                new RetryBudget(garmin.getProperties().getResilience().getRetry(), garmin.getMeterRegistry()),
+                null,
+                tenantId -> !"slow".equals(tenantId) ? new InMemoryTokenStore() : new InMemoryTokenStore() {
+                    @Override
+                    public Optional<StoredTokens> loadFresh() {
+                        loading.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return super.loadFresh();
+                    }
+                },
+                clock);
+
+        CompletableFuture<GarminConnectClient> slow = CompletableFuture.supplyAsync(() -> slowStores.client("slow"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(CompletableFuture.supplyAsync(() -> slowStores.client("fast")).get(5, TimeUnit.SECONDS)).isNotNull();
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isSameAs(slowStores.client("slow"));
+        slowStores.close();
+    }
+
+    @Test
+    void rejectsTenantIdsUnsafeForTokenPaths() {
+        assertThatThrownBy(() -> registry.client("../other")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.client("..")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private GarminClientRegistry createRegistry() {
+        return new GarminClientRegistry(
+                garmin.getProperties(),
+                WebClient.builder().baseUrl(garmin.getServer().url("/").toString()).build(),
+                garmin.getJsonMapper(),
+                garmin.getMeterRegistry(),
+                CircuitBreakerConfig.custom().slidingWindowSize(2).minimumNumberOfCalls(2).build(),
+                RateLimiterConfig.ofDefaults(),
+                RetryConfig.custom().maxAttempts(1).build(),
+                new RetryBudget(garmin.getProperties().getResilience().getRetry(), garmin.getMeterRegistry()),
+                clock);
+    }
+
+    private List<Meter> tenantMeters(String client) {
+        return garmin.getMeterRegistry().getMeters().stream()
+                .filter(meter -> meter.getId().getTags().stream().anyMatch(tag -> tag.getValue().startsWith(client)))
+                .toList();
+    }
+
+    private void authenticate(String tenantId, String accessToken) {
+        registry.tokenManager(tenantId).storeOAuth2Token(OAuth2Token.builder()
+                .accessToken(accessToken)
+                .tokenType("Bearer")
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build());
+    }
+}
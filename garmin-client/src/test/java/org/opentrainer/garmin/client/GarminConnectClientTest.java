@@ -0,0 +1,194 @@
+package org.opentrainer.garmin.client;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.client.services.*;
+import org.opentrainer.garmin.model.DailyHealthSnapshot;
+import org.opentrainer.garmin.model.DailyHealthSnapshot.Component;
+import org.opentrainer.garmin.support.MockGarmin;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class GarminConnectClientTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private GarminConnectClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        GarminWebClient webClient = garmin.client();
+        client = new GarminConnectClient(
+                new UserProfileService(webClient),
+                new ActivityService(webClient),
+                new HealthMetricsService(webClient),
+                new WellnessService(webClient),
+                new DeviceService(webClient),
+                new GearService(webClient),
+                new TrainingPlanService(webClient),
+                new GraphQLService(webClient, garmin.getJsonMapper()),
+                null,
+                garmin.getProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void dailySnapshotReturnsPartialResultWhenComponentsFailOrTimeOut() {
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.contains("/hydration/")) {
+                    return json("{}").setHeadersDelay(4, TimeUnit.SECONDS);
+                }
+                if (path.contains("/dailyStress/")) {
+                    return new MockResponse().setResponseCode(400);
+                }
+                if (path.contains("/dailyHeartRate/")) {
+                    return json("{\"restingHeartRate\":48}");
+                }
+                return json("{}");
+            }
+        });
+
+        long started = System.nanoTime();
+        DailyHealthSnapshot snapshot = client.getDailySnapshot("runner", DATE, Duration.ofSeconds(2)).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(snapshot.getDate()).isEqualTo(DATE);
+        assertThat(snapshot.getHeartRates().getRestingHeartRate()).isEqualTo(48);
+        assertThat(snapshot.getHydration()).isNull();
+        assertThat(snapshot.getStress()).isNull();
+        assertThat(snapshot.getFailures()).containsOnlyKeys(Component.HYDRATION, Component.STRESS);
+        assertThat(snapshot.isComplete()).isFalse();
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(4));
+        assertThat(garmin.getServer().getRequestCount()).isGreaterThanOrEqualTo(12);
+    }
+
+    @Test
+    void dailySnapshotBatchesSupportedComponentsThroughGraphQL() {
+        List<String> paths = new CopyOnWriteArrayList<>();
+        List<String> queries = new CopyOnWriteArrayList<>();
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                paths.add(request.getPath());
+                if (request.getPath().equals("/graphql-gateway/graphql")) {
+                    queries.add(request.getBody().readUtf8());
+                    return json("""
+                            {"data":{
+                              "summary":[{"calendarDate":"2024-03-01","totalSteps":12000}],
+                              "sleep":{"sleepTimeSeconds":28800},
+                              "hrv":{"hrvSummary":{"lastNightAvg":62}},
+                              "training_readiness":[{"score":71}],
+                              "training_status":null},
+                             "errors":[{"message":"trainingStatusDailyScalar unavailable"}]}
+                            """);
+                }
+                return json("{}");
+            }
+        });
+
+        DailyHealthSnapshot snapshot = client.getDailySnapshot("runner", DATE).block();
+
+        assertThat(snapshot.getSummary().getTotalSteps()).isEqualTo(12000);
+        assertThat(snapshot.getSleep().getSleepTimeSeconds()).isEqualTo(28800);
+        assertThat(snapshot.getTrainingReadiness()).containsEntry("score", 71);
+        assertThat(snapshot.getTrainingStatus()).isNotNull();
+        assertThat(snapshot.isComplete()).isTrue();
+        assertThat(paths).filteredOn(path -> path.startsWith("/graphql-gateway")).hasSize(1);
+        assertThat(paths).noneMatch(path -> path.contains("/usersummary/daily/")
+                || path.contains("/dailySleepData/") || path.contains("/hrv/") || path.contains("/trainingreadiness/"));
+        assertThat(paths).anyMatch(path -> path.contains("/trainingstatus/"));
+        assertThat(queries).singleElement().asString().contains("sleepScalar(date:\\\"2024-03-01\\\"");
+    }
+
+    @Test
+    void dailySnapshotKeepsComponentsTheGatewayResolvedAsEmpty() {
+        List<String> paths = new CopyOnWriteArrayList<>();
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                paths.add(request.getPath());
+                if (request.getPath().equals("/graphql-gateway/graphql")) {
+                    return json("""
+                            {"data":{"summary":[],"sleep":null,"hrv":null,"training_readiness":[],
+                                     "training_status":null}}
+                            """);
+                }
+                return json("{}");
+            }
+        });
+
+        DailyHealthSnapshot snapshot = client.getDailySnapshot("runner", DATE).block();
+
+        assertThat(snapshot.getSleep()).isNull();
+        assertThat(snapshot.getFailures()).isEmpty();
+        assertThat(paths).hasSize(1 + 12 - GraphQLService.supportedComponents().size());
+    }
+
+    @Test
+    void dailySnapshotFallsBackWithinComponentTimeoutWhenBatchIsSlow() {
+        garmin.getProperties().getGraphql().setBatchTimeout(Duration.ofMillis(300));
+        List<String> paths = new CopyOnWriteArrayList<>();
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                paths.add(request.getPath());
+                if (request.getPath().equals("/graphql-gateway/graphql")) {
+                    return json("{\"data\":{}}").setHeadersDelay(3, TimeUnit.SECONDS);
+                }
+                return json("{}");
+            }
+        });
+
+        long started = System.nanoTime();
+        DailyHealthSnapshot snapshot = client.getDailySnapshot("runner", DATE, Duration.ofSeconds(2)).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(snapshot.getFailures()).isEmpty();
+        assertThat(snapshot.getSleep()).isNotNull();
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(2));
+        assertThat(paths).anyMatch(path -> path.contains("/dailySleepData/"));
+    }
+
+    @Test
+    void dailySnapshotUsesRestOnlyWhenGraphQLDisabled() {
+        garmin.getProperties().getGraphql().setEnabled(false);
+        List<String> paths = new CopyOnWriteArrayList<>();
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                paths.add(request.getPath());
+                return json("{}");
+            }
+        });
+
+        client.getDailySnapshot("runner", DATE).block();
+
+        assertThat(paths).hasSize(12).noneMatch(path -> path.startsWith("/graphql-gateway"));
+    }
+}
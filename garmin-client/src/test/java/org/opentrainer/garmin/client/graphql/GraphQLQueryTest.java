@@ -0,0 +1,40 @@
+package org.opentrainer.garmin.client.graphql;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GraphQLQueryTest {
+
+    @Test
+    void rendersAliasedFieldsWithLiteralArguments() {
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("date", LocalDate.of(2024, 3, 1));
+        arguments.put("sleepOnly", false);
+        arguments.put("include", List.of("stress", "bodyBattery"));
+
+        GraphQLQuery query = GraphQLQuery.builder()
+                .field("sleep", "sleepScalar", arguments)
+                .field("profile", "userProfileScalar")
+                .field("name", "search", Map.of("q", "say \"hi\""))
+                .build();
+
+        assertThat(query.render()).isEqualTo(
+                "query{sleep:sleepScalar(date:\"2024-03-01\",sleepOnly:false,include:[\"stress\",\"bodyBattery\"])"
+                        + " profile:userProfileScalar"
+                        + " name:search(q:\"say \\\"hi\\\"\")}");
+    }
+
+    @Test
+    void rejectsDuplicateAliases() {
+        GraphQLQuery.Builder builder = GraphQLQuery.builder().field("a", "x");
+
+        assertThatThrownBy(() -> builder.field("a", "y")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
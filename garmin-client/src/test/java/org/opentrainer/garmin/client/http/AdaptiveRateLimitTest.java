@@ -0,0 +1,144 @@
+package org.opentrainer.garmin.client.http;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import org.opentrainer.garmin.support.MutableClock;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class AdaptiveRateLimitTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    @TempDir
+    Path tokenDir;
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final GarminProperties.Resilience.RateLimiter config = new GarminProperties.Resilience.RateLimiter();
+    private final RateLimiter rateLimiter = RateLimiter.of("test", RateLimiterConfig.custom()
+            .limitForPeriod(100)
+            .limitRefreshPeriod(Duration.ofMinutes(1))
+            .build());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveRateLimit adaptive = new AdaptiveRateLimit(rateLimiter, config, meterRegistry, clock);
+
+    @Test
+    void backsOffMultiplicativelyOncePerCooldown() {
+        adaptive.onThrottled(null);
+        adaptive.onThrottled(null);
+
+        assertThat(adaptive.getLimit()).isEqualTo(50);
+        assertThat(rateLimiter.getRateLimiterConfig().getLimitForPeriod()).isEqualTo(50);
+        assertThat(meterRegistry.get("garmin.client.ratelimit.limit").gauge().value()).isEqualTo(50.0);
+
+        clock.advance(config.getDecreaseCooldown());
+        adaptive.onThrottled(null);
+        assertThat(adaptive.getLimit()).isEqualTo(25);
+
+        for (int i = 0; i < 5; i++) {
+            clock.advance(config.getDecreaseCooldown());
+            adaptive.onThrottled(null);
+        }
+        assertThat(adaptive.getLimit()).isEqualTo(config.getMinLimitForPeriod());
+    }
+
+    @Test
+    void probesUpwardAdditivelyWhileSucceeding() {
+        adaptive.onSuccess();
+        assertThat(adaptive.getLimit()).isEqualTo(100);
+
+        clock.advance(config.getIncreaseInterval());
+        adaptive.onSuccess();
+        adaptive.onSuccess();
+        assertThat(adaptive.getLimit()).isEqualTo(105);
+
+        for (int i = 0; i < 100; i++) {
+            clock.advance(config.getIncreaseInterval());
+            adaptive.onSuccess();
+        }
+        assertThat(adaptive.getLimit()).isEqualTo(config.getMaxLimitForPeriod());
+    }
+
+    @Test
+    void honoursRetryAfterCappedAtMaximum() {
+        adaptive.onThrottled(Duration.ofSeconds(30));
+        assertThat(adaptive.getPausedUntil()).isEqualTo(NOW.plusSeconds(30));
+
+        adaptive.onThrottled(Duration.ofHours(2));
+        assertThat(adaptive.getPausedUntil()).isEqualTo(NOW.plus(config.getMaxRetryAfter()));
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndHttpDate() {
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "120");
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER, "Fri, 01 Mar 2024 12:01:30 GMT");
+
+        assertThat(AdaptiveRateLimit.retryAfter(seconds, clock)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(AdaptiveRateLimit.retryAfter(date, clock)).isEqualTo(Duration.ofSeconds(90));
+        assertThat(AdaptiveRateLimit.retryAfter(new HttpHeaders(), clock)).isNull();
+    }
+
+    @Test
+    void retryWaitsForRetryAfterOfThrottledResponse() throws Exception {
+        try (MockGarmin garmin = MockGarmin.start(tokenDir)) {
+            garmin.getServer().enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+            garmin.getServer().enqueue(json("{\"deviceId\":1}"));
+
+            long started = System.nanoTime();
+            Device device = garmin.client().get("/device-service/deviceservice/mylastused", Device.class).block();
+
+            assertThat(device.getDeviceId()).isEqualTo(1L);
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+            assertThat(garmin.client().getAdaptiveRateLimit().getLimit()).isEqualTo(25);
+            assertThat(garmin.getMeterRegistry().counter("garmin.client.ratelimit.throttled", "limiter", "test").count())
+                    .isEqualTo(1.0);
+        }
+    }
+
+    @Test
+    void pausedRequestHoldsNoRateLimiterPermit() throws Exception {
+        try (MockGarmin garmin = MockGarmin.start(tokenDir)) {
+            garmin.getServer().enqueue(json("{\"deviceId\":1}"));
+            GarminWebClient client = new GarminWebClient(
+                    WebClient.builder().baseUrl(garmin.getServer().url("/").toString()).build(),
+                    garmin.tokenManager(),
+                    CircuitBreaker.ofDefaults("test"),
+                    rateLimiter,
+                    Retry.ofDefaults("test"),
+                    garmin.getProperties(),
+                    garmin.getJsonMapper(),
+                    meterRegistry);
+            client.getAdaptiveRateLimit().onThrottled(Duration.ofMillis(500));
+            int available = rateLimiter.getMetrics().getAvailablePermissions();
+
+            CompletableFuture<Device> device = client.get("/device-service/deviceservice/mylastused", Device.class)
+                    .toFuture();
+            Thread.sleep(200);
+
+            assertThat(rateLimiter.getMetrics().getAvailablePermissions()).isEqualTo(available);
+            assertThat(device.get(5, TimeUnit.SECONDS).getDeviceId()).isEqualTo(1L);
+            assertThat(rateLimiter.getMetrics().getAvailablePermissions()).isEqualTo(available - 1);
+            client.close();
+        }
+    }
+}
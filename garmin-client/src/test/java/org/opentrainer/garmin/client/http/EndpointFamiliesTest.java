@@ -0,0 +1,106 @@
+package org.opentrainer.garmin.client.http;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class EndpointFamiliesTest {
+
+    private static final String METRICS_PATH = "/metrics-service/metrics/trainingreadiness/2024-03-01";
+    private static final String ACTIVITY_PATH = "/activity-service/activity/1";
+    private static final String WELLNESS_PATH = "/wellness-service/wellness/dailyStress/2024-03-01";
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        garmin.getProperties().getResilience().getRetry().setRetryableStatuses(List.of());
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().startsWith("/metrics-service")) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                if (request.getPath().startsWith("/wellness-service")) {
+                    return json("{\"deviceId\":3}").setHeadersDelay(500, TimeUnit.MILLISECONDS);
+                }
+                return json("{\"deviceId\":1}");
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void failingFamilyOpensOnlyItsOwnBreaker() {
+        GarminProperties.Resilience.CircuitBreaker breaker = new GarminProperties.Resilience.CircuitBreaker();
+        breaker.setSlidingWindowSize(2);
+        breaker.setMinimumNumberOfCalls(2);
+        GarminProperties.Resilience.Family metrics = new GarminProperties.Resilience.Family();
+        metrics.setCircuitBreaker(breaker);
+        garmin.getProperties().getResilience().getFamilies().put("metrics-service", metrics);
+        GarminWebClient client = garmin.client();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.get(METRICS_PATH, Map.class).block()).isInstanceOf(GarminClientException.class);
+        }
+
+        assertThat(client.get(ACTIVITY_PATH, Device.class).block().getDeviceId()).isEqualTo(1L);
+        assertThat(garmin.getServer().getRequestCount()).isEqualTo(3);
+        assertThat(client.getEndpointFamilies().states())
+                .containsEntry("metrics-service", CircuitBreaker.State.OPEN)
+                .containsEntry("activity-service", CircuitBreaker.State.CLOSED);
+        assertThat(garmin.getMeterRegistry().find("resilience4j.circuitbreaker.state")
+                .tag("name", "test-metrics-service").tag("state", "open").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void bulkheadCapsConcurrencyPerFamily() {
+        garmin.getProperties().getResilience().getBulkhead().setMaxConcurrentCalls(1);
+        GarminWebClient client = garmin.client();
+
+        Mono<Device> first = client.get(WELLNESS_PATH, Device.class);
+        Mono<Device> second = client.get(WELLNESS_PATH + "?other", Device.class)
+                .delaySubscription(Duration.ofMillis(100));
+        Mono<Device> otherFamily = client.get(ACTIVITY_PATH, Device.class)
+                .delaySubscription(Duration.ofMillis(100));
+
+        assertThatThrownBy(() -> Mono.zip(first, second).block()).isInstanceOf(GarminClientException.class);
+        assertThat(Mono.zip(client.get(WELLNESS_PATH + "?again", Device.class), otherFamily).block().getT2().getDeviceId())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void familyIsTheFirstPathSegment() {
+        assertThat(EndpointFamilies.family("/activity-service/activity/1")).isEqualTo("activity-service");
+        assertThat(EndpointFamilies.family("/hrv-service?date=2024-03-01")).isEqualTo("hrv-service");
+        assertThat(EndpointFamilies.family("/")).isEqualTo("root");
+    }
+}
@@ -0,0 +1,133 @@
+package org.opentrainer.garmin.client.http;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class GarminWebClientRetryTest {
+
+    private static final String DEVICE_PATH = "/device-service/deviceservice/mylastused";
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        garmin.getProperties().getResilience().getRateLimiter().setAdaptive(false);
+        server = garmin.getServer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void retriesRetryableStatusOfIdempotentRequest() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(json("{\"deviceId\":1}"));
+
+        assertThat(garmin.client().get(DEVICE_PATH, Device.class).block().getDeviceId()).isEqualTo(1L);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void exhaustedAttemptsDoNotSpendRetryBudget() {
+        garmin.getProperties().getResilience().getRetry().setBudgetRatio(0);
+        garmin.getProperties().getResilience().getRetry().setBudgetMinRetries(3);
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        StepVerifier.create(garmin.client().get(DEVICE_PATH, Device.class))
+                .verifyError(GarminClientException.class);
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(json("{\"deviceId\":1}"));
+
+        assertThat(garmin.client().get(DEVICE_PATH + "?v=2", Device.class).block().getDeviceId()).isEqualTo(1L);
+        assertThat(server.getRequestCount()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        StepVerifier.create(garmin.client().get(DEVICE_PATH, Device.class))
+                .verifyError(GarminClientException.class);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryPost() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        StepVerifier.create(garmin.client().post("/weight-service/user-weight", Map.of("value", 70), Map.class))
+                .verifyError(GarminClientException.class);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesReadOnlyQuery() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(json("{\"data\":{}}"));
+
+        assertThat(garmin.client().query("/graphql-gateway/graphql", Map.of("query", "query{}"), Map.class).block())
+                .containsKey("data");
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesAttemptThatTimesOut() {
+        garmin.getProperties().getResilience().getRetry().setAttemptTimeout(Duration.ofMillis(300));
+        server.enqueue(json("{\"deviceId\":1}").setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(json("{\"deviceId\":2}"));
+
+        assertThat(garmin.client().get(DEVICE_PATH, Device.class).block().getDeviceId()).isEqualTo(2L);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void deadlineInContextBoundsRequestIncludingRetries() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(json("{\"deviceId\":1}").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        StepVerifier.create(garmin.client().get(DEVICE_PATH, Device.class)
+                        .contextWrite(RequestDeadline.within(Duration.ofMillis(800))))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(GarminClientException.class)
+                        .hasMessageContaining("deadline"))
+                .verify();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(1800));
+    }
+
+    @Test
+    void nestedDeadlineDoesNotExtendOuterOne() {
+        var context = RequestDeadline.within(Duration.ofSeconds(1))
+                .apply(RequestDeadline.within(Duration.ofMinutes(1)).apply(Context.empty()));
+        var nested = RequestDeadline.within(Duration.ofMinutes(5)).apply(context);
+
+        assertThat(RequestDeadline.from(nested)).isEqualTo(RequestDeadline.from(context));
+    }
+}
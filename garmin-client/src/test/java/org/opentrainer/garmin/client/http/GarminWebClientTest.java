@@ -0,0 +1,158 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class GarminWebClientTest {
+
+    private static final String DEVICES_PATH = "/device-service/deviceregistration/devices";
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private MockWebServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private GarminWebClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        server = garmin.getServer();
+        meterRegistry = garmin.getMeterRegistry();
+        client = garmin.client();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneRequest() {
+        server.enqueue(json("[{\"deviceId\":1}]").setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        var type = new ParameterizedTypeReference<List<Device>>() {};
+        var results = Mono.zip(client.get(DEVICES_PATH, type), client.get(DEVICES_PATH, type)).block();
+
+        assertThat(results.getT1()).extracting(Device::getDeviceId).containsExactly(1L);
+        assertThat(results.getT2()).isEqualTo(results.getT1());
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("garmin.client.requests.coalesced").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sequentialGetsAreNotCoalesced() {
+        server.enqueue(json("{\"deviceId\":1}"));
+        server.enqueue(json("{\"deviceId\":2}"));
+
+        assertThat(client.get("/device-service/deviceservice/mylastused", Device.class).block().getDeviceId()).isEqualTo(1L);
+        assertThat(client.get("/device-service/deviceservice/mylastused", Device.class).block().getDeviceId()).isEqualTo(2L);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheableGetIsServedFromCache() {
+        server.enqueue(json("[{\"typeId\":1}]"));
+
+        var type = new ParameterizedTypeReference<List<Map<String, Object>>>() {};
+        var first = client.get("/activity-service/activity/activityTypes", type).block();
+        var second = client.get("/activity-service/activity/activityTypes", type).block();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("garmin.client.cache.hits").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void writeInvalidatesCachedHistoricalDay() {
+        String path = "/weight-service/weight/dayview/2020-01-01?includeAll=true";
+        var type = new ParameterizedTypeReference<Map<String, Object>>() {};
+        server.enqueue(json("{\"value\":70}"));
+        server.enqueue(json("{}"));
+        server.enqueue(json("{\"value\":71}"));
+
+        assertThat(client.get(path, type).block()).containsEntry("value", 70);
+        assertThat(client.get(path, type).block()).containsEntry("value", 70);
+        client.post("/weight-service/user-weight", Map.of("value", 71), type).block();
+
+        assertThat(client.get(path, type).block()).containsEntry("value", 71);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void queryDoesNotDiscardConcurrentCacheLoads() {
+        server.enqueue(json("[{\"typeId\":1}]").setBodyDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(json("{\"data\":{}}"));
+
+        var type = new ParameterizedTypeReference<List<Map<String, Object>>>() {};
+        Mono.zip(client.get("/activity-service/activity/activityTypes", type),
+                client.query("/graphql-gateway/graphql", Map.of("query", "query{}"), Map.class)
+                        .delaySubscription(Duration.ofMillis(100))).block();
+
+        assertThat(client.get("/activity-service/activity/activityTypes", type).block()).hasSize(1);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getFluxStreamsNestedArrayElements() {
+        server.enqueue(json("""
+                {"activityId":1,
+                 "metricDescriptors":[{"metricsIndex":0,"key":"directHeartRate"}],
+                 "activityDetailMetrics":[{"metrics":[120.0]},{"metrics":[null]},{"metrics":[125.0]}],
+                 "geoPolylineDTO":{"polyline":[]}}
+                """));
+
+        var rows = client.getFlux("/activity-service/activity/1/details", "/activityDetailMetrics",
+                new ParameterizedTypeReference<Map<String, Object>>() {}).collectList().block();
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).containsEntry("metrics", List.of(120.0));
+    }
+
+    @Test
+    void getFluxRejectsOversizedElement() throws Exception {
+        try (MockGarmin limited = MockGarmin.start(tokenDir)) {
+            limited.getProperties().getHttp().setMaxStreamElementSize(DataSize.ofBytes(16));
+            limited.getServer().enqueue(json("[{\"deviceId\":2,\"displayName\":\"a rather long display name\"}]"));
+
+            StepVerifier.create(limited.client().getFlux(DEVICES_PATH, Device.class))
+                    .verifyError(GarminClientException.class);
+        }
+    }
+
+    @Test
+    void notModifiedResponseReturnsStoredBody() throws Exception {
+        String path = "/activitylist-service/activities/search/activities?start=0&limit=1";
+        var type = new ParameterizedTypeReference<List<Map<String, Object>>>() {};
+        server.enqueue(json("[{\"activityId\":7}]").setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        assertThat(client.get(path, type).block()).hasSize(1);
+        assertThat(client.get(path, type).block()).singleElement().isEqualTo(Map.of("activityId", 7));
+
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    }
+}
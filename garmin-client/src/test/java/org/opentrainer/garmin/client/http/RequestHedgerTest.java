@@ -0,0 +1,128 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class RequestHedgerTest {
+
+    private static final String WELLNESS_PATH = "/wellness-service/wellness/dailyStress/2024-03-01";
+
+    @TempDir
+    Path tokenDir;
+
+    private final GarminProperties.Resilience.Hedging config = new GarminProperties.Resilience.Hedging();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void slowGetIsAnsweredByHedge() throws Exception {
+        try (MockGarmin garmin = MockGarmin.start(tokenDir)) {
+            var hedging = garmin.getProperties().getResilience().getHedging();
+            hedging.setPaths(List.of("/wellness-service/**"));
+            hedging.setInitialDelay(Duration.ofMillis(100));
+            garmin.getServer().enqueue(json("{\"deviceId\":1}").setHeadersDelay(2, TimeUnit.SECONDS));
+            garmin.getServer().enqueue(json("{\"deviceId\":2}"));
+
+            long started = System.nanoTime();
+            Device device = garmin.client().get(WELLNESS_PATH, Device.class).block();
+
+            assertThat(device.getDeviceId()).isEqualTo(2L);
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+            assertThat(garmin.getMeterRegistry().counter("garmin.client.hedge.wins").count()).isEqualTo(1.0);
+        }
+    }
+
+    @Test
+    void hedgeTakesItsOwnBulkheadPermit() throws Exception {
+        try (MockGarmin garmin = MockGarmin.start(tokenDir)) {
+            garmin.getProperties().getResilience().getBulkhead().setMaxConcurrentCalls(1);
+            var hedging = garmin.getProperties().getResilience().getHedging();
+            hedging.setPaths(List.of("/wellness-service/**"));
+            hedging.setInitialDelay(Duration.ofMillis(100));
+            garmin.getServer().enqueue(json("{\"deviceId\":1}").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+            garmin.getServer().enqueue(json("{\"deviceId\":2}"));
+
+            Device device = garmin.client().get(WELLNESS_PATH, Device.class).block();
+
+            assertThat(device.getDeviceId()).isEqualTo(1L);
+            assertThat(garmin.getServer().getRequestCount()).isEqualTo(1);
+            assertThat(garmin.getMeterRegistry().counter("garmin.client.hedge.wins").count()).isZero();
+        }
+    }
+
+    @Test
+    void unmatchedPathsAreNotHedged() {
+        config.setInitialDelay(Duration.ofMillis(10));
+        RequestHedger hedger = new RequestHedger(config, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.hedge("/activity-service/activity/1",
+                () -> Mono.delay(Duration.ofMillis(200)).map(tick -> "attempt " + attempts.incrementAndGet())).block();
+
+        assertThat(result).isEqualTo("attempt 1");
+        assertThat(attempts).hasValue(1);
+        assertThat(hedger.delayFor("/activity-service/activity/1")).isNull();
+    }
+
+    @Test
+    void hedgeBudgetCapsExtraAttempts() {
+        config.setPaths(List.of("/wellness-service/**"));
+        config.setMinDelay(Duration.ofMillis(10));
+        config.setInitialDelay(Duration.ofMillis(10));
+        config.setBudgetRatio(0);
+        config.setBudgetMinHedges(1);
+        RequestHedger hedger = new RequestHedger(config, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            hedger.hedge(WELLNESS_PATH, () -> Mono.delay(Duration.ofMillis(100)).doOnSubscribe(s -> attempts.incrementAndGet()))
+                    .block();
+        }
+
+        assertThat(attempts).hasValue(4);
+        assertThat(meterRegistry.counter("garmin.client.hedge.budget.exhausted").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void failedHedgeLeavesOriginalInCharge() {
+        config.setPaths(List.of("/wellness-service/**"));
+        config.setInitialDelay(Duration.ofMillis(50));
+        RequestHedger hedger = new RequestHedger(config, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.hedge(WELLNESS_PATH, () -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(300)).thenReturn("original")
+                : Mono.error(new IllegalStateException("hedge failed"))).block();
+
+        assertThat(result).isEqualTo("original");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void delayFollowsObservedLatencyPercentile() {
+        config.setPaths(List.of("/wellness-service/**"));
+        config.setMinSamples(20);
+        RequestHedger hedger = new RequestHedger(config, meterRegistry);
+
+        assertThat(hedger.delayFor(WELLNESS_PATH)).isEqualTo(config.getInitialDelay());
+
+        for (int i = 0; i < 20; i++) {
+            hedger.hedge(WELLNESS_PATH, () -> Mono.just("fast")).block();
+        }
+
+        assertThat(hedger.delayFor(WELLNESS_PATH)).isEqualTo(config.getMinDelay());
+    }
+}
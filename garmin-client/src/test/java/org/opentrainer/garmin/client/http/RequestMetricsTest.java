@@ -0,0 +1,146 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.exception.GarminClientException;
+import org.opentrainer.garmin.model.Device;
+import org.opentrainer.garmin.support.MockGarmin;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class RequestMetricsTest {
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        meterRegistry = garmin.getMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void uriTemplateReplacesIdsDatesAndTemplatedDisplayNames() {
+        RequestMetrics metrics = new RequestMetrics(new GarminProperties.Metrics(), new SimpleMeterRegistry());
+
+        assertThat(metrics.uriTemplate("/activity-service/activity/123456/details?maxChartSize=2000"))
+                .isEqualTo("/activity-service/activity/{id}/details");
+        assertThat(metrics.uriTemplate("/hrv-service/hrv/2024-03-01"))
+                .isEqualTo("/hrv-service/hrv/{date}");
+        assertThat(metrics.uriTemplate("/gear-service/gear/stats/8f3c2a1e-57b4-4c1d-9e2f-0a1b2c3d4e5f"))
+                .isEqualTo("/gear-service/gear/stats/{uuid}");
+        assertThat(metrics.uriTemplate("/usersummary-service/usersummary/daily/jane.doe?calendarDate=2024-03-01"))
+                .isEqualTo("/usersummary-service/usersummary/daily/{displayName}");
+        assertThat(metrics.uriTemplate("/device-service/deviceregistration/devices"))
+                .isEqualTo("/device-service/deviceregistration/devices");
+    }
+
+    @Test
+    void defaultTemplatesCoverDisplayNameEndpoints() {
+        RequestMetrics metrics = new RequestMetrics(new GarminProperties.Metrics(), new SimpleMeterRegistry());
+
+        assertThat(List.of(
+                "/userstats-service/wellness/daily/jane.doe?date=2024-03-01",
+                "/wellness-service/wellness/dailySummaryChart/jane.doe?date=2024-03-01",
+                "/wellness-service/wellness/dailyHeartRate/jane.doe?date=2024-03-01",
+                "/wellness-service/wellness/dailySleepData/jane.doe?date=2024-03-01",
+                "/personalrecord-service/personalrecord/prs/jane.doe",
+                "/metrics-service/metrics/racepredictions/latest/jane.doe"))
+                .extracting(metrics::uriTemplate)
+                .allSatisfy(template -> assertThat(template).endsWith("/{displayName}"));
+        // Without a template, only IDs, dates and UUIDs are recognized
+        assertThat(metrics.uriTemplate("/userprofile-service/socialProfile/jane.doe"))
+                .isEqualTo("/userprofile-service/socialProfile/jane.doe");
+    }
+
+    @Test
+    void retriedRequestIsTimedOnceWithItsRetryCount() {
+        garmin.getServer().enqueue(new MockResponse().setResponseCode(500));
+        garmin.getServer().enqueue(json("{\"deviceId\":1}"));
+
+        assertThat(garmin.client().get("/activity-service/activity/42", Device.class).block().getDeviceId())
+                .isEqualTo(1L);
+
+        Timer timer = meterRegistry.find("garmin.client.requests")
+                .tags("method", "GET", "uri", "/activity-service/activity/{id}")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.getId().getTag("status")).isEqualTo("200");
+        assertThat(timer.getId().getTag("outcome")).isEqualTo("SUCCESS");
+        assertThat(timer.getId().getTag("retries")).isEqualTo("1");
+        assertThat(meterRegistry.get("garmin.client.requests.wait").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("garmin.client.responses.decode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("garmin.client.responses.size").summary().totalAmount())
+                .isEqualTo("{\"deviceId\":1}".length());
+    }
+
+    @Test
+    void failedRequestIsTaggedWithStatusAndOutcome() {
+        garmin.getServer().enqueue(new MockResponse().setResponseCode(404));
+
+        assertThatThrownBy(() -> garmin.client().get("/gear-service/gear/user/77", Device.class).block())
+                .isInstanceOf(GarminClientException.class);
+
+        Timer timer = meterRegistry.get("garmin.client.requests").timer();
+        assertThat(timer.getId().getTag("uri")).isEqualTo("/gear-service/gear/user/{id}");
+        assertThat(timer.getId().getTag("status")).isEqualTo("404");
+        assertThat(timer.getId().getTag("outcome")).isEqualTo("CLIENT_ERROR");
+        assertThat(timer.getId().getTag("retries")).isEqualTo("0");
+    }
+
+    @Test
+    void requestIsRecordedAsFlightRecorderEvent() throws Exception {
+        garmin.getServer().enqueue(json("{\"deviceId\":1}"));
+        Path dump = tokenDir.resolve("requests.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.opentrainer.garmin.Request");
+            recording.start();
+            garmin.client().get("/activity-service/activity/42", Device.class).block();
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        RecordedEvent event = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals("org.opentrainer.garmin.Request"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(event.getString("uri")).isEqualTo("/activity-service/activity/{id}");
+        assertThat(event.getInt("status")).isEqualTo(200);
+        assertThat(event.getString("outcome")).isEqualTo("SUCCESS");
+        assertThat(event.getInt("attempts")).isEqualTo(1);
+        assertThat(event.getLong("bytes")).isEqualTo("{\"deviceId\":1}".length());
+    }
+
+    @Test
+    void rateLimiterStateIsExposed() {
+        garmin.client();
+
+        assertThat(meterRegistry.get("garmin.client.ratelimit.available").tag("limiter", "test").gauge().value())
+                .isPositive();
+        assertThat(meterRegistry.get("garmin.client.ratelimit.waiting").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.support.MutableClock;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private static final String DAY = "/usersummary-service/usersummary/daily/%s?calendarDate=%s";
+
+    @Test
+    void recentDaysAreNotCachedAsHistorical() {
+        GarminProperties.Cache config = new GarminProperties.Cache();
+        config.setEnabled(true);
+        // Shortly after midnight on the server, while athletes further west are still on the previous day
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-10T00:30:00Z"));
+        ResponseCache cache = new ResponseCache("test", config, new SimpleMeterRegistry(), clock);
+
+        assertThat(cache.ttlFor(day("2024-03-10"))).isNull();
+        assertThat(cache.ttlFor(day("2024-03-09"))).isNull();
+        assertThat(cache.ttlFor(day("2024-03-08"))).isEqualTo(Duration.ofHours(12));
+
+        config.setHistoricalDelayDays(0);
+        assertThat(cache.ttlFor(day("2024-03-09"))).isEqualTo(Duration.ofHours(12));
+    }
+
+    @Test
+    void onlyRelatedWritesDiscardLoadsInFlight() {
+        ResponseCache cache = new ResponseCache("test", new GarminProperties.Cache(), new SimpleMeterRegistry());
+        RequestKey key = RequestKey.get("/activity-service/activity/activityTypes", String.class);
+        AtomicInteger loads = new AtomicInteger();
+
+        Sinks.One<String> unrelated = Sinks.one();
+        Mono<String> first = cache.getOrLoad(key, () -> unrelated.asMono().doOnSubscribe(s -> loads.incrementAndGet()));
+        first.subscribe();
+        cache.invalidate("/device-service/deviceservice/device-info/1");
+        unrelated.tryEmitValue("types");
+        assertThat(cache.getOrLoad(key, () -> Mono.just("reloaded")).block()).isEqualTo("types");
+
+        cache.invalidateAll();
+        Sinks.One<String> related = Sinks.one();
+        cache.getOrLoad(key, related::asMono).subscribe();
+        cache.invalidate("/activity-service/activity/activityTypes");
+        related.tryEmitValue("stale");
+        assertThat(cache.getOrLoad(key, () -> Mono.just("reloaded")).block()).isEqualTo("reloaded");
+        assertThat(loads).hasValue(1);
+    }
+
+    private static String day(String date) {
+        return DAY.formatted(date, date);
+    }
+}
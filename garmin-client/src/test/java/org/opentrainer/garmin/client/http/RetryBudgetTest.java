@@ -0,0 +1,61 @@
+package org.opentrainer.garmin.client.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-01T12:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void capsRetriesAtRatioOfRecentRequests() {
+        RetryBudget budget = budget(0.2, 1);
+        for (int i = 0; i < 20; i++) {
+            budget.recordRequest();
+        }
+
+        int allowed = 0;
+        while (budget.tryAcquireRetry()) {
+            allowed++;
+        }
+
+        assertThat(allowed).isEqualTo(4);
+        assertThat(meterRegistry.counter("garmin.client.retry.budget.exhausted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void allowsMinimumRetriesWithoutTraffic() {
+        RetryBudget budget = budget(0.2, 2);
+
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+    }
+
+    @Test
+    void replenishesOnceRetriesLeaveTheWindow() {
+        RetryBudget budget = budget(0.2, 1);
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+
+        clock.advance(Duration.ofSeconds(10));
+
+        assertThat(budget.tryAcquireRetry()).isTrue();
+    }
+
+    private RetryBudget budget(double ratio, int minRetries) {
+        GarminProperties.Resilience.Retry config = new GarminProperties.Resilience.Retry();
+        config.setBudgetRatio(ratio);
+        config.setBudgetMinRetries(minRetries);
+        config.setBudgetWindow(Duration.ofSeconds(10));
+        return new RetryBudget(config, meterRegistry, clock);
+    }
+}
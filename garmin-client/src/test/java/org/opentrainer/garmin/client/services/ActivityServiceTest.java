@@ -0,0 +1,249 @@
+package org.opentrainer.garmin.client.services;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.opentrainer.garmin.model.Activity;
+import org.opentrainer.garmin.model.ActivityDownloadFormat;
+import org.opentrainer.garmin.model.ActivityStreams;
+import org.opentrainer.garmin.support.MockGarmin;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class ActivityServiceTest {
+
+    private static final int TOTAL_ACTIVITIES = 25;
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private ActivityService activityService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        garmin.getServer().setDispatcher(new ActivityListDispatcher());
+        activityService = new ActivityService(garmin.client());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void streamActivitiesPagesUntilShortPage() {
+        StepVerifier.create(activityService.streamActivities(10).map(Activity::getActivityId))
+                .expectNextSequence(IntStream.rangeClosed(1, TOTAL_ACTIVITIES)
+                        .mapToObj(i -> (long) (TOTAL_ACTIVITIES + 1 - i))
+                        .toList())
+                .verifyComplete();
+    }
+
+    @Test
+    void streamActivitiesAfterStopsAtBoundary() {
+        StepVerifier.create(activityService.streamActivitiesAfter(22L, 2).map(Activity::getActivityId))
+                .expectNext(25L, 24L, 23L)
+                .verifyComplete();
+
+        // Boundary found on the second page: at most the prefetched third page is requested
+        assertThat(garmin.getServer().getRequestCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void streamActivitiesHonoursBackpressure() {
+        StepVerifier.create(activityService.streamActivities(5), 3)
+                .expectNextCount(3)
+                .thenAwait()
+                .thenCancel()
+                .verify();
+
+        assertThat(garmin.getServer().getRequestCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void typedDetailsAndLapsDecodeGarminPayloads() {
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("/splits")) {
+                    return json("""
+                            {"activityId":7,"lapDTOs":[{"lapIndex":1,"distance":1000.0,"averageHR":151.0,
+                              "startTimeGMT":"2024-03-01T06:00:00.0"}]}
+                            """);
+                }
+                return json("""
+                        {"activityId":7,"metricDescriptors":[{"metricsIndex":0,"key":"directHeartRate"}],
+                         "activityDetailMetrics":[{"metrics":[120.0]},{"metrics":[null]}],
+                         "geoPolylineDTO":{"polyline":[{"lat":52.1,"lon":4.3}]}}
+                        """);
+            }
+        });
+
+        var details = activityService.getTypedActivityDetails(7L, 100, 100).block();
+        assertThat(details.getMetricDescriptors()).singleElement()
+                .satisfies(descriptor -> assertThat(descriptor.getKey()).isEqualTo("directHeartRate"));
+        assertThat(details.getActivityDetailMetrics().get(0).getMetrics()).containsExactly(120.0);
+        assertThat(details.getActivityDetailMetrics().get(1).getMetrics()).containsExactly(Double.NaN);
+        assertThat(details.getGeoPolylineDTO().getPolyline()).singleElement()
+                .satisfies(point -> assertThat(point.getLat()).isEqualTo(52.1));
+
+        var laps = activityService.getActivityLaps(7L).block();
+        assertThat(laps.getLapDTOs()).singleElement()
+                .satisfies(lap -> assertThat(lap.getAverageHR()).isEqualTo(151.0));
+    }
+
+    @Test
+    void activityStreamsDecodeChunkedBodyWithoutCaching() throws Exception {
+        garmin.getProperties().getCache().getRules()
+                .add(0, new GarminProperties.Cache.Rule("/activity-service/activity/*/details", Duration.ofHours(1)));
+        String body = """
+                {"activityId":7,"metricDescriptors":[{"metricsIndex":0,"key":"directHeartRate"},
+                                                     {"metricsIndex":1,"key":"directPower"}],
+                 "activityDetailMetrics":[{"metrics":[120.0,210.5]},{"metrics":[null,215.0]},{"metrics":[122.0]}]}
+                """;
+        garmin.getServer().setDispatcher(new QueueDispatcher());
+        for (int i = 0; i < 2; i++) {
+            garmin.getServer().enqueue(json(body).setChunkedBody(body, 7).setHeader("ETag", "\"v1\""));
+        }
+
+        for (int i = 0; i < 2; i++) {
+            ActivityStreams streams = activityService.getActivityStreams(7L, 100).block();
+            assertThat(streams.getActivityId()).isEqualTo(7L);
+            assertThat(streams.heartRate()).hasValueSatisfying(heartRate ->
+                    assertThat(heartRate).containsExactly(120.0, Double.NaN, 122.0));
+            assertThat(streams.power()).hasValueSatisfying(power ->
+                    assertThat(power).containsExactly(210.5, 215.0, Double.NaN));
+        }
+        assertThat(garmin.getServer().getRequestCount()).isEqualTo(2);
+        assertThat(garmin.getServer().takeRequest().getHeader("If-None-Match")).isNull();
+        assertThat(garmin.getServer().takeRequest().getHeader("If-None-Match")).isNull();
+        assertThat(garmin.client().getResponseCache().size()).isZero();
+    }
+
+    @Test
+    void downloadResumesInterruptedTransfer() throws Exception {
+        String content = "0123456789".repeat(10_000);
+        AtomicInteger attempts = new AtomicInteger();
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String range = request.getHeader("Range");
+                if (attempts.getAndIncrement() == 0) {
+                    // Cut the connection half way through the body
+                    return new MockResponse().setBody(content).setHeader("ETag", "\"v1\"")
+                            .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+                }
+                int offset = range == null || !"\"v1\"".equals(request.getHeader("If-Range"))
+                        ? 0
+                        : Integer.parseInt(range.replaceAll("\\D", ""));
+                return offset > 0
+                        ? new MockResponse().setResponseCode(206).setBody(content.substring(offset))
+                                .setHeader("Content-Range", "bytes " + offset + "-" + (content.length() - 1)
+                                        + "/" + content.length())
+                        : new MockResponse().setBody(content);
+            }
+        });
+        Path target = tokenDir.resolve("activities/7.zip");
+
+        Path downloaded = activityService.downloadActivity(7L, ActivityDownloadFormat.ORIGINAL, target).block();
+
+        assertThat(downloaded).isEqualTo(target);
+        assertThat(Files.readString(target)).isEqualTo(content);
+        assertThat(target.resolveSibling("7.zip.part")).doesNotExist();
+        assertThat(target.resolveSibling("7.zip.part.validator")).doesNotExist();
+        RecordedRequest first = garmin.getServer().takeRequest();
+        assertThat(first.getPath()).isEqualTo("/download-service/files/activity/7");
+        assertThat(first.getHeader("Accept-Encoding")).isEqualTo("identity");
+        RecordedRequest resumed = garmin.getServer().takeRequest();
+        assertThat(resumed.getHeader("Range")).startsWith("bytes=");
+        assertThat(resumed.getHeader("If-Range")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    void downloadKeepsPartFileThatIsAlreadyComplete() throws Exception {
+        Path target = tokenDir.resolve("7.tcx");
+        Files.writeString(target.resolveSibling("7.tcx.part"), "<tcx/>");
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(416).setHeader("Content-Range", "bytes */6");
+            }
+        });
+
+        activityService.downloadActivity(7L, ActivityDownloadFormat.TCX, target).block();
+
+        assertThat(Files.readString(target)).isEqualTo("<tcx/>");
+        assertThat(garmin.getServer().getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void downloadRestartsWhenServerIgnoresRange() throws Exception {
+        Path target = tokenDir.resolve("7.gpx");
+        Files.writeString(target.resolveSibling("7.gpx.part"), "stale");
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("<gpx/>");
+            }
+        });
+
+        activityService.downloadActivity(7L, ActivityDownloadFormat.GPX, target).block();
+
+        assertThat(Files.readString(target)).isEqualTo("<gpx/>");
+        assertThat(garmin.getServer().takeRequest().getHeader("Range")).isEqualTo("bytes=5-");
+    }
+
+    @Test
+    void downloadRestartsWhenPartialContentStartsElsewhere() throws Exception {
+        Path target = tokenDir.resolve("7.fit");
+        Files.writeString(target.resolveSibling("7.fit.part"), "01234");
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return request.getHeader("Range") != null
+                        ? new MockResponse().setResponseCode(206).setBody("3456789")
+                                .setHeader("Content-Range", "bytes 3-9/10")
+                        : new MockResponse().setBody("0123456789");
+            }
+        });
+
+        activityService.downloadActivity(7L, ActivityDownloadFormat.ORIGINAL, target).block();
+
+        assertThat(Files.readString(target)).isEqualTo("0123456789");
+        assertThat(garmin.getServer().takeRequest().getHeader("Range")).isEqualTo("bytes=5-");
+        assertThat(garmin.getServer().takeRequest().getHeader("Range")).isNull();
+    }
+
+    /**
+     * Serves activities with IDs counting down from {@link #TOTAL_ACTIVITIES}, newest first
+     */
+    private static class ActivityListDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            int start = Integer.parseInt(request.getRequestUrl().queryParameter("start"));
+            int limit = Integer.parseInt(request.getRequestUrl().queryParameter("limit"));
+            String page = IntStream.range(start, Math.min(start + limit, TOTAL_ACTIVITIES))
+                    .mapToObj(i -> "{\"activityId\":" + (TOTAL_ACTIVITIES - i) + "}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            return json(page);
+        }
+    }
+}
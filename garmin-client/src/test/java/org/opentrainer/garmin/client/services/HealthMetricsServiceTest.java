@@ -0,0 +1,107 @@
+package org.opentrainer.garmin.client.services;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentrainer.garmin.model.DatedResult;
+import org.opentrainer.garmin.support.MockGarmin;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opentrainer.garmin.support.MockGarmin.json;
+
+class HealthMetricsServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path tokenDir;
+
+    private MockGarmin garmin;
+    private HealthMetricsService healthMetricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        garmin = MockGarmin.start(tokenDir);
+        healthMetricsService = new HealthMetricsService(garmin.client());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        garmin.close();
+    }
+
+    @Test
+    void rangeReportsPerDayFailuresInDateOrder() {
+        garmin.getServer().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String date = request.getRequestUrl().pathSegments().get(2);
+                return date.equals("2024-03-02")
+                        ? new MockResponse().setResponseCode(400)
+                        : json("{\"calendarDate\":\"" + date + "\"}");
+            }
+        });
+
+        List<DatedResult<Map<String, Object>>> results = healthMetricsService
+                .getHRVDataRange(START, START.plusDays(2))
+                .collectList()
+                .block();
+
+        assertThat(results).extracting(DatedResult::date)
+                .containsExactly(START, START.plusDays(1), START.plusDays(2));
+        assertThat(results).extracting(DatedResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(2).value()).containsEntry("calendarDate", "2024-03-03");
+    }
+
+    @Test
+    void typedModelsDecodeGarminPayloads() {
+        garmin.getServer().enqueue(json("""
+                {"userProfilePk":1,
+                 "hrvSummary":{"calendarDate":"2024-03-01","weeklyAvg":48,"lastNightAvg":52,
+                               "baseline":{"lowUpper":40,"balancedLow":44,"balancedUpper":56},"status":"BALANCED"},
+                 "hrvReadings":[{"hrvValue":50,"readingTimeGMT":"2024-03-01T01:05:00.0"}]}
+                """));
+        garmin.getServer().enqueue(json("""
+                {"calendarDate":"2024-03-01","maxStressLevel":90,"avgStressLevel":31,
+                 "stressValuesArray":[[1709251200000,25],[1709251380000,-1]]}
+                """));
+        garmin.getServer().enqueue(json("""
+                [{"calendarDate":"2024-03-01","score":72,"level":"HIGH","inputContext":"AFTER_WAKEUP_RESET"}]
+                """));
+
+        var hrv = healthMetricsService.getHrv(START).block();
+        assertThat(hrv.getHrvSummary().getLastNightAvg()).isEqualTo(52);
+        assertThat(hrv.getHrvSummary().getBaseline().getBalancedUpper()).isEqualTo(56);
+        assertThat(hrv.getHrvReadings()).singleElement().extracting(r -> r.getHrvValue()).isEqualTo(50);
+
+        var stress = healthMetricsService.getStress(START).block();
+        assertThat(stress.getAvgStressLevel()).isEqualTo(31);
+        assertThat(stress.getStressValuesArray().size()).isEqualTo(2);
+        assertThat(stress.getStressValuesArray().timestamp(1)).isEqualTo(1709251380000L);
+        assertThat(stress.getStressValuesArray().isPresent(1)).isFalse();
+        assertThat(stress.getStressValuesArray().average()).hasValue(25.0);
+
+        assertThat(healthMetricsService.getTrainingReadinessEntries(START).block())
+                .singleElement()
+                .satisfies(readiness -> {
+                    assertThat(readiness.getScore()).isEqualTo(72);
+                    assertThat(readiness.getCalendarDate()).isEqualTo(START);
+                });
+    }
+
+    @Test
+    void rangeRejectsReversedDates() {
+        StepVerifier.create(healthMetricsService.getStressDataRange(START, START.minusDays(1)))
+                .verifyError(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package org.opentrainer.garmin.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.internal.shaded.reactor.pool.PoolAcquirePendingLimitException;
+import reactor.netty.internal.shaded.reactor.pool.PoolAcquireTimeoutException;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GarminAutoConfigurationTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final GarminProperties properties = new GarminProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConnectionProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server.start();
+        properties.setBaseUrl("http://localhost:" + server.getPort());
+        GarminProperties.Http http = properties.getHttp();
+        http.setMaxConnectionsPerHost(1);
+        http.setPendingAcquireMaxCount(1);
+        http.setPendingAcquireTimeout(Duration.ofMillis(300));
+        http.setPoolMetricsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (provider != null) {
+            provider.dispose();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void garminHostPoolKeepsEveryPoolSetting() {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("meterRegistry", meterRegistry);
+        provider = new GarminAutoConfiguration(properties)
+                .garminConnectionProvider(beans.getBeanProvider(MeterRegistry.class));
+        HttpClient client = HttpClient.create(provider).baseUrl(properties.getBaseUrl());
+        server.enqueue(new MockResponse().setHeadersDelay(2, TimeUnit.SECONDS));
+
+        // The only connection is held by a slow response, so further callers wait for it, one at most
+        client.get().uri("/slow").response().subscribe();
+        assertThatThrownBy(() -> client.get().uri("/timeout").response().block(Duration.ofSeconds(1)))
+                .hasCauseInstanceOf(PoolAcquireTimeoutException.class);
+
+        Mono<?> waiting = client.get().uri("/waiting").response();
+        Mono<?> rejected = client.get().uri("/rejected").response().delaySubscription(Duration.ofMillis(100));
+        assertThatThrownBy(() -> Mono.zip(waiting, rejected).block(Duration.ofSeconds(1)))
+                .isInstanceOf(PoolAcquirePendingLimitException.class);
+        assertThat(meterRegistry.get("garmin.http.pool.max").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,55 @@
+package org.opentrainer.garmin.model;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityStreamsTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Test
+    void decodesRowsIntoColumnsByDescriptor() {
+        ActivityStreams streams = jsonMapper.readValue("""
+                {"activityId":7,"measurementCount":4,
+                 "metricDescriptors":[
+                   {"metricsIndex":0,"key":"directTimestamp","unit":{"id":120,"key":"gmt","factor":0.0}},
+                   {"metricsIndex":1,"key":"directHeartRate","unit":{"id":100,"key":"bpm","factor":1.0}},
+                   {"metricsIndex":2,"key":"directBikeCadence"}],
+                 "activityDetailMetrics":[
+                   {"metrics":[1709280000000.0,120.0,85.0]},
+                   {"metrics":[1709280001000.0,null,86.0]},
+                   {"metrics":[1709280002000.0,122.0]}],
+                 "geoPolylineDTO":{"polyline":[{"lat":52.1,"lon":4.3}]}}
+                """, ActivityStreams.class);
+
+        assertThat(streams.getActivityId()).isEqualTo(7L);
+        assertThat(streams.size()).isEqualTo(3);
+        assertThat(streams.keys()).containsExactly("directTimestamp", "directHeartRate", "directBikeCadence");
+        assertThat(streams.timestamps()).hasValueSatisfying(timestamps ->
+                assertThat(timestamps).containsExactly(1709280000000L, 1709280001000L, 1709280002000L));
+        assertThat(streams.heartRate()).hasValueSatisfying(heartRate ->
+                assertThat(heartRate).containsExactly(120.0, Double.NaN, 122.0));
+        assertThat(streams.cadence()).hasValueSatisfying(cadence ->
+                assertThat(cadence).containsExactly(85.0, 86.0, Double.NaN));
+        assertThat(streams.power()).isEmpty();
+    }
+
+    @Test
+    void acceptsRowsBeforeDescriptors() {
+        ActivityStreams streams = jsonMapper.readValue("""
+                {"activityDetailMetrics":[{"metrics":[1.5,200.0]},{"metrics":[2.5,210.0]}],
+                 "metricDescriptors":[{"metricsIndex":1,"key":"directPower"},{"metricsIndex":0,"key":"directSpeed"},
+                                      {"metricsIndex":5,"key":"directElevation"}]}
+                """, ActivityStreams.class);
+
+        assertThat(streams.speed()).hasValueSatisfying(speed -> assertThat(speed).containsExactly(1.5, 2.5));
+        assertThat(streams.power()).hasValueSatisfying(power -> assertThat(power).containsExactly(200.0, 210.0));
+        assertThat(streams.elevation()).hasValueSatisfying(elevation ->
+                assertThat(elevation).containsExactly(Double.NaN, Double.NaN));
+    }
+}
@@ -0,0 +1,88 @@
+package org.opentrainer.garmin.model;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntTimeSeriesTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Test
+    void decodesGarminSampleArraysIntoPrimitiveColumns() {
+        HeartRateData heartRates = jsonMapper.readValue("""
+                {"calendarDate":"2024-03-01","restingHeartRate":48,
+                 "heartRateValues":[[1709251200000,61],[1709251320000,null],[1709251440000,58.6]]}
+                """, HeartRateData.class);
+
+        IntTimeSeries series = heartRates.getHeartRateValues();
+        assertThat(series.size()).isEqualTo(3);
+        assertThat(series.count()).isEqualTo(2);
+        assertThat(series.isPresent(1)).isFalse();
+        assertThat(series.values()).containsExactly(61, 59);
+        assertThat(series.min()).hasValue(59);
+        assertThat(series.max()).hasValue(61);
+        assertThat(series.average()).hasValue(60.0);
+    }
+
+    @Test
+    void readsFirstNumberAfterTimestamp() {
+        BodyBattery bodyBattery = jsonMapper.readValue("""
+                {"date":"2024-03-01",
+                 "bodyBatteryValuesArray":[[1709251200000,"MEASURED",42,2.0],[1709251380000,"MEASURED",40,2.0]]}
+                """, BodyBattery.class);
+
+        assertThat(bodyBattery.getValues().values()).containsExactly(42, 40);
+    }
+
+    @Test
+    void stressSentinelsAreMissing() {
+        StressData stress = jsonMapper.readValue("""
+                {"calendarDate":"2024-03-01",
+                 "stressValuesArray":[[1709251200000,30],[1709251380000,-1],[1709251560000,-2],[1709251740000,50]]}
+                """, StressData.class);
+
+        IntTimeSeries series = stress.getStressValuesArray();
+        assertThat(series.size()).isEqualTo(4);
+        assertThat(series.count()).isEqualTo(2);
+        assertThat(series.min()).hasValue(30);
+        assertThat(series.average()).hasValue(40.0);
+    }
+
+    @Test
+    void rangeSelectsSamplesBetweenInstants() {
+        IntTimeSeries series = IntTimeSeries.builder()
+                .add(3_000, 3)
+                .add(1_000, 1)
+                .add(2_000, 2)
+                .addMissing(4_000)
+                .build();
+
+        IntTimeSeries range = series.between(Instant.ofEpochMilli(2_000), Instant.ofEpochMilli(4_001));
+        List<Long> timestamps = new ArrayList<>();
+        range.forEach((timestamp, value) -> timestamps.add(timestamp));
+
+        assertThat(series.timestamp(0)).isEqualTo(1_000);
+        assertThat(range.size()).isEqualTo(3);
+        assertThat(timestamps).containsExactly(2_000L, 3_000L);
+        assertThat(series.between(Instant.ofEpochMilli(5_000), Instant.ofEpochMilli(6_000)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void serializesBackToSampleArrays() {
+        IntTimeSeries series = IntTimeSeries.builder().add(1_000, 60).addMissing(2_000).build();
+
+        String json = jsonMapper.writeValueAsString(series);
+
+        assertThat(json).isEqualTo("[[1000,60],[2000,null]]");
+        assertThat(jsonMapper.readValue(json, IntTimeSeries.class)).isEqualTo(series);
+    }
+}
@@ -0,0 +1,103 @@
+package org.opentrainer.garmin.support;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.opentrainer.garmin.auth.OAuth2Token;
+import org.opentrainer.garmin.auth.TokenManager;
+import org.opentrainer.garmin.client.http.GarminWebClient;
+import org.opentrainer.garmin.config.GarminProperties;
+import org.springframework.web.reactive.function.client.WebClient;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Mock Garmin Connect server with an authenticated {@link GarminWebClient} pointing at it.
+ */
+public class MockGarmin implements AutoCloseable {
+
+    private final MockWebServer server = new MockWebServer();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GarminProperties properties = new GarminProperties();
+    private final JsonMapper jsonMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private TokenManager tokenManager;
+    private GarminWebClient client;
+
+    public static MockGarmin start(Path tokenDir) throws IOException {
+        MockGarmin garmin = new MockGarmin();
+        garmin.server.start();
+        garmin.properties.setBaseUrl(garmin.server.url("/").toString());
+        garmin.properties.getOauth().setTokenStoragePath(tokenDir.toString());
+        return garmin;
+    }
+
+    /**
+     * Client authenticated with a valid OAuth2 token, built on first use so tests can adjust properties
+     */
+    public GarminWebClient client() {
+        if (client == null) {
+            client = new GarminWebClient(
+                    WebClient.builder().baseUrl(server.url("/").toString()).build(),
+                    tokenManager(),
+                    CircuitBreaker.ofDefaults("test"),
+                    RateLimiter.ofDefaults("test"),
+                    Retry.ofDefaults("test"),
+                    properties,
+                    jsonMapper,
+                    meterRegistry);
+        }
+        return client;
+    }
+
+    public TokenManager tokenManager() {
+        if (tokenManager == null) {
+            tokenManager = new TokenManager(properties.getOauth(), jsonMapper);
+            tokenManager.storeOAuth2Token(OAuth2Token.builder()
+                    .accessToken("access")
+                    .tokenType("Bearer")
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build());
+        }
+        return tokenManager;
+    }
+
+    public MockWebServer getServer() {
+        return server;
+    }
+
+    public SimpleMeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    public GarminProperties getProperties() {
+        return properties;
+    }
+
+    public JsonMapper getJsonMapper() {
+        return jsonMapper;
+    }
+
+    public static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (tokenManager != null) {
+            // Finish the background token write before the temporary directory is deleted
+            tokenManager.flush();
+        }
+        server.shutdown();
+    }
+}
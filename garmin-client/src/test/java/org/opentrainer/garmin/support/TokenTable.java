@@ -0,0 +1,156 @@
+package org.opentrainer.garmin.support;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * In-memory stand-in for the {@code garmin_tokens} table, answering the statements of the JDBC token store
+ * with the semantics PostgreSQL gives them.
+ */
+public class TokenTable implements DataSource {
+
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger selects = new AtomicInteger();
+
+    public record Row(long version, byte[] tokens) {
+    }
+
+    public Row row(String owner) {
+        return rows.get(owner);
+    }
+
+    public void put(String owner, Row row) {
+        rows.put(owner, row);
+    }
+
+    /**
+     * Number of SELECT statements executed so far
+     */
+    public int selects() {
+        return selects.get();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement((String) args[0]);
+            case "close" -> null;
+            default -> objectMethod(proxy, method.getName(), args);
+        });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return getConnection();
+    }
+
+    private PreparedStatement statement(String sql) {
+        Map<Integer, Object> parameters = new HashMap<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "setString", "setBytes", "setLong", "setTimestamp" -> {
+                parameters.put((Integer) args[0], args[1]);
+                yield null;
+            }
+            case "executeQuery" -> query(sql, parameters);
+            case "executeUpdate" -> update(sql, parameters);
+            case "close" -> null;
+            default -> objectMethod(proxy, method.getName(), args);
+        });
+    }
+
+    private ResultSet query(String sql, Map<Integer, Object> parameters) throws SQLException {
+        if (!sql.startsWith("SELECT")) {
+            throw new SQLException("Unexpected query: " + sql);
+        }
+        selects.incrementAndGet();
+        Row row = rows.get((String) parameters.get(1));
+        AtomicInteger position = new AtomicInteger();
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> row != null && position.getAndIncrement() == 0;
+            case "getLong" -> row.version();
+            case "getBytes" -> row.tokens().clone();
+            case "close" -> null;
+            default -> objectMethod(proxy, method.getName(), args);
+        });
+    }
+
+    private int update(String sql, Map<Integer, Object> parameters) throws SQLException {
+        if (sql.startsWith("INSERT")) {
+            // ON CONFLICT (owner) DO NOTHING
+            Row inserted = new Row(1, (byte[]) parameters.get(2));
+            return rows.putIfAbsent((String) parameters.get(1), inserted) == null ? 1 : 0;
+        }
+        if (sql.startsWith("UPDATE")) {
+            long version = (Long) parameters.get(4);
+            Row current = rows.get((String) parameters.get(3));
+            if (current == null || current.version() != version) {
+                return 0;
+            }
+            return rows.replace((String) parameters.get(3), current, new Row(version + 1, (byte[]) parameters.get(1)))
+                    ? 1 : 0;
+        }
+        if (sql.startsWith("DELETE")) {
+            return rows.remove((String) parameters.get(1)) != null ? 1 : 0;
+        }
+        throw new SQLException("Unexpected update: " + sql);
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args) {
+        return switch (name) {
+            case "toString" -> proxy.getClass().getInterfaces()[0].getSimpleName();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(name);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TokenTable.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not a wrapper");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.opentrainer.core.user;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.opentrainer.user.Login")
+@Label("Login")
+@Category({"Open Trainer", "User"})
+@StackTrace(false)
+class LoginEvent extends Event {
+
+    @Label("Registration Type")
+    String registrationType;
+
+    @Label("Password Check Time")
+    @Timespan
+    long passwordCheckTime;
+
+    @Label("Success")
+    boolean success;
+}
@@ -19,27 +19,39 @@ public class LoginUseCase {
     private final TokenProviderPort tokenProvider;
 
     public String login(RegistrationOption.RegistrationType type, String identifier, String secret) {
-        Optional<User> userOpt = userRepository.findByRegistrationOption(type, identifier);
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        event.registrationType = type.name();
+        try {
+            Optional<User> userOpt = userRepository.findByRegistrationOption(type, identifier);
 
-        if (userOpt.isEmpty()) {
-            throw new RuntimeException("Invalid identifier or password");
-        }
-
-        User user = userOpt.get();
-        RegistrationOption option = user.getRegistrationOptions().stream()
-                .filter(o -> o.getType() == type && o.getIdentifier().equals(identifier))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Registration option not found"));
-
-        if (type == RegistrationOption.RegistrationType.LOGIN_PASSWORD) {
-            if (!passwordEncoder.matches(secret, option.getSecret())) {
+            if (userOpt.isEmpty()) {
                 throw new RuntimeException("Invalid identifier or password");
             }
-        } else {
-            // For OAuth, we'd verify the token with the provider, for now we assume it's valid if we found it
-            // This is where OAuth logic would go in the future
-        }
 
-        return tokenProvider.generateToken(user);
+            User user = userOpt.get();
+            RegistrationOption option = user.getRegistrationOptions().stream()
+                    .filter(o -> o.getType() == type && o.getIdentifier().equals(identifier))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Registration option not found"));
+
+            if (type == RegistrationOption.RegistrationType.LOGIN_PASSWORD) {
+                long started = System.nanoTime();
+                boolean matches = passwordEncoder.matches(secret, option.getSecret());
+                event.passwordCheckTime = System.nanoTime() - started;
+                if (!matches) {
+                    throw new RuntimeException("Invalid identifier or password");
+                }
+            } else {
+                // For OAuth, we'd verify the token with the provider, for now we assume it's valid if we found it
+                // This is where OAuth logic would go in the future
+            }
+
+            String token = tokenProvider.generateToken(user);
+            event.success = true;
+            return token;
+        } finally {
+            event.commit();
+        }
     }
 }
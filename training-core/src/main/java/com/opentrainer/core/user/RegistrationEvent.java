@@ -0,0 +1,25 @@
+package com.opentrainer.core.user;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.opentrainer.user.Registration")
+@Label("Registration")
+@Category({"Open Trainer", "User"})
+@StackTrace(false)
+class RegistrationEvent extends Event {
+
+    @Label("Registration Type")
+    String registrationType;
+
+    @Label("Password Hash Time")
+    @Timespan
+    long passwordHashTime;
+
+    @Label("Success")
+    boolean success;
+}
@@ -18,30 +18,42 @@ public class RegistrationUseCase {
     private final PasswordEncoderPort passwordEncoder;
 
     public User register(String email, String firstName, String lastName, RegistrationOption.RegistrationType type, String identifier, String rawSecret) {
-        if (userRepository.findByRegistrationOption(type, identifier).isPresent()) {
-            throw new RuntimeException("User already exists with this registration option");
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+        event.registrationType = type.name();
+        try {
+            if (userRepository.findByRegistrationOption(type, identifier).isPresent()) {
+                throw new RuntimeException("User already exists with this registration option");
+            }
+
+            String encodedSecret = rawSecret;
+            if (type == RegistrationOption.RegistrationType.LOGIN_PASSWORD && rawSecret != null) {
+                long started = System.nanoTime();
+                encodedSecret = passwordEncoder.encode(rawSecret);
+                event.passwordHashTime = System.nanoTime() - started;
+            }
+
+            User user = userRepository.findByEmail(email).orElseGet(() -> User.builder()
+                    .email(email)
+                    .firstName(firstName)
+                    .lastName(lastName)
+                    .registrationOptions(new ArrayList<>())
+                    .active(true)
+                    .build());
+
+            RegistrationOption option = RegistrationOption.builder()
+                    .type(type)
+                    .identifier(identifier)
+                    .secret(encodedSecret)
+                    .createdAt(LocalDateTime.now())
+                    .build();
+
+            user.addRegistrationOption(option);
+            User saved = userRepository.save(user);
+            event.success = true;
+            return saved;
+        } finally {
+            event.commit();
         }
-
-        String encodedSecret = (type == RegistrationOption.RegistrationType.LOGIN_PASSWORD && rawSecret != null) 
-                ? passwordEncoder.encode(rawSecret) 
-                : rawSecret;
-
-        User user = userRepository.findByEmail(email).orElseGet(() -> User.builder()
-                .email(email)
-                .firstName(firstName)
-                .lastName(lastName)
-                .registrationOptions(new ArrayList<>())
-                .active(true)
-                .build());
-
-        RegistrationOption option = RegistrationOption.builder()
-                .type(type)
-                .identifier(identifier)
-                .secret(encodedSecret)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        user.addRegistrationOption(option);
-        return userRepository.save(user);
     }
 }